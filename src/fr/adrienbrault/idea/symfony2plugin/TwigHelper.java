@@ -4,10 +4,10 @@ import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.openapi.extensions.ExtensionPointName;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.patterns.ElementPattern;
 import com.intellij.patterns.PatternCondition;
 import com.intellij.patterns.PlatformPatterns;
@@ -30,6 +30,7 @@ import fr.adrienbrault.idea.symfony2plugin.asset.dic.AssetFile;
 import fr.adrienbrault.idea.symfony2plugin.extension.TwigNamespaceExtension;
 import fr.adrienbrault.idea.symfony2plugin.extension.TwigNamespaceExtensionParameter;
 import fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigMacroFunctionStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.templating.TemplateLookupElement;
 import fr.adrienbrault.idea.symfony2plugin.templating.assets.TwigNamedAssetsServiceParser;
@@ -37,7 +38,7 @@ import fr.adrienbrault.idea.symfony2plugin.templating.dict.TemplateFileMap;
 import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigBlock;
 import fr.adrienbrault.idea.symfony2plugin.templating.path.TwigNamespaceSetting;
 import fr.adrienbrault.idea.symfony2plugin.templating.path.TwigPath;
-import fr.adrienbrault.idea.symfony2plugin.templating.path.TwigPathContentIterator;
+import fr.adrienbrault.idea.symfony2plugin.templating.path.TwigPathFileCache;
 import fr.adrienbrault.idea.symfony2plugin.templating.path.TwigPathIndex;
 import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigTypeResolveUtil;
 import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigUtil;
@@ -75,6 +76,7 @@ public class TwigHelper {
 
     private static final Key<CachedValue<TemplateFileMap>> TEMPLATE_CACHE_TWIG = new Key<>("TEMPLATE_CACHE_TWIG");
     private static final Key<CachedValue<TemplateFileMap>> TEMPLATE_CACHE_ALL = new Key<>("TEMPLATE_CACHE_ALL");
+    private static final Key<CachedValue<Collection<TwigPath>>> TEMPLATE_PATHS = new Key<>("TEMPLATE_PATHS");
 
     public static final String DOC_SEE_REGEX  = "\\{#[\\s]+@see[\\s]+([-@\\./\\:\\w\\\\\\[\\]]+)[\\s]*#}";
     public static final String DOC_SEE_REGEX_WITHOUT_SEE  = "\\{#[\\s]+([-@\\./\\:\\w\\\\\\[\\]]+)[\\s]*#}";
@@ -143,14 +145,65 @@ public class TwigHelper {
         return templateMapProxy;
     }
 
+    /**
+     * Template names of all enabled namespace roots; files of a root are collected once and kept until
+     * the file structure below it changes
+     *
+     * @see TwigPathFileCache
+     */
     @NotNull
     private static TemplateFileMap getTemplateMapProxy(@NotNull Project project, boolean useTwig, boolean usePhp) {
+        TwigPathFileCache fileCache = TwigPathFileCache.getInstance(project);
+
+        TemplateFileMap container = new TemplateFileMap();
+        for (TwigPath twigPath : getTemplatePaths(project)) {
+            if(twigPath.isEnabled()) {
+                container.putAll(fileCache.getFiles(twigPath, useTwig, usePhp));
+            }
+        }
+
+        return container;
+    }
+
+    /**
+     * All template directories with its namespace: configured namespaces, parent bundle and "app/Resources" overwrites.
+     * Namespaces of the compiled container are included, so its parsing is a dependency
+     */
+    @NotNull
+    private static Collection<TwigPath> getTemplatePaths(@NotNull Project project) {
+        CachedValue<Collection<TwigPath>> cache = project.getUserData(TEMPLATE_PATHS);
+        if (cache == null) {
+            cache = CachedValuesManager.getManager(project).createCachedValue(() ->
+                CachedValueProvider.Result.create(
+                    Collections.unmodifiableList(getTemplatePathsProxy(project)),
+                    SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.TEMPLATES),
+                    ServiceXmlParserFactory.getModificationTracker(project)
+                ),
+                false
+            );
+
+            project.putUserData(TEMPLATE_PATHS, cache);
+        }
+
+        return cache.getValue();
+    }
+
+    /**
+     * Changes only if the template directories itself are changed; so typing does not invalidate template maps
+     */
+    @NotNull
+    private static ModificationTracker getTemplatePathsModificationTracker(@NotNull Project project) {
+        return () -> TwigPathFileCache.getInstance(project).getPathsModificationCount(getTemplatePaths(project));
+    }
+
+    @NotNull
+    private static List<TwigPath> getTemplatePathsProxy(@NotNull Project project) {
 
         List<TwigPath> twigPaths = new ArrayList<>();
         twigPaths.addAll(getTwigNamespaces(project));
 
         if(twigPaths.size() == 0) {
-            return new TemplateFileMap();
+            return twigPaths;
         }
 
         // app/Resources/ParentBundle/Resources/views
@@ -182,21 +235,7 @@ public class TwigHelper {
             }
         }
 
-        TemplateFileMap container = new TemplateFileMap();
-
-        for (TwigPath twigPath : twigPaths) {
-            if(twigPath.isEnabled()) {
-                VirtualFile virtualDirectoryFile = twigPath.getDirectory(project);
-                if(virtualDirectoryFile != null) {
-                    final TwigPathContentIterator iterator = new TwigPathContentIterator(project, twigPath).setWithPhp(usePhp).setWithTwig(useTwig);
-                    VfsUtil.visitChildrenRecursively(virtualDirectoryFile, new MyLimitedVirtualFileVisitor(iterator, 5, 150));
-                    container.putAll(iterator.getResults());
-                }
-            }
-
-        }
-        
-        return container;
+        return twigPaths;
     }
 
     public static Map<String, VirtualFile> getTwigFilesByName(Project project) {
@@ -2169,7 +2208,7 @@ public class TwigHelper {
         @Nullable
         @Override
         public Result<TemplateFileMap> compute() {
-            return Result.create(getTemplateMapProxy(project, true, false), PsiModificationTracker.MODIFICATION_COUNT);
+            return Result.create(getTemplateMapProxy(project, true, false), TwigPathFileCache.getInstance(project), getTemplatePathsModificationTracker(project));
         }
     }
 
@@ -2184,7 +2223,7 @@ public class TwigHelper {
         @Nullable
         @Override
         public Result<TemplateFileMap> compute() {
-            return Result.create(getTemplateMapProxy(project, true, true), PsiModificationTracker.MODIFICATION_COUNT);
+            return Result.create(getTemplateMapProxy(project, true, true), TwigPathFileCache.getInstance(project), getTemplatePathsModificationTracker(project));
         }
     }
 
@@ -2333,32 +2372,6 @@ public class TwigHelper {
         return text;
     }
 
-    private static class MyLimitedVirtualFileVisitor extends VirtualFileVisitor {
-        @NotNull
-        private final TwigPathContentIterator twigPathContentIterator;
-        private int childrenAllowToVisit = 1000;
-
-        MyLimitedVirtualFileVisitor(@NotNull TwigPathContentIterator twigPathContentIterator, int maxDepth, int maxDirs) {
-            super(VirtualFileVisitor.limit(maxDepth));
-            this.twigPathContentIterator = twigPathContentIterator;
-            this.childrenAllowToVisit = maxDirs;
-        }
-
-        @Override
-        public boolean visitFile(@NotNull VirtualFile virtualFile) {
-            // per path directory limit
-            if(virtualFile.isDirectory()) {
-                if(childrenAllowToVisit-- <= 0) {
-                    return false;
-                }
-            }
-
-            twigPathContentIterator.processFile(virtualFile);
-
-            return super.visitFile(virtualFile);
-        }
-    }
-
     /**
      * trans({
      *  %some%': "button.reserve"|trans,
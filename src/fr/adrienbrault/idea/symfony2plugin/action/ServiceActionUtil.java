@@ -30,6 +30,7 @@ import fr.adrienbrault.idea.symfony2plugin.util.SymfonyBundleUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.dict.ServiceUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyBundle;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
+import gnu.trove.TObjectIntHashMap;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -150,10 +151,8 @@ public class ServiceActionUtil {
         // lower priority of services like "doctrine.orm.default_entity_manager"
         matchedContainer.sort(new SymfonyCreateService.ContainerServicePriorityNameComparator());
 
-        matchedContainer.sort((o1, o2) ->
-            ((Integer)ServiceContainerUtil.getServiceUsage(phpClass.getProject(), o2.getName()))
-                .compareTo(ServiceContainerUtil.getServiceUsage(phpClass.getProject(), o1.getName()))
-        );
+        TObjectIntHashMap<String> usages = ServiceContainerUtil.getServiceUsages(phpClass.getProject());
+        matchedContainer.sort((o1, o2) -> Integer.compare(usages.get(o2.getName()), usages.get(o1.getName())));
 
         return matchedContainer.stream()
             .map(ContainerService::getName)
@@ -0,0 +1,194 @@
+package fr.adrienbrault.idea.symfony2plugin.codeInsight.utils;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.Language;
+import com.intellij.patterns.ElementPattern;
+import com.intellij.patterns.PatternCondition;
+import com.intellij.patterns.ValuePatternCondition;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.tree.IElementType;
+import fr.adrienbrault.idea.symfony2plugin.codeInsight.GotoCompletionContributor;
+import fr.adrienbrault.idea.symfony2plugin.codeInsight.GotoCompletionRegistrar;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * All registrar patterns, collected once and bucketed by their "withLanguage" and "withElementType"
+ * condition; so only patterns which are able to match the leaf element are visited.
+ *
+ * Patterns without a known condition are candidates for every element
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class GotoCompletionRegistry {
+
+    @NotNull
+    private final Map<Language, Bucket> languages = new HashMap<>();
+
+    @NotNull
+    private final Bucket anyLanguage = new Bucket();
+
+    private int registrations = 0;
+
+    GotoCompletionRegistry(@NotNull GotoCompletionRegistrar[] registrars) {
+        for (GotoCompletionRegistrar registrar : registrars) {
+            registrar.register(this::add);
+        }
+    }
+
+    /**
+     * Matching contributors in their registration order
+     */
+    @NotNull
+    Collection<GotoCompletionContributor> getContributors(@NotNull PsiElement psiElement) {
+        ASTNode node = psiElement.getNode();
+        IElementType elementType = node != null ? node.getElementType() : null;
+
+        List<Registration> candidates = new ArrayList<>();
+
+        Bucket bucket = languages.get(psiElement.getLanguage());
+        if(bucket != null) {
+            bucket.collect(elementType, candidates);
+        }
+
+        anyLanguage.collect(elementType, candidates);
+
+        if(candidates.size() == 0) {
+            return Collections.emptyList();
+        }
+
+        candidates.sort(Comparator.comparingInt(registration -> registration.order));
+
+        Collection<GotoCompletionContributor> contributors = new ArrayList<>();
+        for (Registration candidate : candidates) {
+            if(candidate.pattern.accepts(psiElement)) {
+                contributors.add(candidate.contributor);
+            }
+        }
+
+        return contributors;
+    }
+
+    private void add(@NotNull ElementPattern<? extends PsiElement> pattern, @NotNull GotoCompletionContributor contributor) {
+        Registration registration = new Registration(registrations++, pattern, contributor);
+
+        Language language = getLanguage(pattern);
+
+        Bucket bucket = language != null ? languages.computeIfAbsent(language, l -> new Bucket()) : anyLanguage;
+        bucket.add(getElementTypes(pattern), registration);
+    }
+
+    /**
+     * psiElement().withLanguage(PhpLanguage.INSTANCE)
+     */
+    @Nullable
+    public static Language getLanguage(@NotNull ElementPattern<?> pattern) {
+        for (Object parameter : getConditionParameters(pattern, "withLanguage")) {
+            if(parameter instanceof Language) {
+                return (Language) parameter;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * psiElement(TwigTokenTypes.IDENTIFIER), psiElement().withElementType(...)
+     */
+    @Nullable
+    public static Collection<IElementType> getElementTypes(@NotNull ElementPattern<?> pattern) {
+        for (Object parameter : getConditionParameters(pattern, "withElementType")) {
+            if(!(parameter instanceof ElementPattern)) {
+                continue;
+            }
+
+            for (PatternCondition<?> condition : ((ElementPattern<?>) parameter).getCondition().getConditions()) {
+                if(!(condition instanceof ValuePatternCondition)) {
+                    continue;
+                }
+
+                Collection<IElementType> elementTypes = new ArrayList<>();
+                for (Object value : ((ValuePatternCondition<?>) condition).getValues()) {
+                    if(!(value instanceof IElementType)) {
+                        return null;
+                    }
+
+                    elementTypes.add((IElementType) value);
+                }
+
+                return elementTypes;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Captured parameters of the top level pattern conditions; reflection, so only on building the registry
+     */
+    @NotNull
+    private static Collection<Object> getConditionParameters(@NotNull ElementPattern<?> pattern, @NotNull String debugMethodName) {
+        Collection<Object> parameters = new ArrayList<>();
+
+        for (PatternCondition<?> condition : pattern.getCondition().getConditions()) {
+            if(debugMethodName.equals(condition.getDebugMethodName())) {
+                condition.processParameters((name, value) -> {
+                    parameters.add(value);
+                    return true;
+                });
+            }
+        }
+
+        return parameters;
+    }
+
+    private static class Bucket {
+
+        @NotNull
+        private final Map<IElementType, List<Registration>> elementTypes = new HashMap<>();
+
+        @NotNull
+        private final List<Registration> anyElementType = new ArrayList<>();
+
+        void add(@Nullable Collection<IElementType> elementTypes, @NotNull Registration registration) {
+            if(elementTypes == null) {
+                anyElementType.add(registration);
+                return;
+            }
+
+            for (IElementType elementType : elementTypes) {
+                this.elementTypes.computeIfAbsent(elementType, type -> new ArrayList<>()).add(registration);
+            }
+        }
+
+        void collect(@Nullable IElementType elementType, @NotNull List<Registration> candidates) {
+            if(elementType != null) {
+                List<Registration> registrations = elementTypes.get(elementType);
+                if(registrations != null) {
+                    candidates.addAll(registrations);
+                }
+            }
+
+            candidates.addAll(anyElementType);
+        }
+    }
+
+    private static class Registration {
+
+        private final int order;
+
+        @NotNull
+        private final ElementPattern<? extends PsiElement> pattern;
+
+        @NotNull
+        private final GotoCompletionContributor contributor;
+
+        Registration(int order, @NotNull ElementPattern<? extends PsiElement> pattern, @NotNull GotoCompletionContributor contributor) {
+            this.order = order;
+            this.pattern = pattern;
+            this.contributor = contributor;
+        }
+    }
+}
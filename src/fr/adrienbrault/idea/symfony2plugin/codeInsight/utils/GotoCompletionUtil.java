@@ -1,6 +1,7 @@
 package fr.adrienbrault.idea.symfony2plugin.codeInsight.utils;
 
 import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.openapi.util.AtomicNotNullLazyValue;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.xml.XmlAttributeValue;
 import com.intellij.psi.xml.XmlText;
@@ -8,13 +9,11 @@ import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import com.jetbrains.twig.TwigTokenTypes;
 import fr.adrienbrault.idea.symfony2plugin.codeInsight.GotoCompletionContributor;
 import fr.adrienbrault.idea.symfony2plugin.codeInsight.GotoCompletionRegistrar;
-import fr.adrienbrault.idea.symfony2plugin.codeInsight.GotoCompletionRegistrarParameter;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.yaml.psi.YAMLScalar;
 
-import java.util.ArrayList;
 import java.util.Collection;
 
 /**
@@ -24,21 +23,19 @@ public class GotoCompletionUtil {
 
     private static final ExtensionPointName<GotoCompletionRegistrar> EXTENSIONS = new ExtensionPointName<>("fr.adrienbrault.idea.symfony2plugin.extension.GotoCompletionRegistrar");
 
-    public static Collection<GotoCompletionContributor> getContributors(final PsiElement psiElement) {
-
-        final Collection<GotoCompletionContributor> contributors = new ArrayList<>();
-
-        GotoCompletionRegistrarParameter registrar = (pattern, contributor) -> {
-            if(pattern.accepts(psiElement)) {
-                contributors.add(contributor);
-            }
-        };
-
-        for(GotoCompletionRegistrar register: EXTENSIONS.getExtensions()) {
-            register.register(registrar);
+    private static final AtomicNotNullLazyValue<GotoCompletionRegistry> REGISTRY = new AtomicNotNullLazyValue<GotoCompletionRegistry>() {
+        @NotNull
+        @Override
+        protected GotoCompletionRegistry compute() {
+            return new GotoCompletionRegistry(EXTENSIONS.getExtensions());
         }
+    };
 
-        return contributors;
+    /**
+     * Registrars are application wide; their patterns are only registered once
+     */
+    public static Collection<GotoCompletionContributor> getContributors(final PsiElement psiElement) {
+        return REGISTRY.getValue().getContributors(psiElement);
     }
 
     @Nullable
@@ -24,6 +24,7 @@ import fr.adrienbrault.idea.symfony2plugin.config.dic.EventDispatcherSubscribedE
 import fr.adrienbrault.idea.symfony2plugin.dic.XmlEventParser;
 import fr.adrienbrault.idea.symfony2plugin.stubs.ContainerCollectionResolver;
 import fr.adrienbrault.idea.symfony2plugin.stubs.cache.FileIndexCaches;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.DispatcherEvent;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.EventAnnotationStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.util.EventSubscriberUtil;
@@ -54,7 +55,7 @@ public class EventDispatcherSubscriberUtil {
         CachedValue<Collection<EventDispatcherSubscribedEvent>> cache = project.getUserData(EVENT_SUBSCRIBERS);
         if (cache == null) {
             cache = CachedValuesManager.getManager(project).createCachedValue(() ->
-                CachedValueProvider.Result.create(getSubscribedEventsProxy(project), PsiModificationTracker.MODIFICATION_COUNT), false
+                CachedValueProvider.Result.create(getSubscribedEventsProxy(project), SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES)), false
             );
             project.putUserData(EVENT_SUBSCRIBERS, cache);
         }
@@ -277,7 +278,7 @@ public class EventDispatcherSubscriberUtil {
             }
         });
 
-        for (String s : FileIndexCaches.getIndexKeysCache(project, EVENT_ANNOTATIONS, EventAnnotationStubIndex.KEY)) {
+        for (String s : FileIndexCaches.getIndexKeysCache(project, EVENT_ANNOTATIONS, EventAnnotationStubIndex.KEY, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES))) {
 
             String typeText = "Event";
 
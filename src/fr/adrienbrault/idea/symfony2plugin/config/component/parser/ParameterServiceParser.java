@@ -1,8 +1,9 @@
 package fr.adrienbrault.idea.symfony2plugin.config.component.parser;
 
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import org.jetbrains.annotations.NotNull;
 
-import java.io.InputStream;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -13,17 +14,21 @@ public class ParameterServiceParser extends AbstractServiceParser {
 
     protected Map<String, String> parameterMap = new ConcurrentHashMap<>();
 
+    /**
+     * "/container/parameters/parameter[@key]"
+     */
     @Override
-    public String getXPathFilter() {
-        return "";
-    }
+    public void endElement(@NotNull ServiceContainerElement element) {
+        if(!element.hasAttribute("key") || !element.isPath("container", "parameters", "parameter")) {
+            return;
+        }
 
-    public void parser(final InputStream file) {
-        this.parameterMap.putAll(ParameterServiceCollector.collect(file));
+        String parameterValue = "collection".equals(element.getAttribute("type")) ? "collection" : element.getText();
+        this.parameterMap.put(element.getAttribute("key"), parameterValue);
     }
 
     public Map<String, String> getParameterMap() {
         return parameterMap;
     }
 
-}
\ No newline at end of file
+}
@@ -9,6 +9,7 @@ import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.Method;
 import com.jetbrains.php.lang.psi.elements.MethodReference;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -32,7 +33,7 @@ public class ConfigUtil {
 
         if (cache == null) {
             cache = CachedValuesManager.getManager(project).createCachedValue(() ->
-                    CachedValueProvider.Result.create(visitTreeSignatures(project), PsiModificationTracker.MODIFICATION_COUNT)
+                    CachedValueProvider.Result.create(visitTreeSignatures(project), SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES))
                 , false);
 
             project.putUserData(TREE_SIGNATURE_CACHE, cache);
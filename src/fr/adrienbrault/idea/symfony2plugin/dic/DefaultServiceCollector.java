@@ -1,5 +1,8 @@
 package fr.adrienbrault.idea.symfony2plugin.dic;
 
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.PsiManager;
 import fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector;
 import fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollectorParameter;
 import fr.adrienbrault.idea.symfony2plugin.util.SymfonyUtil;
@@ -36,4 +39,13 @@ public class DefaultServiceCollector implements ServiceCollector {
             parameter.add("request");
         }
     }
+
+    /**
+     * Only the Symfony version of the kernel class is a dependency, which is outside of any method body
+     */
+    @NotNull
+    @Override
+    public ModificationTracker getModificationTracker(@NotNull Project project) {
+        return PsiManager.getInstance(project).getModificationTracker().getOutOfCodeBlockModificationTracker();
+    }
 }
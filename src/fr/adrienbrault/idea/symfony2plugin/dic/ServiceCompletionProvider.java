@@ -3,6 +3,7 @@ package fr.adrienbrault.idea.symfony2plugin.dic;
 import com.intellij.codeInsight.completion.*;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementWeigher;
+import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.ProcessingContext;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
@@ -37,12 +38,15 @@ public class ServiceCompletionProvider extends CompletionProvider<CompletionPara
         }
 
         PsiElement element = parameters.getPosition();
+        Project project = element.getProject();
 
-        PrioritizedLookupResult result = getLookupElements(
-            element, ContainerCollectionResolver.getServices(element.getProject()).values()
-        );
+        List<String> topServices = getTopServices(element, ContainerCollectionResolver.getServices(project).values());
 
-        addPrioritizedServiceLookupElements(parameters, resultSet, result);
+        // only the prebuilt elements matching the prefix
+        Collection<LookupElement> lookupElements = ServiceLookupElementIndex.getInstance(project)
+            .getLookupElements(resultSet.getPrefixMatcher().getPrefix(), topServices);
+
+        addPrioritizedServiceLookupElements(parameters, resultSet, new PrioritizedLookupResult(lookupElements, topServices));
     }
 
     public static void addPrioritizedServiceLookupElements(@NotNull CompletionParameters parameters, @NotNull CompletionResultSet resultSet, @NotNull PrioritizedLookupResult result) {
@@ -60,20 +64,7 @@ public class ServiceCompletionProvider extends CompletionProvider<CompletionPara
 
     @NotNull
     public static PrioritizedLookupResult getLookupElements(@Nullable PsiElement element, @NotNull Collection<ContainerService> services) {
-        // collect instance to highlight services
-        List<String> servicesForInstance = new ArrayList<>();
-
-        if(element != null) {
-            Set<String> servicesForInstanceSet = new java.util.HashSet<>();
-
-            for (ServiceSuggestionCollector collector : COLLECTORS) {
-                servicesForInstanceSet.addAll(collector.collect(element, services));
-            }
-
-            servicesForInstance.addAll(
-                ServiceContainerUtil.getSortedServiceId(element.getProject(), servicesForInstanceSet)
-            );
-        }
+        List<String> servicesForInstance = getTopServices(element, services);
 
         Collection<LookupElement> collect = services.stream()
             .map((Function<ContainerService, LookupElement>)
@@ -83,6 +74,23 @@ public class ServiceCompletionProvider extends CompletionProvider<CompletionPara
         return new PrioritizedLookupResult(collect, servicesForInstance);
     }
 
+    /**
+     * Services matching the instance of the given context to highlight them, sorted by usage
+     */
+    @NotNull
+    private static List<String> getTopServices(@Nullable PsiElement element, @NotNull Collection<ContainerService> services) {
+        if(element == null) {
+            return new ArrayList<>();
+        }
+
+        Set<String> servicesForInstance = new HashSet<>();
+        for (ServiceSuggestionCollector collector : COLLECTORS) {
+            servicesForInstance.addAll(collector.collect(element, services));
+        }
+
+        return ServiceContainerUtil.getSortedServiceId(element.getProject(), servicesForInstance);
+    }
+
     public static class PrioritizedLookupResult {
 
         @NotNull
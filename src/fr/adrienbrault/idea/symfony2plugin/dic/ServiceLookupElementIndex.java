@@ -0,0 +1,278 @@
+package fr.adrienbrault.idea.symfony2plugin.dic;
+
+import com.intellij.codeInsight.completion.PrioritizedLookupElement;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.util.ServiceContainerUtil;
+import fr.adrienbrault.idea.symfony2plugin.stubs.ContainerCollectionResolver;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pre-ranked service ids with their lookup elements, shared by all completion invocations until services change.
+ *
+ * Every word start of an id ("foo.bar_car" -> "foo.bar_car", "bar_car", "car"; also humps "App\UserMailer" -> "Mailer")
+ * is kept in a sorted array. Completion matcher needs the first prefix char on a word start and all others in order,
+ * so only ids of the word starts with this char are checked, found by a binary search like walking down a prefix trie
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ServiceLookupElementIndex {
+
+    private static final Key<CachedValue<ServiceLookupElementIndex>> SERVICE_LOOKUP_INDEX = new Key<>("SYMFONY_SERVICE_LOOKUP_INDEX");
+
+    private static final String WORD_SEPARATORS = "._-\\";
+
+    /**
+     * Lower case ids in rank order: usage weight, lower priority names, name; same length as the original id
+     */
+    @NotNull
+    private final String[] ids;
+
+    @NotNull
+    private final ContainerService[] services;
+
+    private final int[] weights;
+
+    @NotNull
+    private final LookupElement[] elements;
+
+    /**
+     * Lower case id to rank
+     */
+    @NotNull
+    private final Map<String, Integer> ranks = new HashMap<>();
+
+    /**
+     * Sorted word start suffixes as rank of the id and offset inside of it
+     */
+    private final int[] suffixRanks;
+    private final int[] suffixOffsets;
+
+    public ServiceLookupElementIndex(@NotNull Collection<ContainerService> services, @NotNull ToIntFunction<String> usage) {
+        // aliases share the service instance; one element per id
+        Map<String, ContainerService> unique = new LinkedHashMap<>();
+        Map<String, Integer> weights = new HashMap<>();
+        for (ContainerService service : services) {
+            String id = toLowerCase(service.getName());
+            if(!unique.containsKey(id)) {
+                unique.put(id, service);
+                weights.put(id, usage.applyAsInt(service.getName()));
+            }
+        }
+
+        List<String> ids = new ArrayList<>(unique.keySet());
+        ids.sort((o1, o2) -> {
+            int compare = Integer.compare(weights.get(o2), weights.get(o1));
+            if(compare != 0) {
+                return compare;
+            }
+
+            compare = Boolean.compare(ServiceContainerUtil.isLowerPriority(o1), ServiceContainerUtil.isLowerPriority(o2));
+            if(compare != 0) {
+                return compare;
+            }
+
+            return o1.compareTo(o2);
+        });
+
+        this.ids = ids.toArray(new String[ids.size()]);
+        this.services = new ContainerService[this.ids.length];
+        this.weights = new int[this.ids.length];
+        this.elements = new LookupElement[this.ids.length];
+
+        List<int[]> suffixes = new ArrayList<>();
+        for (int rank = 0; rank < this.ids.length; rank++) {
+            String id = this.ids[rank];
+
+            this.services[rank] = unique.get(id);
+            this.weights[rank] = weights.get(id);
+            this.elements[rank] = createLookupElement(this.services[rank], this.weights[rank], false);
+            this.ranks.put(id, rank);
+
+            // humps are only visible on the original case
+            String name = this.services[rank].getName();
+            for (int offset = 0; offset < name.length(); offset++) {
+                if(isWordStart(name, offset)) {
+                    suffixes.add(new int[] {rank, offset});
+                }
+            }
+        }
+
+        suffixes.sort((o1, o2) -> compare(this.ids[o1[0]], o1[1], this.ids[o2[0]], o2[1]));
+
+        this.suffixRanks = new int[suffixes.size()];
+        this.suffixOffsets = new int[suffixes.size()];
+        for (int i = 0; i < suffixes.size(); i++) {
+            this.suffixRanks[i] = suffixes.get(i)[0];
+            this.suffixOffsets[i] = suffixes.get(i)[1];
+        }
+    }
+
+    /**
+     * Elements which can match the prefix, in rank order; the prefix matcher of the result set has the final decision.
+     * If nothing can match all elements are given
+     *
+     * @param topIds ids to highlight
+     */
+    @NotNull
+    public List<LookupElement> getLookupElements(@NotNull String prefix, @NotNull Collection<String> topIds) {
+        Map<Integer, LookupElement> highlighted = new HashMap<>();
+        for (String topId : topIds) {
+            Integer rank = this.ranks.get(toLowerCase(topId));
+            if(rank != null) {
+                highlighted.put(rank, createLookupElement(this.services[rank], this.weights[rank], true));
+            }
+        }
+
+        BitSet matches = findMatches(toLowerCase(prefix));
+        if(matches == null) {
+            matches = new BitSet(this.ids.length);
+            matches.set(0, this.ids.length);
+        }
+
+        List<LookupElement> lookupElements = new ArrayList<>(matches.cardinality());
+        for (int rank = matches.nextSetBit(0); rank >= 0; rank = matches.nextSetBit(rank + 1)) {
+            LookupElement element = highlighted.get(rank);
+            lookupElements.add(element != null ? element : this.elements[rank]);
+        }
+
+        return lookupElements;
+    }
+
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * Ids which have a word starting with the first char and all other chars of the prefix following in order;
+     * superset of what the camel hump matcher accepts, eg "umai" for "user_mailer" or "UserMailer"
+     *
+     * @return null if prefix is empty or no id is matching
+     */
+    private BitSet findMatches(@NotNull String prefix) {
+        if(prefix.isEmpty()) {
+            return null;
+        }
+
+        String first = prefix.substring(0, 1);
+
+        // first suffix which is not lower than the first char
+        int low = 0;
+        int high = this.suffixRanks.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if(compare(this.ids[this.suffixRanks[mid]], this.suffixOffsets[mid], first, 0) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        BitSet matches = new BitSet(this.ids.length);
+        for (int i = low; i < this.suffixRanks.length && this.ids[this.suffixRanks[i]].startsWith(first, this.suffixOffsets[i]); i++) {
+            int rank = this.suffixRanks[i];
+            if(!matches.get(rank) && isSubsequence(prefix, this.ids[rank], this.suffixOffsets[i])) {
+                matches.set(rank);
+            }
+        }
+
+        return matches.isEmpty() ? null : matches;
+    }
+
+    private static boolean isSubsequence(@NotNull String prefix, @NotNull String id, int offset) {
+        int pos = offset;
+        for (int i = 0; i < prefix.length(); i++) {
+            pos = id.indexOf(prefix.charAt(i), pos);
+            if(pos < 0) {
+                return false;
+            }
+
+            pos++;
+        }
+
+        return true;
+    }
+
+    /**
+     * After a separator or on a hump: "fooBar", "FOOBar", "foo2Bar"
+     */
+    private static boolean isWordStart(@NotNull String name, int offset) {
+        char c = name.charAt(offset);
+        if(offset == 0) {
+            return true;
+        }
+
+        if(WORD_SEPARATORS.indexOf(c) >= 0) {
+            return false;
+        }
+
+        char previous = name.charAt(offset - 1);
+        if(WORD_SEPARATORS.indexOf(previous) >= 0) {
+            return true;
+        }
+
+        if(!Character.isUpperCase(c)) {
+            return false;
+        }
+
+        return !Character.isUpperCase(previous) || (offset + 1 < name.length() && Character.isLowerCase(name.charAt(offset + 1)));
+    }
+
+    /**
+     * Char wise, so offsets of the original id stay valid
+     */
+    @NotNull
+    private static String toLowerCase(@NotNull String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+
+        return new String(chars);
+    }
+
+    private static int compare(@NotNull String a, int aOffset, @NotNull String b, int bOffset) {
+        int aLength = a.length() - aOffset;
+        int bLength = b.length() - bOffset;
+
+        for (int i = 0; i < Math.min(aLength, bLength); i++) {
+            int compare = Character.compare(a.charAt(aOffset + i), b.charAt(bOffset + i));
+            if(compare != 0) {
+                return compare;
+            }
+        }
+
+        return Integer.compare(aLength, bLength);
+    }
+
+    @NotNull
+    private static LookupElement createLookupElement(@NotNull ContainerService service, int weight, boolean boldText) {
+        return PrioritizedLookupElement.withPriority(new ServiceStringLookupElement(service, boldText), weight);
+    }
+
+    @NotNull
+    public static ServiceLookupElementIndex getInstance(@NotNull Project project) {
+        CachedValue<ServiceLookupElementIndex> cache = project.getUserData(SERVICE_LOOKUP_INDEX);
+
+        if(cache == null) {
+            cache = CachedValuesManager.getManager(project).createCachedValue(() -> CachedValueProvider.Result.create(
+                new ServiceLookupElementIndex(
+                    ContainerCollectionResolver.getServices(project).values(),
+                    ServiceContainerUtil.getServiceUsages(project)::get
+                ),
+                ContainerCollectionResolver.getServiceDependencies(project)
+            ), false);
+
+            project.putUserData(SERVICE_LOOKUP_INDEX, cache);
+        }
+
+        return cache.getValue();
+    }
+}
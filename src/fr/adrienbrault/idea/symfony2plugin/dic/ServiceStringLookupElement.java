@@ -11,21 +11,27 @@ import org.jetbrains.annotations.Nullable;
 import java.util.Objects;
 
 /**
+ * Immutable, so instances are shared between completion invocations
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class ServiceStringLookupElement extends LookupElement {
 
     @NotNull
-    private ContainerService containerService;
+    private final ContainerService containerService;
 
-    private boolean boldText = false;
+    @Nullable
+    private final String className;
+
+    private final boolean boldText;
 
     public ServiceStringLookupElement(@NotNull ContainerService containerService) {
-        this.containerService = containerService;
+        this(containerService, false);
     }
 
     public ServiceStringLookupElement(@NotNull ContainerService containerService, boolean boldText) {
-        this(containerService);
+        this.containerService = containerService;
+        this.className = getClassName(containerService);
         this.boldText = boldText;
     }
 
@@ -35,11 +41,15 @@ public class ServiceStringLookupElement extends LookupElement {
         return containerService.getName();
     }
 
+    @NotNull
+    public ContainerService getContainerService() {
+        return containerService;
+    }
+
     public void renderElement(LookupElementPresentation presentation) {
         presentation.setItemText(getLookupString());
         presentation.setTypeGrayed(true);
 
-        String className = getClassName(containerService);
         if(className != null) {
             presentation.setTypeText(StringUtils.strip(className, "\\"));
         }
@@ -67,7 +77,7 @@ public class ServiceStringLookupElement extends LookupElement {
     }
 
     @Nullable
-    private String getClassName(@NotNull ContainerService containerService) {
+    private static String getClassName(@NotNull ContainerService containerService) {
         return ContainerUtil.find(containerService.getClassNames(), Objects::nonNull);
     }
 }
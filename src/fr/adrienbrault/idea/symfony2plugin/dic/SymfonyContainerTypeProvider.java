@@ -83,11 +83,12 @@ public class SymfonyContainerTypeProvider implements PhpTypeProvider3 {
         // finally search the classes
         if(new Symfony2InterfacesUtil().isContainerGetCall((Method) phpNamedElement)) {
 
-            ContainerService containerService = ContainerCollectionResolver.getService(project, parameter);
-            if(containerService != null) {
+            // resolved and deduplicated class names are cached with the service model
+            Collection<String> classNames = ContainerCollectionResolver.getServiceClassNames(project, parameter);
+            if(classNames != null) {
                 Collection<PhpNamedElement> phpClasses = new HashSet<>();
-                for (String s : containerService.getClassNames()) {
-                    phpClasses.addAll(PhpIndex.getInstance(project).getAnyByFQN(s));
+                for (String className : classNames) {
+                    phpClasses.addAll(phpIndex.getAnyByFQN(className));
                 }
                 return phpClasses;
             }
@@ -2,10 +2,9 @@ package fr.adrienbrault.idea.symfony2plugin.dic;
 
 import fr.adrienbrault.idea.symfony2plugin.config.dic.EventDispatcherSubscribedEvent;
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import org.jetbrains.annotations.NotNull;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -19,27 +18,24 @@ public class XmlEventParser extends AbstractServiceParser {
     protected Map<String, String> list = new ConcurrentHashMap<>();
     protected List<EventDispatcherSubscribedEvent> events = new ArrayList<>();
 
+    /**
+     * "/container/services/service[@id]/tag[@event]"
+     */
     @Override
-    public String getXPathFilter() {
-        return "/container/services/service[@id]/tag[@event]";
-    }
-
-    public void parser(InputStream file) {
-        NodeList nodeList = this.parserer(file);
-
-        if(nodeList == null) {
+    public void startElement(@NotNull ServiceContainerElement element) {
+        if(!element.hasAttribute("event") || !element.isPath("container", "services", "service", "tag")) {
             return;
         }
 
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
-            this.list.put(node.getAttribute("event"), node.getAttribute("name"));
-            if(((Element) node.getParentNode()).hasAttribute("class")) {
-                this.events.add(new EventDispatcherSubscribedEvent(node.getAttribute("event"), ((Element) node.getParentNode()).getAttribute("class"), null).setType(node.getAttribute("name")));
-            }
-
+        ServiceContainerElement parentNode = element.getParent();
+        if(parentNode == null || !parentNode.hasAttribute("id")) {
+            return;
         }
 
+        this.list.put(element.getAttribute("event"), element.getAttribute("name"));
+        if(parentNode.hasAttribute("class")) {
+            this.events.add(new EventDispatcherSubscribedEvent(element.getAttribute("event"), parentNode.getAttribute("class"), null).setType(element.getAttribute("name")));
+        }
     }
 
     public Map<String, String> get() {
@@ -62,4 +58,4 @@ public class XmlEventParser extends AbstractServiceParser {
         return subscribedEvents;
     }
 
-}
\ No newline at end of file
+}
@@ -1,11 +1,11 @@
 package fr.adrienbrault.idea.symfony2plugin.dic;
 
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
-import org.xml.sax.SAXException;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
 
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.Map;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -15,17 +15,29 @@ public class XmlServiceParser extends AbstractServiceParser {
     protected ServiceMap serviceMap = new ServiceMap();
 
     @Override
-    public String getXPathFilter() {
-        return "";
-    }
+    public void startElement(@NotNull ServiceContainerElement element) {
+        if(!"service".equals(element.getName())) {
+            return;
+        }
+
+        Map<String, String> map = this.serviceMap.getMap();
+        Map<String, String> publicMap = this.serviceMap.getPublicMap();
+
+        String id = element.getAttribute("id");
+        String className = StringUtils.stripStart(element.getAttribute("class"), "\\");
+
+        if (element.hasAttribute("class") && element.hasAttribute("id")) {
+            map.put(id, className);
+        }
+
+        if (!"false".equals(element.getAttribute("public"))) {
+            publicMap.put(id, className);
+        }
 
-    public void parser(InputStream file) {
-        try {
-            // @TODO: make this one beautiful
-            ServiceMap serviceMap1 = new ServiceMapParser().parse(file);
-            this.serviceMap.getMap().putAll(serviceMap1.getMap());
-            this.serviceMap.getPublicMap().putAll(serviceMap1.getPublicMap());
-        } catch (SAXException | IOException | ParserConfigurationException ignored) {
+        String alias = element.getAttribute("alias");
+        if (element.hasAttribute("alias") && publicMap.get(alias) != null) {
+            map.put(id, map.get(alias));
+            publicMap.put(id, map.get(alias));
         }
     }
 
@@ -33,4 +45,4 @@ public class XmlServiceParser extends AbstractServiceParser {
         return serviceMap;
     }
 
-}
\ No newline at end of file
+}
@@ -1,11 +1,10 @@
 package fr.adrienbrault.idea.symfony2plugin.dic;
 
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Map;
@@ -20,31 +19,27 @@ public class XmlTagParser extends AbstractServiceParser {
     protected Set<String> list = new HashSet<>();
     protected Map<String, ArrayList<String>> taggedClasses = new ConcurrentHashMap<>();
 
+    /**
+     * "/container/services/service[@id]/tag[@name]"
+     */
     @Override
-    public String getXPathFilter() {
-        return "/container/services/service[@id]/tag[@name]";
-    }
-
-    public void parser(InputStream file) {
-        NodeList nodeList = this.parserer(file);
-
-        if(nodeList == null) {
+    public void startElement(@NotNull ServiceContainerElement element) {
+        if(!element.hasAttribute("name") || !element.isPath("container", "services", "service", "tag")) {
             return;
         }
 
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
-            String tagName = node.getAttribute("name");
-            this.list.add(tagName);
-            Element parentNode = (Element) node.getParentNode();
-            if(parentNode.hasAttribute("class")) {
-                this.addTaggedClass(tagName, parentNode.getAttribute("class"));
-            }
+        ServiceContainerElement parentNode = element.getParent();
+        if(parentNode == null || !parentNode.hasAttribute("id")) {
+            return;
         }
 
+        String tagName = element.getAttribute("name");
+        this.list.add(tagName);
+        if(parentNode.hasAttribute("class")) {
+            this.addTaggedClass(tagName, parentNode.getAttribute("class"));
+        }
     }
 
-
     public Map<String, ArrayList<String>> getTaggedClasses() {
         return taggedClasses;
     }
@@ -70,4 +65,4 @@ public class XmlTagParser extends AbstractServiceParser {
         return list;
     }
 
-}
\ No newline at end of file
+}
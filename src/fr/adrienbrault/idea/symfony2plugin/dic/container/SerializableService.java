@@ -169,6 +169,34 @@ public class SerializableService implements ServiceSerializable {
         return this;
     }
 
+    /**
+     * Raw tristate values; "null" means "not defined" and is not the same as the default value
+     */
+    @Nullable
+    public Boolean getIsPublic() {
+        return isPublic;
+    }
+
+    @Nullable
+    public Boolean getIsLazy() {
+        return isLazy;
+    }
+
+    @Nullable
+    public Boolean getIsAbstract() {
+        return isAbstract;
+    }
+
+    @Nullable
+    public Boolean getIsAutowire() {
+        return isAutowire;
+    }
+
+    @Nullable
+    public Boolean getIsDeprecated() {
+        return isDeprecated;
+    }
+
     @Override
     public int hashCode() {
         return new HashCodeBuilder()
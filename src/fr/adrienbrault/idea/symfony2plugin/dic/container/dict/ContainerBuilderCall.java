@@ -71,7 +71,7 @@ public class ContainerBuilderCall implements Serializable {
     public boolean equals(Object obj) {
         return obj instanceof ContainerBuilderCall &&
             Objects.equals(((ContainerBuilderCall) obj).scope, this.scope) &&
-            Objects.equals(((ContainerBuilderCall) obj).name, this.scope) &&
+            Objects.equals(((ContainerBuilderCall) obj).name, this.name) &&
             Objects.equals(new java.util.HashSet<>(((ContainerBuilderCall) obj).parameter), new java.util.HashSet<>(this.parameter))
         ;
     }
@@ -12,7 +12,7 @@ import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.CachedValue;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
-import com.intellij.psi.util.PsiModificationTracker;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -67,7 +67,7 @@ public class DotEnvUtil {
                     items.add(pair.getFirst())
                 );
 
-                return CachedValueProvider.Result.create(items, PsiModificationTracker.MODIFICATION_COUNT);
+                return CachedValueProvider.Result.create(items, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES));
                 }, false
             );
             project.putUserData(DOT_ENV_VARIABLE_CACHE, cache);
@@ -1,10 +1,14 @@
 package fr.adrienbrault.idea.symfony2plugin.dic.container.util;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
 import com.intellij.patterns.PlatformPatterns;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.psi.xml.*;
 import com.intellij.util.Consumer;
@@ -22,27 +26,28 @@ import fr.adrienbrault.idea.symfony2plugin.dic.container.ServiceSerializable;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.dict.ServiceTypeHint;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.visitor.ServiceConsumer;
 import fr.adrienbrault.idea.symfony2plugin.stubs.ContainerCollectionResolver;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ContainerIdUsagesStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import fr.adrienbrault.idea.symfony2plugin.util.dict.ServiceUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.psi.PsiElementAssertUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
+import gnu.trove.TObjectIntHashMap;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.yaml.psi.*;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class ServiceContainerUtil {
 
+    private static final Key<CachedValue<TObjectIntHashMap<String>>> SERVICE_USAGES = new Key<>("SYMFONY_SERVICE_USAGES");
+
     private static String[] LOWER_PRIORITY = new String[] {
         "debug", "default", "abstract", "inner", "chain", "decorate", "delegat"
     };
@@ -404,14 +409,57 @@ public class ServiceContainerUtil {
      * Calculate usage as of given service id in project scope
      */
     public static int getServiceUsage(@NotNull Project project, @NotNull String id) {
-        int usage = 0;
+        return getServiceUsages(project).get(id);
+    }
+
+    /**
+     * Usage of every used service id in project scope; unknown ids are "0". Shared instance, never modify it
+     */
+    @NotNull
+    public static TObjectIntHashMap<String> getServiceUsages(@NotNull Project project) {
+        CachedValue<TObjectIntHashMap<String>> cache = project.getUserData(SERVICE_USAGES);
+
+        if(cache == null) {
+            cache = CachedValuesManager.getManager(project).createCachedValue(() -> CachedValueProvider.Result.create(
+                createServiceUsages(project),
+                SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES)
+            ), false);
+
+            project.putUserData(SERVICE_USAGES, cache);
+        }
 
-        List<Integer> values = FileBasedIndex.getInstance().getValues(ContainerIdUsagesStubIndex.KEY, id, GlobalSearchScope.allScope(project));
-        for (Integer integer : values) {
-            usage += integer;
+        return cache.getValue();
+    }
+
+    /**
+     * One pass over the index keys; so only used ids are queried and every id only once
+     */
+    @NotNull
+    private static TObjectIntHashMap<String> createServiceUsages(@NotNull Project project) {
+        GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+        FileBasedIndex index = FileBasedIndex.getInstance();
+
+        // index must not be queried inside of key processing
+        Set<String> ids = new HashSet<>();
+        index.processAllKeys(ContainerIdUsagesStubIndex.KEY, id -> {
+            ids.add(id);
+            return true;
+        }, scope, null);
+
+        TObjectIntHashMap<String> usages = new TObjectIntHashMap<>();
+        for (String id : ids) {
+            int usage = 0;
+            for (Integer integer : index.getValues(ContainerIdUsagesStubIndex.KEY, id, scope)) {
+                usage += integer;
+            }
+
+            // keys of removed files are still visited
+            if(usage > 0) {
+                usages.put(id, usage);
+            }
         }
 
-        return usage;
+        return usages;
     }
 
     private static int getArgumentIndex(@NotNull XmlTag xmlTag) {
@@ -461,10 +509,8 @@ public class ServiceContainerUtil {
 
         myIds.sort(new ServiceContainerUtil.ContainerServiceIdPriorityNameComparator());
 
-        myIds.sort((o1, o2) ->
-            ((Integer) ServiceContainerUtil.getServiceUsage(project, o2))
-                .compareTo(ServiceContainerUtil.getServiceUsage(project, o1))
-        );
+        TObjectIntHashMap<String> usages = getServiceUsages(project);
+        myIds.sort((o1, o2) -> Integer.compare(usages.get(o2), usages.get(o1)));
 
         return myIds;
     }
@@ -1,23 +1,21 @@
 package fr.adrienbrault.idea.symfony2plugin.dic.webDeployment;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
 import fr.adrienbrault.idea.symfony2plugin.Settings;
 import fr.adrienbrault.idea.symfony2plugin.dic.webDeployment.dict.ServiceParameterStorage;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerSnapshot;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileStorageInterface;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.utils.RemoteWebServerUtil;
 import org.apache.commons.vfs2.FileObject;
-import org.apache.commons.vfs2.FileSystemException;
-import org.apache.sanselan.util.IOUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.*;
 
 /**
+ * Remote container files are parsed once into a snapshot; unchanged content keeps its snapshot
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class ServiceContainerRemoteFileStorage implements RemoteFileStorageInterface<ServiceParameterStorage> {
@@ -26,6 +24,12 @@ public class ServiceContainerRemoteFileStorage implements RemoteFileStorageInter
         Collections.emptyList()
     );
 
+    /**
+     * Remote uri with content checksum and its parsed container
+     */
+    @NotNull
+    private Map<String, Pair<Long, ServiceContainerSnapshot>> containers = new HashMap<>();
+
     @NotNull
     @Override
     public Collection<String> files(@NotNull Project project) {
@@ -34,26 +38,38 @@ public class ServiceContainerRemoteFileStorage implements RemoteFileStorageInter
 
     @Override
     public void build(@NotNull Project project, @NotNull Collection<FileObject> fileObjects) {
-
-        Collection<InputStream> memoryCache = new ArrayList<>();
+        Map<String, Pair<Long, ServiceContainerSnapshot>> containers = new LinkedHashMap<>();
 
         for (FileObject fileObject : fileObjects) {
-            InputStream inputStream;
-            try {
-                // copy stream
-                inputStream = new ResetOnCloseInputStream(new ByteArrayInputStream(
-                    IOUtils.getInputStreamBytes(fileObject.getContent().getInputStream()))
-                );
-            } catch (FileSystemException ignored) {
-                continue;
-            } catch (IOException ignored) {
+            byte[] content = RemoteWebServerUtil.getContent(fileObject);
+            if(content == null) {
                 continue;
             }
 
-            memoryCache.add(inputStream);
+            String uri = fileObject.getName().getURI();
+            long checksum = RemoteWebServerUtil.getChecksum(content);
+
+            Pair<Long, ServiceContainerSnapshot> container = this.containers.get(uri);
+            if(container == null || container.getFirst() != checksum) {
+                container = Pair.create(checksum, ServiceContainerSnapshot.create(new ByteArrayInputStream(content)));
+            }
+
+            containers.put(uri, container);
+        }
+
+        // same content; keep build time so the container is not parsed again
+        if(containers.equals(this.containers)) {
+            return;
+        }
+
+        this.containers = containers;
+
+        Collection<ServiceContainerSnapshot> snapshots = new ArrayList<>();
+        for (Pair<Long, ServiceContainerSnapshot> container : containers.values()) {
+            snapshots.add(container.getSecond());
         }
 
-        storage = new ServiceParameterStorage(memoryCache);
+        storage = new ServiceParameterStorage(snapshots);
     }
 
     @NotNull
@@ -64,33 +80,9 @@ public class ServiceContainerRemoteFileStorage implements RemoteFileStorageInter
 
     @Override
     public void clear() {
+        containers = new HashMap<>();
         storage = new ServiceParameterStorage(
             Collections.emptyList()
         );
     }
-
-    private static class ResetOnCloseInputStream extends InputStream {
-
-        private final InputStream decorated;
-
-        public ResetOnCloseInputStream(InputStream inputStream) {
-            if (!inputStream.markSupported()) {
-                throw new IllegalArgumentException("marking not supported");
-            }
-            inputStream.mark( 1 << 32);
-            decorated = inputStream;
-        }
-
-        @Override
-        public void close() throws IOException {
-            decorated.reset();
-        }
-
-        @Override
-        public int read() throws IOException {
-            return decorated.read();
-        }
-    }
 }
-
-
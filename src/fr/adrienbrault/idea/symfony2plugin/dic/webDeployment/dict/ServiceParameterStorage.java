@@ -1,28 +1,30 @@
 package fr.adrienbrault.idea.symfony2plugin.dic.webDeployment.dict;
 
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerSnapshot;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.InputStream;
 import java.util.Collection;
 
 /**
+ * Parsed remote container files
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class ServiceParameterStorage {
 
     @NotNull
-    private final Collection<InputStream> inputStreams;
+    private final Collection<ServiceContainerSnapshot> containers;
 
     private final long buildTime;
 
-    public ServiceParameterStorage(@NotNull Collection<InputStream> inputStreams) {
-        this.inputStreams = inputStreams;
+    public ServiceParameterStorage(@NotNull Collection<ServiceContainerSnapshot> containers) {
+        this.containers = containers;
         this.buildTime = System.currentTimeMillis();
     }
 
     @NotNull
-    public Collection<InputStream> getInputStreams() {
-        return inputStreams;
+    public Collection<ServiceContainerSnapshot> getContainers() {
+        return containers;
     }
 
     public long getBuildTime() {
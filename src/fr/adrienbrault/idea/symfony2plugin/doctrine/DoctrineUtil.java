@@ -14,6 +14,8 @@ import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocTag;
 import com.jetbrains.php.lang.psi.PhpFile;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import com.jetbrains.php.lang.psi.elements.PhpPsiElement;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModel;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.dict.DoctrineManagerEnum;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.visitor.AnnotationElementWalkingVisitor;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
@@ -28,6 +30,7 @@ import java.util.Collection;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -41,6 +44,8 @@ public class DoctrineUtil {
         "\\Doctrine\\ODM\\CouchDB\\Mapping\\Annotations\\Document",
     };
 
+    private static final Pattern TABLE_ANNOTATION_NAME = Pattern.compile("name[\\s]*=[\\s]*[\"']([\\w\\\\]+)[\"']");
+
     /**
      * Index metadata file with its class and repository.
      * As of often class stay in static only context
@@ -233,4 +238,68 @@ public class DoctrineUtil {
         return pairs;
     }
 
+    /**
+     * Index metadata file with its table names; tables are part of the ORM mapping only,
+     * odm documents are using "collection"
+     *
+     * Note: index context method, so nothing is resolved
+     */
+    @NotNull
+    public static Collection<DoctrineModel> getClassTables(@NotNull PsiFile psiFile) {
+        Collection<DoctrineModel> models = new ArrayList<>();
+
+        if(psiFile instanceof XmlFile) {
+            // <entity name="Foo\Bar" table="cms_users"/>
+            XmlTag rootTag = ((XmlFile) psiFile).getRootTag();
+            if(rootTag != null && rootTag.getName().toLowerCase().startsWith("doctrine")) {
+                for (XmlTag xmlTag : rootTag.findSubTags("entity")) {
+                    String className = xmlTag.getAttributeValue("name");
+                    String table = xmlTag.getAttributeValue("table");
+                    if(StringUtils.isNotBlank(className) && StringUtils.isNotBlank(table)) {
+                        models.add(new DoctrineModel(className).setTable(table).setManager(DoctrineManagerEnum.ORM));
+                    }
+                }
+            }
+        } else if(psiFile instanceof YAMLFile) {
+            // Foo\Bar:
+            //   table: cms_users
+            // all yaml files are indexed, so only keys of valid metadata files
+            Collection<Pair<String, String>> classRepositoryPair = getClassRepositoryPair((YAMLFile) psiFile);
+            if(classRepositoryPair == null) {
+                return models;
+            }
+
+            Set<String> classNames = classRepositoryPair.stream().map(Pair::getFirst).collect(Collectors.toSet());
+
+            for (YAMLKeyValue yamlKeyValue : YamlHelper.getTopLevelKeyValues((YAMLFile) psiFile)) {
+                String className = yamlKeyValue.getKeyText();
+                String table = YamlHelper.getYamlKeyValueAsString(yamlKeyValue, "table");
+                if(classNames.contains(className) && StringUtils.isNotBlank(table)) {
+                    models.add(new DoctrineModel(className).setTable(table).setManager(DoctrineManagerEnum.ORM));
+                }
+            }
+        } else if(psiFile instanceof PhpFile) {
+            // @ORM\Table(name="cms_users")
+            psiFile.acceptChildren(new AnnotationElementWalkingVisitor(phpDocTag -> {
+                PhpDocComment phpDocComment = PsiTreeUtil.getParentOfType(phpDocTag, PhpDocComment.class);
+                if (phpDocComment == null) {
+                    return false;
+                }
+
+                PhpPsiElement phpClass = phpDocComment.getNextPsiSibling();
+                if (!(phpClass instanceof PhpClass)) {
+                    return false;
+                }
+
+                Matcher matcher = TABLE_ANNOTATION_NAME.matcher(phpDocTag.getText());
+                if (matcher.find()) {
+                    models.add(new DoctrineModel(((PhpClass) phpClass).getPresentableFQN()).setTable(matcher.group(1)).setManager(DoctrineManagerEnum.ORM));
+                }
+
+                return false;
+            }, "\\Doctrine\\ORM\\Mapping\\Table"));
+        }
+
+        return models;
+    }
 }
@@ -1,41 +1,52 @@
 package fr.adrienbrault.idea.symfony2plugin.doctrine.component;
 
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.InputStream;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * "/container/services/service[@id[starts-with(.,'doctrine.orm.')]]//call[@method='setEntityNamespaces']//argument[@key]"
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class EntityNamesServiceParser extends AbstractServiceParser {
 
     protected Map<String, String> entityNameMap = new ConcurrentHashMap<>();
 
-    @Override
-    public String getXPathFilter() {
-        return "/container/services/service[@id[starts-with(.,'doctrine.orm.')]]//call[@method='setEntityNamespaces']//argument[@key]";
-    }
+    @Nullable
+    private ServiceContainerElement serviceScope;
 
-    public void parser(InputStream file) {
-        NodeList nodeList = this.parserer(file);
+    @Nullable
+    private ServiceContainerElement callScope;
 
-        if(nodeList == null) {
-            return;
+    @Override
+    public void startElement(@NotNull ServiceContainerElement element) {
+        if(serviceScope == null) {
+            if(element.getAttribute("id").startsWith("doctrine.orm.") && element.isPath("container", "services", "service")) {
+                serviceScope = element;
+            }
+        } else if(callScope == null && "call".equals(element.getName()) && "setEntityNamespaces".equals(element.getAttribute("method"))) {
+            callScope = element;
         }
+    }
 
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
-            this.entityNameMap.put(node.getAttribute("key"), "\\" + node.getTextContent());
+    @Override
+    public void endElement(@NotNull ServiceContainerElement element) {
+        if(element == serviceScope) {
+            serviceScope = null;
+        } else if(element == callScope) {
+            callScope = null;
+        } else if(callScope != null && "argument".equals(element.getName()) && element.hasAttribute("key")) {
+            this.entityNameMap.put(element.getAttribute("key"), "\\" + element.getText());
         }
-
     }
 
     public Map<String, String> getEntityNameMap() {
         return entityNameMap;
     }
 
-}
\ No newline at end of file
+}
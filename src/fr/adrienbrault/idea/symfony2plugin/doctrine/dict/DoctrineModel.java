@@ -1,6 +1,7 @@
 package fr.adrienbrault.idea.symfony2plugin.doctrine.dict;
 
 import com.google.gson.annotations.SerializedName;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.dict.DoctrineManagerEnum;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -19,6 +20,12 @@ public class DoctrineModel implements DoctrineModelSerializable {
     @SerializedName("repository_class")
     private String repositoryClass;
 
+    @Nullable
+    private String table;
+
+    @Nullable
+    private DoctrineManagerEnum manager;
+
     public DoctrineModel(@NotNull String clazz) {
         this.clazz = clazz;
     }
@@ -38,11 +45,33 @@ public class DoctrineModel implements DoctrineModelSerializable {
         return this;
     }
 
+    @Nullable
+    public String getTable() {
+        return table;
+    }
+
+    public DoctrineModel setTable(@Nullable String table) {
+        this.table = table;
+        return this;
+    }
+
+    @Nullable
+    public DoctrineManagerEnum getManager() {
+        return manager;
+    }
+
+    public DoctrineModel setManager(@Nullable DoctrineManagerEnum manager) {
+        this.manager = manager;
+        return this;
+    }
+
     @Override
     public int hashCode() {
         return new HashCodeBuilder()
             .append(this.clazz)
             .append(this.repositoryClass)
+            .append(this.table)
+            .append(this.manager)
             .toHashCode()
         ;
     }
@@ -51,7 +80,9 @@ public class DoctrineModel implements DoctrineModelSerializable {
     public boolean equals(Object obj) {
         return obj instanceof DoctrineModel &&
             Objects.equals(((DoctrineModel) obj).clazz, this.clazz) &&
-            Objects.equals(((DoctrineModel) obj).repositoryClass, this.repositoryClass)
+            Objects.equals(((DoctrineModel) obj).repositoryClass, this.repositoryClass) &&
+            Objects.equals(((DoctrineModel) obj).table, this.table) &&
+            ((DoctrineModel) obj).manager == this.manager
         ;
     }
 }
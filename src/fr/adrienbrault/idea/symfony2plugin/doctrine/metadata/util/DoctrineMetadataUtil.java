@@ -16,12 +16,15 @@ import com.intellij.util.indexing.FileBasedIndex;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelInterface;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelSerializable;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.dict.DoctrineManagerEnum;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.dict.DoctrineMetadataModel;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.driver.*;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.lookup.DoctrineRepositoryLookupElement;
 import fr.adrienbrault.idea.symfony2plugin.stubs.cache.FileIndexCaches;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.DoctrineMetadataFileStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.DoctrineMetadataTableStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -38,6 +41,7 @@ import java.util.regex.Pattern;
 public class DoctrineMetadataUtil {
 
     private static final Key<CachedValue<Set<String>>> CLASS_KEYS = new Key<>("CLASS_KEYS");
+    private static final Key<CachedValue<Set<String>>> TABLE_KEYS = new Key<>("DOCTRINE_TABLE_KEYS");
 
     private static DoctrineMappingDriverInterface[] MAPPING_DRIVERS = new DoctrineMappingDriverInterface[] {
         new DoctrineXmlMappingDriver(),
@@ -112,7 +116,7 @@ public class DoctrineMetadataUtil {
         if(cache == null) {
             cache = CachedValuesManager.getManager(project).createCachedValue(() -> {
                 Map<String, Collection<String>> repositoryMap = new HashMap<>();
-                for (String key : FileIndexCaches.getIndexKeysCache(project, CLASS_KEYS, DoctrineMetadataFileStubIndex.KEY)) {
+                for (String key : FileIndexCaches.getIndexKeysCache(project, CLASS_KEYS, DoctrineMetadataFileStubIndex.KEY, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.DOCTRINE))) {
                     for (DoctrineModelInterface repositoryDefinition : FileBasedIndex.getInstance().getValues(DoctrineMetadataFileStubIndex.KEY, key, GlobalSearchScope.allScope(project))) {
                         if(StringUtils.isBlank(repositoryDefinition.getRepositoryClass())) {
                             continue;
@@ -130,7 +134,7 @@ public class DoctrineMetadataUtil {
                     }
                 }
 
-                return CachedValueProvider.Result.create(repositoryMap, PsiModificationTracker.MODIFICATION_COUNT);
+                return CachedValueProvider.Result.create(repositoryMap, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.DOCTRINE));
             }, false);
 
             project.putUserData(DOCTRINE_REPOSITORY_CACHE, cache);
@@ -162,7 +166,7 @@ public class DoctrineMetadataUtil {
 
         Collection<DoctrineModelInterface> models = new ArrayList<>();
 
-        for (String key : FileIndexCaches.getIndexKeysCache(project, CLASS_KEYS, DoctrineMetadataFileStubIndex.KEY)) {
+        for (String key : FileIndexCaches.getIndexKeysCache(project, CLASS_KEYS, DoctrineMetadataFileStubIndex.KEY, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.DOCTRINE))) {
             for (DoctrineModelInterface repositoryDefinition : FileBasedIndex.getInstance().getValues(DoctrineMetadataFileStubIndex.KEY, key, GlobalSearchScope.allScope(project))) {
                 String myRepositoryClass = repositoryDefinition.getRepositoryClass();
                 if(StringUtils.isBlank(myRepositoryClass) ||
@@ -177,62 +181,69 @@ public class DoctrineMetadataUtil {
         return models;
     }
 
+    /**
+     * All tables with their metadata file; use getTableTargets for the model classes of a single table
+     */
     @NotNull
     public static Collection<Pair<String, PsiElement>> getTables(@NotNull Project project) {
 
         Collection<Pair<String, PsiElement>> pair = new ArrayList<>();
 
-        for (String key : FileIndexCaches.getIndexKeysCache(project, CLASS_KEYS, DoctrineMetadataFileStubIndex.KEY)) {
-            for (VirtualFile virtualFile : FileBasedIndex.getInstance().getContainingFiles(DoctrineMetadataFileStubIndex.KEY, key, GlobalSearchScope.allScope(project))) {
+        for (String table : FileIndexCaches.getIndexKeysCache(project, TABLE_KEYS, DoctrineMetadataTableStubIndex.KEY, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.DOCTRINE))) {
+            for (VirtualFile virtualFile : FileBasedIndex.getInstance().getContainingFiles(DoctrineMetadataTableStubIndex.KEY, table, GlobalSearchScope.allScope(project))) {
                 PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
                 if(psiFile == null) {
                     continue;
                 }
 
-                DoctrineMappingDriverArguments arguments = new DoctrineMappingDriverArguments(project, psiFile, key);
+                pair.add(new Pair<>(table, psiFile));
+            }
+        }
 
-                for (DoctrineMappingDriverInterface mappingDriver : MAPPING_DRIVERS) {
-                    DoctrineMetadataModel metadata = mappingDriver.getMetadata(arguments);
-                    if(metadata == null) {
-                        continue;
-                    }
+        return pair;
+    }
 
-                    String table = metadata.getTable();
-                    if(table == null) {
-                        continue;
-                    }
+    /**
+     * Model classes mapped on the table; metadata file if a class is unknown
+     */
+    @NotNull
+    public static Collection<PsiElement> getTableTargets(@NotNull Project project, @NotNull String tableName) {
 
-                    // @TODO: add target
-                    pair.add(new Pair<>(table, psiFile));
-                }
+        Collection<PsiElement> targets = new ArrayList<>();
+        for (Pair<VirtualFile, String> model : getTableModels(project, tableName)) {
+            PhpClass phpClass = PhpElementsUtil.getClassInterface(project, model.getSecond());
+            if(phpClass != null) {
+                targets.add(phpClass);
+                continue;
+            }
+
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(model.getFirst());
+            if(psiFile != null) {
+                targets.add(psiFile);
             }
         }
 
-        return pair;
+        return targets;
     }
 
+    /**
+     * Table is an index key; only the metadata files of its model are parsed
+     */
     @Nullable
     public static DoctrineMetadataModel getMetadataByTable(@NotNull Project project, @NotNull String tableName) {
 
-        for (String key : FileIndexCaches.getIndexKeysCache(project, CLASS_KEYS, DoctrineMetadataFileStubIndex.KEY)) {
-            for (VirtualFile virtualFile : FileBasedIndex.getInstance().getContainingFiles(DoctrineMetadataFileStubIndex.KEY, key, GlobalSearchScope.allScope(project))) {
-                PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
-                if(psiFile == null) {
-                    continue;
-                }
-
-                DoctrineMappingDriverArguments arguments = new DoctrineMappingDriverArguments(project, psiFile, key);
+        for (Pair<VirtualFile, String> model : getTableModels(project, tableName)) {
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(model.getFirst());
+            if(psiFile == null) {
+                continue;
+            }
 
-                for (DoctrineMappingDriverInterface mappingDriver : MAPPING_DRIVERS) {
-                    DoctrineMetadataModel metadata = mappingDriver.getMetadata(arguments);
-                    if(metadata == null) {
-                        continue;
-                    }
+            DoctrineMappingDriverArguments arguments = new DoctrineMappingDriverArguments(project, psiFile, model.getSecond());
 
-                    String table = metadata.getTable();
-                    if(table != null && tableName.equals(table)) {
-                        return metadata;
-                    }
+            for (DoctrineMappingDriverInterface mappingDriver : MAPPING_DRIVERS) {
+                DoctrineMetadataModel metadata = mappingDriver.getMetadata(arguments);
+                if(metadata != null && tableName.equals(metadata.getTable())) {
+                    return metadata;
                 }
             }
         }
@@ -240,6 +251,25 @@ public class DoctrineMetadataUtil {
         return null;
     }
 
+    /**
+     * Metadata file and class name of every model mapped on the table
+     */
+    @NotNull
+    private static Collection<Pair<VirtualFile, String>> getTableModels(@NotNull Project project, @NotNull String tableName) {
+
+        Collection<Pair<VirtualFile, String>> models = new ArrayList<>();
+
+        FileBasedIndex.getInstance().processValues(DoctrineMetadataTableStubIndex.KEY, tableName, null, (virtualFile, fileModels) -> {
+            for (DoctrineModelSerializable model : fileModels) {
+                models.add(Pair.create(virtualFile, model.getClassName()));
+            }
+
+            return true;
+        }, GlobalSearchScope.allScope(project));
+
+        return models;
+    }
+
     @Nullable
     public static DoctrineMetadataModel getModelFields(@NotNull Project project, @NotNull String className) {
 
@@ -265,7 +295,7 @@ public class DoctrineMetadataUtil {
     public static Collection<PhpClass> getModels(@NotNull Project project) {
 
         Collection<PhpClass> phpClasses = new ArrayList<>();
-        for (String key : FileIndexCaches.getIndexKeysCache(project, CLASS_KEYS, DoctrineMetadataFileStubIndex.KEY)) {
+        for (String key : FileIndexCaches.getIndexKeysCache(project, CLASS_KEYS, DoctrineMetadataFileStubIndex.KEY, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.DOCTRINE))) {
             PhpClass classInterface = PhpElementsUtil.getClassInterface(project, key);
             if(classInterface != null) {
                 phpClasses.add(classInterface);
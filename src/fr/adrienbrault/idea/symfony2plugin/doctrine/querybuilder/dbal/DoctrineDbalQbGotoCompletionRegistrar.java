@@ -223,22 +223,7 @@ public class DoctrineDbalQbGotoCompletionRegistrar implements GotoCompletionRegi
                 return Collections.emptyList();
             }
 
-            Collection<PsiElement> psiElements = new ArrayList<>();
-
-            for (Pair<String, PsiElement> pair : DoctrineMetadataUtil.getTables(getProject())) {
-                if(!contents.equals(pair.getFirst())) {
-                    continue;
-                }
-
-                PsiElement second = pair.getSecond();
-                if(second == null) {
-                    continue;
-                }
-
-                psiElements.add(second);
-            }
-
-            return psiElements;
+            return DoctrineMetadataUtil.getTableTargets(getProject(), contents);
         }
     }
 
@@ -1,6 +1,7 @@
 package fr.adrienbrault.idea.symfony2plugin.extension;
 
 import com.intellij.openapi.project.Project;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerSnapshot;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.InputStream;
@@ -15,6 +16,9 @@ public class CompiledServiceBuilderArguments {
     @NotNull
     final private Collection<InputStream> streams = new ArrayList<>();
 
+    @NotNull
+    final private Collection<ServiceContainerSnapshot> containers = new ArrayList<>();
+
     @NotNull
     private final Project project;
 
@@ -39,4 +43,16 @@ public class CompiledServiceBuilderArguments {
     public void addStreams(@NotNull Collection<InputStream>  inputStream) {
         streams.addAll(inputStream);
     }
+
+    /**
+     * Already parsed container; preferred over streams, which are parsed on every pass
+     */
+    @NotNull
+    public Collection<ServiceContainerSnapshot> getContainers() {
+        return containers;
+    }
+
+    public void addContainers(@NotNull Collection<ServiceContainerSnapshot> containers) {
+        this.containers.addAll(containers);
+    }
 }
@@ -1,6 +1,9 @@
 package fr.adrienbrault.idea.symfony2plugin.extension;
 
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -16,4 +19,13 @@ public interface ServiceCollector {
      * Warning expect high traffic, collector needs to be highly optimized
      */
     void collectIds(@NotNull ServiceCollectorParameter.Id parameter);
+
+    /**
+     * Collected services and ids only change if the tracker advances, so they are not collected on every check.
+     * Without a tracker the output is polled in an interval
+     */
+    @Nullable
+    default ModificationTracker getModificationTracker(@NotNull Project project) {
+        return null;
+    }
 }
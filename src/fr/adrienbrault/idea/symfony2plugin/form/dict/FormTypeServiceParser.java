@@ -1,39 +1,70 @@
 package fr.adrienbrault.idea.symfony2plugin.form.dict;
 
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-
-import java.io.InputStream;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
+ * "/container/services/service[@id='form.registry']//service[@class]/argument[@type='collection'][1]/argument[@key]"
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class FormTypeServiceParser extends AbstractServiceParser {
 
     protected FormTypeMap formTypeMap = new FormTypeMap();
 
+    @Nullable
+    private ServiceContainerElement registryScope;
+
+    @Nullable
+    private ServiceContainerElement lastCollectionService;
+
+    @Nullable
+    private ServiceContainerElement collectionScope;
+
     @Override
-    public String getXPathFilter() {
-        return "/container/services/service[@id='form.registry']//service[@class]/argument[@type='collection'][1]/argument[@key]";
-    }
+    public void startElement(@NotNull ServiceContainerElement element) {
+        if(registryScope == null) {
+            if("form.registry".equals(element.getAttribute("id")) && element.isPath("container", "services", "service")) {
+                registryScope = element;
+            }
+
+            return;
+        }
 
-    public void parser(InputStream file) {
-        NodeList nodeList = this.parserer(file);
+        if(collectionScope != null || !"argument".equals(element.getName()) || !"collection".equals(element.getAttribute("type"))) {
+            return;
+        }
+
+        // only the first collection argument of an inline service
+        ServiceContainerElement service = element.getParent();
+        if(service != null && service != registryScope && "service".equals(service.getName()) && service.hasAttribute("class") && service != lastCollectionService) {
+            lastCollectionService = service;
+            collectionScope = element;
+        }
+    }
 
-        if(nodeList == null) {
+    @Override
+    public void endElement(@NotNull ServiceContainerElement element) {
+        if(element == registryScope) {
+            registryScope = null;
+            lastCollectionService = null;
             return;
         }
 
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
-            this.formTypeMap.getMap().put(node.getTextContent(), node.getAttribute("key"));
+        if(element == collectionScope) {
+            collectionScope = null;
+            return;
         }
 
+        if(collectionScope != null && element.getParent() == collectionScope && "argument".equals(element.getName()) && element.hasAttribute("key")) {
+            this.formTypeMap.getMap().put(element.getText(), element.getAttribute("key"));
+        }
     }
 
     public FormTypeMap getFormTypeMap() {
         return formTypeMap;
     }
 
-}
\ No newline at end of file
+}
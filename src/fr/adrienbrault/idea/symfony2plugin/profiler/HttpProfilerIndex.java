@@ -10,6 +10,7 @@ import org.jetbrains.annotations.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -34,13 +35,19 @@ public class HttpProfilerIndex implements ProfilerIndexInterface {
     @NotNull
     @Override
     public List<ProfilerRequestInterface> getRequests() {
+        return getRequests(request -> {});
+    }
+
+    @NotNull
+    @Override
+    public List<ProfilerRequestInterface> getRequests(@NotNull Consumer<ProfilerRequestInterface> consumer) {
         String content = ProfilerUtil.getProfilerUrlContent(String.format("%s/%s/empty/search/results?ip=&limit=10", this.url, PROFILER_PATH));
         if(content == null) {
             return Collections.emptyList();
         }
 
         return new ArrayList<>(ProfilerUtil.collectHttpDataForRequest(
-            project, ProfilerUtil.createRequestsFromIndexHtml(this.project, content, this.url))
+            project, ProfilerUtil.createRequestsFromIndexHtml(this.project, content, this.url), consumer)
         );
     }
 
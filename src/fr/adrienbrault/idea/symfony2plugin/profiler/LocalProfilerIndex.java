@@ -1,11 +1,13 @@
 package fr.adrienbrault.idea.symfony2plugin.profiler;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.intellij.util.containers.ContainerUtil;
 import fr.adrienbrault.idea.symfony2plugin.profiler.collector.LocalDefaultDataCollector;
 import fr.adrienbrault.idea.symfony2plugin.profiler.collector.LocalMailCollector;
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.LocalProfilerRequest;
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
-import fr.adrienbrault.idea.symfony2plugin.profiler.reader.ReverseFileLineReader;
+import fr.adrienbrault.idea.symfony2plugin.profiler.reader.TailFileLineReader;
 import fr.adrienbrault.idea.symfony2plugin.profiler.utils.ProfilerUtil;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -15,15 +17,27 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class LocalProfilerIndex implements ProfilerIndexInterface {
+    /**
+     * Index instances are created on every access, so tail state lives per "index.csv"
+     */
+    private static final Map<String, TailFileLineReader> INDEX_READERS = new ConcurrentHashMap<>();
+
+    /**
+     * Decoded profiles by "index.csv" and token
+     */
+    private static final Cache<String, ProfilerRequestInterface> PROFILES = CacheBuilder.newBuilder()
+        .maximumSize(50)
+        .build();
+
     @NotNull
     private File file;
 
@@ -41,30 +55,66 @@ public class LocalProfilerIndex implements ProfilerIndexInterface {
 
     @NotNull
     public List<ProfilerRequestInterface> getRequests() {
-        List<String> lines = new ArrayList<>();
+        return getRequests(request -> {});
+    }
+
+    /**
+     * Last requests of the "index.csv"; only newly appended lines are read and only profiles of new requests are decoded.
+     * Already decoded profiles are published first, the others as soon as they are decoded
+     */
+    @NotNull
+    @Override
+    public List<ProfilerRequestInterface> getRequests(@NotNull Consumer<ProfilerRequestInterface> consumer) {
+        List<String[]> entries = new ArrayList<>();
 
         try {
-            // empty line and end of line need +1
-            ContainerUtil.addAll(lines, new ReverseFileLineReader(this.file, "UTF-8", 11).readLines());
+            for (String line : getIndexReader(this.file).readLines()) {
+                // we need at least this information for a valid line:
+                // "18e6b8,127.0.0.1,GET,http://127.0.0.1:8000/foobar"
+                String[] split = line.split(",");
+                if (split.length > 4) {
+                    entries.add(split);
+                }
+            }
         } catch (IOException ignored) {
         }
 
+        // build thread callable collection
+        Map<String, ProfilerRequestInterface> loaded = new HashMap<>();
         Collection<Callable<ProfilerRequestInterface>> callable = new ArrayList<>();
+        for (String[] split : entries) {
+            ProfilerRequestInterface request = PROFILES.getIfPresent(getProfileKey(split[0]));
+            if(request != null) {
+                loaded.put(split[0], request);
+                consumer.accept(request);
+            } else {
+                callable.add(new MyProfilerRequestBuilderCallable(split));
+            }
+        }
 
-        // build thread callable collection
-        lines.stream().filter(StringUtils::isNotBlank).forEachOrdered(line -> {
+        if(callable.size() > 0) {
+            ProfilerUtil.getProfilerRequestCollectorDecorated(callable, request -> {
+                loaded.put(request.getHash(), request);
+                consumer.accept(request);
+            });
+        }
 
-            // we need at least this information for a valid line:
-            // "18e6b8,127.0.0.1,GET,http://127.0.0.1:8000/foobar"
-            String[] split = line.split(",");
-            if (split.length <= 4) {
-                return;
-            }
+        List<ProfilerRequestInterface> requests = new ArrayList<>();
+        for (String[] split : entries) {
+            ContainerUtil.addIfNotNull(requests, loaded.get(split[0]));
+        }
 
-            callable.add(new MyProfilerRequestBuilderCallable(split));
-        });
+        return requests;
+    }
+
+    @NotNull
+    private static TailFileLineReader getIndexReader(@NotNull File file) {
+        return INDEX_READERS.computeIfAbsent(file.getAbsolutePath(), path -> new TailFileLineReader(file, 10));
+    }
 
-        return ProfilerUtil.getProfilerRequestCollectorDecorated(callable, 15);
+    @NotNull
+    private String getProfileKey(@NotNull String hash) {
+        return this.file.getAbsolutePath() + "#" + hash;
     }
 
     @Nullable
@@ -104,13 +154,11 @@ public class LocalProfilerIndex implements ProfilerIndexInterface {
 
         StringBuilder content = new StringBuilder();
 
-        try {
-            BufferedReader in = new BufferedReader(new FileReader(file));
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
             String str;
             while ((str = in.readLine()) != null) {
                 content.append(str);
             }
-            in.close();
         } catch (IOException ignored) {
         }
 
@@ -131,11 +179,16 @@ public class LocalProfilerIndex implements ProfilerIndexInterface {
                 return new LocalProfilerRequest(split);
             }
 
-            return new LocalProfilerRequest(
+            // profile of a token never changes; collectors dont hold the content
+            ProfilerRequestInterface request = new LocalProfilerRequest(
                 split,
                 new LocalDefaultDataCollector(content),
                 new LocalMailCollector(content)
             );
+
+            PROFILES.put(getProfileKey(split[0]), request);
+
+            return request;
         }
     }
 }
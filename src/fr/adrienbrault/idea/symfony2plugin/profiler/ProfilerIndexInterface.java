@@ -5,6 +5,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -13,6 +14,16 @@ public interface ProfilerIndexInterface {
     @NotNull
     List<ProfilerRequestInterface> getRequests();
 
+    /**
+     * Requests are also published to the consumer one by one, as soon as they are loaded
+     */
+    @NotNull
+    default List<ProfilerRequestInterface> getRequests(@NotNull Consumer<ProfilerRequestInterface> consumer) {
+        List<ProfilerRequestInterface> requests = getRequests();
+        requests.forEach(consumer);
+        return requests;
+    }
+
     @Nullable
     String getUrlForRequest(@NotNull ProfilerRequestInterface request);
 }
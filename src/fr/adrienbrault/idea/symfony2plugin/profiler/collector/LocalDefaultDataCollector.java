@@ -1,6 +1,6 @@
 package fr.adrienbrault.idea.symfony2plugin.profiler.collector;
 
-import org.intellij.lang.annotations.RegExp;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.regex.Matcher;
@@ -10,35 +10,50 @@ import java.util.regex.Pattern;
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class LocalDefaultDataCollector implements DefaultDataCollectorInterface {
+    private static final Pattern CONTROLLER = Pattern.compile("_controller\";s:(\\d+):", Pattern.MULTILINE);
+    private static final Pattern ROUTE = Pattern.compile("_route\";s:(\\d+):", Pattern.MULTILINE);
+    private static final Pattern TEMPLATE = Pattern.compile("\"template.twig \\(([^\"]*\\.html\\.\\w{2,4})\\)\"", Pattern.MULTILINE);
+
+    @Nullable
+    private final String controller;
+
+    @Nullable
+    private final String route;
+
     @Nullable
-    private final String contents;
+    private final String template;
 
+    /**
+     * Values are decoded once; the serialized profile is not kept
+     */
     public LocalDefaultDataCollector(@Nullable String contents) {
-        this.contents = contents;
+        this.controller = this.getStringValue(contents, CONTROLLER);
+        this.route = this.getStringValue(contents, ROUTE);
+        this.template = this.pregMatch(contents, TEMPLATE);
     }
 
     @Nullable
     public String getController() {
-        return this.getStringValue(this.contents, "_controller\";s:(\\d+):");
+        return this.controller;
     }
 
     @Nullable
     public String getRoute() {
-        return this.getStringValue(this.contents, "_route\";s:(\\d+):");
+        return this.route;
     }
 
     @Nullable
     public String getTemplate() {
-        return this.pregMatch(this.contents, "\"template.twig \\(([^\"]*\\.html\\.\\w{2,4})\\)\"");
+        return this.template;
     }
 
     @Nullable
-    private String pregMatch(@Nullable String content, @RegExp String regular) {
+    private String pregMatch(@Nullable String content, @NotNull Pattern pattern) {
         if(content == null) {
             return null;
         }
 
-        Matcher matcher = Pattern.compile(regular, Pattern.MULTILINE).matcher(content);
+        Matcher matcher = pattern.matcher(content);
         if(matcher.find()){
             return matcher.group(1);
         }
@@ -47,12 +62,12 @@ public class LocalDefaultDataCollector implements DefaultDataCollectorInterface
     }
 
     @Nullable
-    private String getStringValue(@Nullable String content, @RegExp String regular) {
+    private String getStringValue(@Nullable String content, @NotNull Pattern pattern) {
         if(content == null) {
             return null;
         }
 
-        Matcher matcher = Pattern.compile(regular, Pattern.MULTILINE).matcher(content);
+        Matcher matcher = pattern.matcher(content);
         if(matcher.find()){
             String domain = matcher.group(1);
 
@@ -1,7 +1,6 @@
 package fr.adrienbrault.idea.symfony2plugin.profiler.collector;
 
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.MailMessage;
-import org.intellij.lang.annotations.RegExp;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -16,21 +15,32 @@ import java.util.regex.Pattern;
  */
 public class LocalMailCollector implements MailCollectorInterface {
 
+    private static final Pattern MESSAGE_DATA_COLLECTOR = Pattern.compile("MessageDataCollector\":(\\d+):", Pattern.MULTILINE);
+    private static final Pattern MESSAGE_BODY = Pattern.compile("\"\\x00Swift_Mime_SimpleMimeEntity\\x00_body\";s:(\\d+):\"", Pattern.MULTILINE);
+
     @NotNull
-    private final String contents;
+    private final Collection<MailMessage> messages;
 
+    /**
+     * Messages are decoded once; the serialized profile is not kept
+     */
     public LocalMailCollector(@NotNull String contents) {
-        this.contents = contents;
+        this.messages = this.decodeMessages(contents);
     }
 
     @NotNull
     public Collection<MailMessage> getMessages() {
-        String messages = this.findTwice(this.contents, "MessageDataCollector\":(\\d+):");
+        return this.messages;
+    }
+
+    @NotNull
+    private Collection<MailMessage> decodeMessages(@NotNull String contents) {
+        String messages = this.findTwice(contents, MESSAGE_DATA_COLLECTOR);
         if(messages == null) {
             return Collections.emptyList();
         }
 
-        Matcher matcher = Pattern.compile("\"\\x00Swift_Mime_SimpleMimeEntity\\x00_body\";s:(\\d+):\"", Pattern.MULTILINE).matcher(messages);
+        Matcher matcher = MESSAGE_BODY.matcher(messages);
 
         Collection<MailMessage> mails = new ArrayList<>();
         while(matcher.find()){
@@ -54,8 +64,8 @@ public class LocalMailCollector implements MailCollectorInterface {
     }
 
     @Nullable
-    private String findTwice(@NotNull String content, @RegExp String regular) {
-        Matcher matcher = Pattern.compile(regular, Pattern.MULTILINE).matcher(content);
+    private String findTwice(@NotNull String content, @NotNull Pattern pattern) {
+        Matcher matcher = pattern.matcher(content);
         if(matcher.find()){
             String domain = matcher.group(1);
 
@@ -0,0 +1,135 @@
+package fr.adrienbrault.idea.symfony2plugin.profiler.reader;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the last lines of an append only file, eg the profiler "index.csv".
+ *
+ * Only bytes appended since the last call are read; a truncated or replaced file is read again from its end.
+ * A line is visible after its line break was written
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TailFileLineReader {
+
+    /**
+     * Bytes from the end of the file which are read if we are too far behind; a csv line needs around 100 bytes
+     */
+    private static final int WINDOW_SIZE = 65536;
+
+    @NotNull
+    private final File file;
+
+    private final int limit;
+
+    /**
+     * Position after the last line break we have read; -1 if nothing is read yet
+     */
+    private long offset = -1;
+
+    private Object fileKey;
+
+    /**
+     * Non blank lines, newest first
+     */
+    @NotNull
+    private final LinkedList<String> lines = new LinkedList<>();
+
+    public TailFileLineReader(@NotNull File file, int limit) {
+        this.file = file;
+        this.limit = limit;
+    }
+
+    /**
+     * @return last non blank lines, newest first
+     */
+    @NotNull
+    synchronized public List<String> readLines() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(this.file.toPath(), BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            this.reset();
+            return new ArrayList<>();
+        }
+
+        long size = attributes.size();
+
+        // file key is null on some file systems; size is then the only way to see a replaced file
+        if(size < this.offset || !Objects.equals(attributes.fileKey(), this.fileKey)) {
+            this.reset();
+            this.fileKey = attributes.fileKey();
+        }
+
+        long start = this.offset;
+        if(start < 0 || size - start > WINDOW_SIZE) {
+            start = Math.max(0, size - WINDOW_SIZE);
+            this.lines.clear();
+        }
+
+        if(size > start) {
+            this.read(start, (int) (size - start));
+        }
+
+        return new ArrayList<>(this.lines);
+    }
+
+    private void read(long start, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        try (RandomAccessFile raf = new RandomAccessFile(this.file, "r")) {
+            raf.seek(start);
+            raf.readFully(bytes);
+        }
+
+        // window can start inside of a line
+        boolean skipLine = start > 0 && start != this.offset;
+
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if(bytes[i] != '\n') {
+                continue;
+            }
+
+            if(!skipLine) {
+                this.addLine(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8));
+            }
+
+            skipLine = false;
+            lineStart = i + 1;
+        }
+
+        // incomplete last line is read again on next call
+        this.offset = start + lineStart;
+    }
+
+    private void addLine(@NotNull String line) {
+        line = StringUtils.stripEnd(line, "\r");
+        if(StringUtils.isBlank(line)) {
+            return;
+        }
+
+        this.lines.addFirst(line);
+        if(this.lines.size() > this.limit) {
+            this.lines.removeLast();
+        }
+    }
+
+    private void reset() {
+        this.offset = -1;
+        this.fileKey = null;
+        this.lines.clear();
+    }
+}
@@ -11,6 +11,8 @@ import com.intellij.psi.impl.source.html.HtmlFileImpl;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.psi.xml.XmlTag;
 import com.intellij.psi.xml.XmlTagValue;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
 import fr.adrienbrault.idea.symfony2plugin.profiler.collector.HttpDefaultDataCollector;
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.HttpProfilerRequest;
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
@@ -28,6 +30,7 @@ import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -50,6 +53,18 @@ public class ProfilerUtil {
         .expireAfterWrite(5, TimeUnit.MINUTES)
         .build();
 
+    /**
+     * Shared by all projects and profiler indexes; a refresh never creates its own threads
+     */
+    private static final int MAX_THREADS = 8;
+
+    private static final ExecutorService EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("Symfony Profiler", MAX_THREADS);
+
+    /**
+     * Connect and read timeout for a single profiler url; also the deadline of a running request on the executor
+     */
+    private static final int REQUEST_TIMEOUT = 5000;
+
     /**
      * Extract "table.search-results tbody tr td"
      * We dont have complete xpath with html support inside so reuse internal html parser
@@ -155,11 +170,19 @@ public class ProfilerUtil {
 
     @NotNull
     public static Collection<ProfilerRequestInterface> collectHttpDataForRequest(@NotNull Project project, @NotNull Collection<ProfilerRequestInterface> requests) {
+        return collectHttpDataForRequest(project, requests, request -> {});
+    }
+
+    /**
+     * Every decorated request is published to the consumer as soon as it is loaded
+     */
+    @NotNull
+    public static Collection<ProfilerRequestInterface> collectHttpDataForRequest(@NotNull Project project, @NotNull Collection<ProfilerRequestInterface> requests, @NotNull Consumer<ProfilerRequestInterface> consumer) {
         Collection<Callable<ProfilerRequestInterface>> callable = requests.stream().map(
             request -> new MyProfilerRequestDecoratedCollectorCallable(project, request)).collect(Collectors.toCollection(ArrayList::new)
         );
 
-        return getProfilerRequestCollectorDecorated(callable, 10);
+        return getProfilerRequestCollectorDecorated(callable, consumer);
     }
 
     /**
@@ -293,6 +316,8 @@ public class ProfilerUtil {
         URLConnection conn;
         try {
             conn = new URL(url).openConnection();
+            conn.setConnectTimeout(REQUEST_TIMEOUT);
+            conn.setReadTimeout(REQUEST_TIMEOUT);
         } catch (IOException e) {
             e.printStackTrace();
             return null;
@@ -379,30 +404,124 @@ public class ProfilerUtil {
 
     /**
      * Decorated request model with loaded collector data
-     * loads data on multiple thread to be as fast as possible
+     * loads data on the shared profiler executor to be as fast as possible
      */
     @NotNull
-    public static List<ProfilerRequestInterface> getProfilerRequestCollectorDecorated(@NotNull Collection<Callable<ProfilerRequestInterface>> callable, int threads) {
-        ExecutorService executor = Executors.newFixedThreadPool(threads);
+    public static List<ProfilerRequestInterface> getProfilerRequestCollectorDecorated(@NotNull Collection<Callable<ProfilerRequestInterface>> callable) {
+        return getProfilerRequestCollectorDecorated(callable, request -> {});
+    }
+
+    /**
+     * Every loaded request is published to the consumer as soon as it is completed; result keeps the callable order.
+     *
+     * The deadline of a request starts when it is running, so waiting behind other refreshes on the shared executor
+     * is not a timeout. Requests not completed at their deadline are hanging and cancelled
+     */
+    @NotNull
+    public static List<ProfilerRequestInterface> getProfilerRequestCollectorDecorated(@NotNull Collection<Callable<ProfilerRequestInterface>> callable, @NotNull Consumer<ProfilerRequestInterface> consumer) {
+        CompletionService<ProfilerRequestInterface> completionService = new ExecutorCompletionService<>(EXECUTOR);
+
+        List<Future<ProfilerRequestInterface>> futures = new ArrayList<>();
+        Map<Future<ProfilerRequestInterface>, StartedCallable> pending = new HashMap<>();
+        for (Callable<ProfilerRequestInterface> call : callable) {
+            StartedCallable startedCallable = new StartedCallable(call);
+            Future<ProfilerRequestInterface> future = completionService.submit(startedCallable);
+
+            futures.add(future);
+            pending.put(future, startedCallable);
+        }
+
+        Map<Future<ProfilerRequestInterface>, ProfilerRequestInterface> results = new HashMap<>();
 
-        List<Future<ProfilerRequestInterface>> futures;
         try {
-            futures = executor.invokeAll(callable);
+            while (pending.size() > 0) {
+                long wait = getNextDeadline(pending);
+                if(pending.size() == 0) {
+                    break;
+                }
+
+                Future<ProfilerRequestInterface> future = completionService.poll(wait, TimeUnit.MILLISECONDS);
+
+                // cancelled requests are also completed; they are not pending anymore
+                if(future == null || pending.remove(future) == null) {
+                    continue;
+                }
+
+                try {
+                    ProfilerRequestInterface request = future.get();
+                    if(request != null) {
+                        results.put(future, request);
+                        consumer.accept(request);
+                    }
+                } catch (ExecutionException | CancellationException ignored) {
+                }
+            }
         } catch (InterruptedException e) {
-            return Collections.emptyList();
+            Thread.currentThread().interrupt();
+
+            for (Future<ProfilerRequestInterface> future : pending.keySet()) {
+                future.cancel(true);
+            }
         }
 
         List<ProfilerRequestInterface> requests = new ArrayList<>();
         for (Future<ProfilerRequestInterface> future : futures) {
-            try {
-                requests.add(future.get());
-            } catch (ExecutionException | InterruptedException ignored) {
+            ContainerUtil.addIfNotNull(requests, results.get(future));
+        }
+
+        return requests;
+    }
+
+    /**
+     * Cancels running requests over their deadline
+     *
+     * @return time until the next deadline of a running request; queued requests have no deadline yet
+     */
+    private static long getNextDeadline(@NotNull Map<Future<ProfilerRequestInterface>, StartedCallable> pending) {
+        long now = System.currentTimeMillis();
+        long wait = REQUEST_TIMEOUT;
+
+        Iterator<Map.Entry<Future<ProfilerRequestInterface>, StartedCallable>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Future<ProfilerRequestInterface>, StartedCallable> entry = iterator.next();
+
+            long started = entry.getValue().started;
+            if(started == 0) {
+                continue;
             }
+
+            long remaining = started + REQUEST_TIMEOUT - now;
+            if(remaining <= 0) {
+                // dont block the shared executor with requests nobody is waiting for
+                entry.getKey().cancel(true);
+                iterator.remove();
+                continue;
+            }
+
+            wait = Math.min(wait, remaining);
         }
 
-        executor.shutdown();
+        return wait;
+    }
 
-        return requests;
+    /**
+     * Remembers when the executor started the request
+     */
+    private static class StartedCallable implements Callable<ProfilerRequestInterface> {
+        @NotNull
+        private final Callable<ProfilerRequestInterface> callable;
+
+        private volatile long started = 0;
+
+        StartedCallable(@NotNull Callable<ProfilerRequestInterface> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        public ProfilerRequestInterface call() throws Exception {
+            this.started = System.currentTimeMillis();
+            return this.callable.call();
+        }
     }
 
     /**
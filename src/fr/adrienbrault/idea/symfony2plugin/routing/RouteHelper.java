@@ -40,6 +40,7 @@ import fr.adrienbrault.idea.symfony2plugin.routing.dict.RouteInterface;
 import fr.adrienbrault.idea.symfony2plugin.routing.dict.RoutesContainer;
 import fr.adrienbrault.idea.symfony2plugin.routing.dict.RoutingFile;
 import fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.StubIndexedRoute;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.AnnotationRoutesStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.RoutesStubIndex;
@@ -60,6 +61,7 @@ import org.jetbrains.yaml.YAMLUtil;
 import org.jetbrains.yaml.psi.*;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -350,6 +352,16 @@ public class RouteHelper {
 
     @NotNull
     public static Map<String, Route> getRoutesInsideUrlGeneratorFile(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+        // generated file can be some MB; scan the array without building PSI
+        try {
+            Map<String, Route> routes = UrlGeneratorRouteParser.parse(VfsUtil.loadText(virtualFile));
+            if(routes != null) {
+                return routes;
+            }
+        } catch (IOException ignored) {
+        }
+
+        // unknown format
         PsiFile psiFile = PsiElementUtils.virtualFileToPsiFile(project, virtualFile);
         if(!(psiFile instanceof PhpFile)) {
             return Collections.emptyMap();
@@ -504,14 +516,14 @@ public class RouteHelper {
         return new Route(routeName, variables, defaults, requirements, tokens);
     }
 
-    private static boolean isProductionRouteName(String routeName) {
+    static boolean isProductionRouteName(String routeName) {
         return !routeName.matches("_assetic_[0-9a-z]+[_\\d+]*");
     }
 
     /**
      * support I18nRoutingBundle
      */
-    private static String convertLanguageRouteName(String routeName) {
+    static String convertLanguageRouteName(String routeName) {
 
         if(routeName.matches("^[a-z]{2}__RG__.*$")) {
             routeName = routeName.replaceAll("^[a-z]{2}+__RG__", "");
@@ -903,7 +915,7 @@ public class RouteHelper {
             uniqueSet.add(route.getName());
         }
 
-        SymfonyProcessors.CollectProjectUniqueKeysStrong ymlProjectProcessor = new SymfonyProcessors.CollectProjectUniqueKeysStrong(project, RoutesStubIndex.KEY, uniqueSet);
+        SymfonyProcessors.CollectProjectUniqueKeysStrong ymlProjectProcessor = new SymfonyProcessors.CollectProjectUniqueKeysStrong(project, RoutesStubIndex.KEY, uniqueSet, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.ROUTES));
         FileBasedIndex.getInstance().processAllKeys(RoutesStubIndex.KEY, ymlProjectProcessor, project);
         for(String routeName: ymlProjectProcessor.getResult()) {
             if(uniqueSet.contains(routeName)) {
@@ -915,7 +927,7 @@ public class RouteHelper {
             }
         }
 
-        SymfonyProcessors.CollectProjectUniqueKeysStrong annotationProjectProcessor = new SymfonyProcessors.CollectProjectUniqueKeysStrong(project, AnnotationRoutesStubIndex.KEY, uniqueSet);
+        SymfonyProcessors.CollectProjectUniqueKeysStrong annotationProjectProcessor = new SymfonyProcessors.CollectProjectUniqueKeysStrong(project, AnnotationRoutesStubIndex.KEY, uniqueSet, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.ROUTES));
         FileBasedIndex.getInstance().processAllKeys(AnnotationRoutesStubIndex.KEY, annotationProjectProcessor, project);
         for(String routeName: annotationProjectProcessor.getResult()) {
             if(uniqueSet.contains(routeName)) {
@@ -953,7 +965,7 @@ public class RouteHelper {
         CachedValue<Map<String, Route>> cache = project.getUserData(ROUTE_CACHE);
         if (cache == null) {
             cache = CachedValuesManager.getManager(project).createCachedValue(() ->
-                CachedValueProvider.Result.create(getAllRoutesProxy(project), PsiModificationTracker.MODIFICATION_COUNT),
+                CachedValueProvider.Result.create(getAllRoutesProxy(project), SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.ROUTES)),
                 false
             );
             project.putUserData(ROUTE_CACHE, cache);
@@ -970,7 +982,7 @@ public class RouteHelper {
 
         Set<String> uniqueKeySet = new HashSet<>(routes.keySet());
 
-        SymfonyProcessors.CollectProjectUniqueKeysStrong ymlProjectProcessor = new SymfonyProcessors.CollectProjectUniqueKeysStrong(project, RoutesStubIndex.KEY, uniqueKeySet);
+        SymfonyProcessors.CollectProjectUniqueKeysStrong ymlProjectProcessor = new SymfonyProcessors.CollectProjectUniqueKeysStrong(project, RoutesStubIndex.KEY, uniqueKeySet, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.ROUTES));
         FileBasedIndex.getInstance().processAllKeys(RoutesStubIndex.KEY, ymlProjectProcessor, project);
         for(String routeName: ymlProjectProcessor.getResult()) {
 
@@ -984,7 +996,7 @@ public class RouteHelper {
             }
         }
 
-        SymfonyProcessors.CollectProjectUniqueKeysStrong annotationProjectProcessor = new SymfonyProcessors.CollectProjectUniqueKeysStrong(project, AnnotationRoutesStubIndex.KEY, uniqueKeySet);
+        SymfonyProcessors.CollectProjectUniqueKeysStrong annotationProjectProcessor = new SymfonyProcessors.CollectProjectUniqueKeysStrong(project, AnnotationRoutesStubIndex.KEY, uniqueKeySet, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.ROUTES));
         FileBasedIndex.getInstance().processAllKeys(AnnotationRoutesStubIndex.KEY, annotationProjectProcessor, project);
         for(String routeName: annotationProjectProcessor.getResult()) {
 
@@ -0,0 +1,318 @@
+package fr.adrienbrault.idea.symfony2plugin.routing;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Scans "declaredRoutes" of a compiled UrlGenerator without building a PSI tree
+ *
+ * static private $declaredRoutes = array('_wdt' => array(...))
+ * self::$declaredRoutes = array('_wdt' => array(...))
+ * self::$declaredRoutes = ['_wdt' => [...]]
+ *
+ * String contents are kept raw without resolving escape sequences, like StringLiteralExpression::getContents
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class UrlGeneratorRouteParser {
+
+    private static final String DECLARED_ROUTES = "$declaredRoutes";
+
+    @NotNull
+    private final CharSequence content;
+
+    private int pos;
+
+    private UrlGeneratorRouteParser(@NotNull CharSequence content, int pos) {
+        this.content = content;
+        this.pos = pos;
+    }
+
+    /**
+     * @return null on an unknown format; caller should fallback to PSI
+     */
+    @Nullable
+    public static Map<String, Route> parse(@NotNull CharSequence content) {
+        String text = content.toString();
+
+        Map<String, Route> routes = new HashMap<>();
+        boolean found = false;
+
+        int offset = 0;
+        while((offset = text.indexOf(DECLARED_ROUTES, offset)) >= 0) {
+            offset += DECLARED_ROUTES.length();
+
+            UrlGeneratorRouteParser parser = new UrlGeneratorRouteParser(text, offset);
+
+            // "private static $declaredRoutes;" or "null === self::$declaredRoutes"
+            if(!parser.consumeAssignment()) {
+                continue;
+            }
+
+            List<Entry> entries;
+            try {
+                entries = parser.readArray();
+            } catch (UnsupportedFormatException e) {
+                return null;
+            }
+
+            collectRoutes(routes, entries);
+            offset = parser.pos;
+            found = true;
+        }
+
+        return found ? routes : null;
+    }
+
+    private static void collectRoutes(@NotNull Map<String, Route> routes, @NotNull List<Entry> entries) {
+        for (Entry entry : entries) {
+            if(entry.key == null || !(entry.value instanceof List)) {
+                continue;
+            }
+
+            String routeName = entry.key;
+            if(!RouteHelper.isProductionRouteName(routeName)) {
+                continue;
+            }
+
+            routeName = RouteHelper.convertLanguageRouteName(routeName);
+            routes.put(routeName, createRoute(routeName, (List<Entry>) entry.value));
+        }
+    }
+
+    /**
+     * list($variables, $defaults, $requirements, $tokens, $hostTokens)
+     */
+    @NotNull
+    private static Route createRoute(@NotNull String routeName, @NotNull List<Entry> config) {
+        HashSet<String> variables = new HashSet<>(getStringValues(getArray(config, 0)).values());
+        Map<String, String> defaults = getStringValues(getArray(config, 1));
+        Map<String, String> requirements = getStringValues(getArray(config, 2));
+
+        List<Collection<String>> tokens = new ArrayList<>();
+        for (Entry token : getArray(config, 3)) {
+            if(token.value instanceof List) {
+                tokens.add(getStringValues((List<Entry>) token.value).values());
+            }
+        }
+
+        return new Route(routeName, variables, defaults, requirements, tokens);
+    }
+
+    @NotNull
+    private static List<Entry> getArray(@NotNull List<Entry> entries, int index) {
+        if(entries.size() > index && entries.get(index).value instanceof List) {
+            return (List<Entry>) entries.get(index).value;
+        }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Only non blank string values; keys are string or numbers, implicit keys are the position
+     */
+    @NotNull
+    private static Map<String, String> getStringValues(@NotNull List<Entry> entries) {
+        Map<String, String> values = new LinkedHashMap<>();
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+
+            String key = entry.key != null ? entry.key : Integer.toString(i);
+            if(StringUtils.isBlank(key) || !(entry.value instanceof String) || StringUtils.isBlank((String) entry.value)) {
+                continue;
+            }
+
+            values.put(key, (String) entry.value);
+        }
+
+        return values;
+    }
+
+    /**
+     * "= array(" or "= [", but not "=="
+     */
+    private boolean consumeAssignment() {
+        skipWhitespace();
+        if(pos + 1 >= content.length() || content.charAt(pos) != '=' || content.charAt(pos + 1) == '=') {
+            return false;
+        }
+
+        pos++;
+        skipWhitespace();
+
+        return pos < content.length() && (content.charAt(pos) == '[' || startsWithIgnoreCase("array"));
+    }
+
+    @NotNull
+    private List<Entry> readArray() throws UnsupportedFormatException {
+        if(peek() == '[') {
+            pos++;
+            return readEntries(']');
+        }
+
+        if(startsWithIgnoreCase("array")) {
+            pos += "array".length();
+            skipWhitespace();
+            if(peek() == '(') {
+                pos++;
+                return readEntries(')');
+            }
+        }
+
+        throw new UnsupportedFormatException();
+    }
+
+    @NotNull
+    private List<Entry> readEntries(char close) throws UnsupportedFormatException {
+        List<Entry> entries = new ArrayList<>();
+
+        while(true) {
+            skipWhitespace();
+            if(peek() == close) {
+                pos++;
+                return entries;
+            }
+
+            Object value = readValue();
+
+            skipWhitespace();
+            if(peek() == '=' && pos + 1 < content.length() && content.charAt(pos + 1) == '>') {
+                pos += 2;
+                entries.add(new Entry(getKey(value), readValue()));
+            } else {
+                entries.add(new Entry(null, value));
+            }
+
+            skipWhitespace();
+            char c = peek();
+            if(c == ',') {
+                pos++;
+            } else if(c != close) {
+                throw new UnsupportedFormatException();
+            }
+        }
+    }
+
+    /**
+     * String contents, nested entry list or a scalar like NULL, true or numbers
+     */
+    @NotNull
+    private Object readValue() throws UnsupportedFormatException {
+        skipWhitespace();
+
+        char c = peek();
+        if(c == '\'' || c == '"') {
+            return readString(c);
+        }
+
+        if(c == '[' || startsWithIgnoreCase("array")) {
+            return readArray();
+        }
+
+        int start = pos;
+        while(pos < content.length() && isScalarChar(content.charAt(pos))) {
+            pos++;
+        }
+
+        if(start == pos) {
+            throw new UnsupportedFormatException();
+        }
+
+        return new Scalar(content.subSequence(start, pos).toString());
+    }
+
+    @NotNull
+    private String readString(char quote) throws UnsupportedFormatException {
+        int start = ++pos;
+
+        while(pos < content.length()) {
+            char c = content.charAt(pos);
+            if(c == '\\') {
+                pos += 2;
+            } else if(c == quote) {
+                return content.subSequence(start, pos++).toString();
+            } else {
+                pos++;
+            }
+        }
+
+        throw new UnsupportedFormatException();
+    }
+
+    /**
+     * Keys are strings or numbers; everything else is no key we can support
+     */
+    @Nullable
+    private static String getKey(@NotNull Object value) {
+        if(value instanceof String) {
+            return (String) value;
+        }
+
+        if(value instanceof Scalar && StringUtils.isNumeric(((Scalar) value).text)) {
+            return ((Scalar) value).text;
+        }
+
+        return null;
+    }
+
+    private static boolean isScalarChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '+' || c == '_';
+    }
+
+    private boolean startsWithIgnoreCase(@NotNull String prefix) {
+        if(pos + prefix.length() > content.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length(); i++) {
+            if(Character.toLowerCase(content.charAt(pos + i)) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private char peek() throws UnsupportedFormatException {
+        if(pos >= content.length()) {
+            throw new UnsupportedFormatException();
+        }
+
+        return content.charAt(pos);
+    }
+
+    private void skipWhitespace() {
+        while(pos < content.length() && Character.isWhitespace(content.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static class Entry {
+        @Nullable
+        private final String key;
+
+        @NotNull
+        private final Object value;
+
+        private Entry(@Nullable String key, @NotNull Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static class Scalar {
+        @NotNull
+        private final String text;
+
+        private Scalar(@NotNull String text) {
+            this.text = text;
+        }
+    }
+
+    private static class UnsupportedFormatException extends Exception {
+    }
+}
@@ -1,20 +1,22 @@
 package fr.adrienbrault.idea.symfony2plugin.routing.webDeployment;
 
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.io.StreamUtil;
+import com.intellij.openapi.util.Pair;
 import com.intellij.util.containers.HashMap;
 import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import fr.adrienbrault.idea.symfony2plugin.Settings;
 import fr.adrienbrault.idea.symfony2plugin.routing.Route;
 import fr.adrienbrault.idea.symfony2plugin.routing.RouteHelper;
+import fr.adrienbrault.idea.symfony2plugin.routing.UrlGeneratorRouteParser;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileStorageInterface;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.utils.RemoteWebServerUtil;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.vfs2.FileObject;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -24,6 +26,12 @@ public class RoutingRemoteFileStorage implements RemoteFileStorageInterface<Map<
 
     private Map<String, Route> routeMap = new HashMap<>();
 
+    /**
+     * Remote uri with content checksum and its routes; unchanged content is not parsed again
+     */
+    @NotNull
+    private Map<String, Pair<Long, Map<String, Route>>> files = new HashMap<>();
+
     @NotNull
     @Override
     public Collection<String> files(@NotNull Project project) {
@@ -32,29 +40,48 @@ public class RoutingRemoteFileStorage implements RemoteFileStorageInterface<Map<
 
     @Override
     public void build(@NotNull Project project, @NotNull Collection<FileObject> fileObjects) {
+        Map<String, Pair<Long, Map<String, Route>>> files = new HashMap<>();
         Map<String, Route> routeMap = new HashMap<>();
 
         for (FileObject file : fileObjects) {
-
-            String content;
-            try {
-                content = StreamUtil.readText(file.getContent().getInputStream(), "UTF-8");
-            } catch (IOException e) {
+            byte[] bytes = RemoteWebServerUtil.getContent(file);
+            if(bytes == null) {
                 continue;
             }
 
-            if(StringUtils.isBlank(content)) {
-                continue;
+            String uri = file.getName().getURI();
+            long checksum = RemoteWebServerUtil.getChecksum(bytes);
+
+            Pair<Long, Map<String, Route>> routes = this.files.get(uri);
+            if(routes == null || routes.getFirst() != checksum) {
+                routes = Pair.create(checksum, getRoutes(project, new String(bytes, StandardCharsets.UTF_8)));
             }
 
-            routeMap.putAll(RouteHelper.getRoutesInsideUrlGeneratorFile(
-                PhpPsiElementFactory.createPsiFileFromText(project, content)
-            ));
+            files.put(uri, routes);
+            routeMap.putAll(routes.getSecond());
         }
 
+        this.files = files;
         this.routeMap = routeMap;
     }
 
+    @NotNull
+    private static Map<String, Route> getRoutes(@NotNull Project project, @NotNull String content) {
+        if(StringUtils.isBlank(content)) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Route> routes = UrlGeneratorRouteParser.parse(content);
+        if(routes != null) {
+            return routes;
+        }
+
+        // unknown format
+        return RouteHelper.getRoutesInsideUrlGeneratorFile(
+            PhpPsiElementFactory.createPsiFileFromText(project, content)
+        );
+    }
+
     @NotNull
     public Map<String, Route> getState() {
         return this.routeMap;
@@ -62,6 +89,7 @@ public class RoutingRemoteFileStorage implements RemoteFileStorageInterface<Map<
 
     @Override
     public void clear() {
+        this.files = new HashMap<>();
         this.routeMap = new HashMap<>();
     }
 }
@@ -1,10 +1,18 @@
 package fr.adrienbrault.idea.symfony2plugin.stubs;
 
+import com.intellij.openapi.extensions.ExtensionPointListener;
 import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.openapi.extensions.PluginDescriptor;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.AtomicNotNullLazyValue;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.NotNullLazyValue;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.indexing.FileBasedIndexImpl;
 import fr.adrienbrault.idea.symfony2plugin.config.component.parser.ParameterServiceParser;
 import fr.adrienbrault.idea.symfony2plugin.dic.ContainerParameter;
@@ -15,6 +23,7 @@ import fr.adrienbrault.idea.symfony2plugin.dic.container.ServiceSerializable;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.dict.ContainerBuilderCall;
 import fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollectorParameter;
 import fr.adrienbrault.idea.symfony2plugin.stubs.cache.FileIndexCaches;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ContainerBuilderStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ContainerParameterStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesDefinitionStubIndex;
@@ -24,6 +33,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -36,6 +48,11 @@ public class ContainerCollectionResolver {
     private static final Key<CachedValue<Set<String>>> SERVICE_CONTAINER_INDEX_NAMES = new Key<>("SYMFONY_SERVICE_CONTAINER_INDEX_NAMES");
     private static final Key<CachedValue<Set<String>>> SERVICE_PARAMETER_INDEX_NAMES = new Key<>("SERVICE_PARAMETER_INDEX_NAMES");
 
+    private static final Key<CachedValue<ServiceModel>> SERVICE_MODEL = new Key<>("SYMFONY_SERVICE_MODEL");
+    private static final Key<CachedValue<Set<String>>> SERVICE_NAMES = new Key<>("SYMFONY_SERVICE_NAMES");
+    private static final Key<CachedValue<ParameterModel>> PARAMETER_MODEL = new Key<>("SYMFONY_PARAMETER_MODEL");
+    private static final Key<ExtensionModificationTracker> SERVICE_EXTENSION_TRACKER = new Key<>("SYMFONY_SERVICE_EXTENSION_TRACKER");
+
     private static final ExtensionPointName<fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector> EXTENSIONS = new ExtensionPointName<>(
         "fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector"
     );
@@ -59,6 +76,23 @@ public class ContainerCollectionResolver {
         return ServiceCollector.create(project).getServices();
     }
 
+    /**
+     * Dependencies of the service model; caches which are build on top of "getServices" need all of them
+     */
+    @NotNull
+    public static Object[] getServiceDependencies(@NotNull Project project) {
+        return ServiceCollector.getServiceModelDependencies(project);
+    }
+
+    /**
+     * Resolved class names of a service as fqn for PhpIndex, eg "\DateTime"; null for an unknown service.
+     * Memoized per service id until the service model changes
+     */
+    @Nullable
+    public static Collection<String> getServiceClassNames(@NotNull Project project, @NotNull String serviceName) {
+        return ServiceCollector.getServiceModel(project).getServiceClassNames(serviceName);
+    }
+
     @Nullable
     public static String resolveService(@NotNull Project project, @NotNull String serviceName) {
         return ServiceCollector.create(project).resolve(serviceName);
@@ -129,9 +163,6 @@ public class ContainerCollectionResolver {
         @Nullable
         private ParameterCollector parameterCollector;
 
-        @Nullable
-        private Map<String, ContainerService> services;
-
         public ServiceCollector(@NotNull Project project) {
             this.project = project;
         }
@@ -158,67 +189,170 @@ public class ContainerCollectionResolver {
             return null;
         }
 
+        /**
+         * Unmodifiable project wide snapshot; rebuild only if one of its sources changed
+         */
         public Map<String, ContainerService> getServices() {
+            return getServiceModel(project).getServices();
+        }
 
-            if(this.services != null) {
-                return this.services;
+        /**
+         * Lookup on a precomputed class name to service ids map; so its also cheap for linemarker
+         */
+        public Set<String> convertClassNameToServices(@NotNull String fqnClassName) {
+            Set<String> serviceNames = getServiceModel(project).getClassNameServices().get(normalizeClassName(fqnClassName));
+            return serviceNames != null ? new HashSet<>(serviceNames) : new HashSet<>();
+        }
+
+        private Set<String> getNames() {
+            CachedValue<Set<String>> cache = project.getUserData(SERVICE_NAMES);
+
+            if(cache == null) {
+                cache = CachedValuesManager.getManager(project).createCachedValue(() -> CachedValueProvider.Result.create(
+                    Collections.unmodifiableSet(createNames(project)),
+                    getServiceModelDependencies(project)
+                ), false);
+
+                project.putUserData(SERVICE_NAMES, cache);
             }
 
-            this.services = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            return cache.getValue();
+        }
 
-            // file system
-            for(Map.Entry<String, String> entry: ServiceXmlParserFactory.getInstance(project, XmlServiceParser.class).getServiceMap().getMap().entrySet()) {
-                services.put(entry.getKey(), new ContainerService(entry.getKey(), entry.getValue()));
+        private ParameterCollector getParameterCollector() {
+            return (this.parameterCollector != null) ? this.parameterCollector : (this.parameterCollector = ParameterCollector.create(this.project));
+        }
+
+        public static ServiceCollector create(@NotNull Project project) {
+            return new ContainerCollectionResolver.ServiceCollector(project);
+        }
+
+        @NotNull
+        private static ServiceModel getServiceModel(@NotNull Project project) {
+            CachedValue<ServiceModel> cache = project.getUserData(SERVICE_MODEL);
+
+            if(cache == null) {
+                cache = CachedValuesManager.getManager(project).createCachedValue(() -> CachedValueProvider.Result.create(
+                    createServiceModel(project),
+                    getServiceModelDependencies(project)
+                ), false);
+
+                project.putUserData(SERVICE_MODEL, cache);
             }
 
-            Collection<ServiceInterface> aliases = new ArrayList<>();
-            Collection<ServiceInterface> decorated = new ArrayList<>();
+            return cache.getValue();
+        }
+
+        /**
+         * Sources: compiled container files, extensions and the service index
+         */
+        @NotNull
+        private static Object[] getServiceModelDependencies(@NotNull Project project) {
+            return new Object[] {
+                ServiceXmlParserFactory.getModificationTracker(project),
+                SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES),
+                getExtensionModificationTracker(project),
+            };
+        }
+
+        @NotNull
+        private static ExtensionModificationTracker getExtensionModificationTracker(@NotNull Project project) {
+            ExtensionModificationTracker tracker = project.getUserData(SERVICE_EXTENSION_TRACKER);
+
+            if(tracker == null) {
+                tracker = new ExtensionModificationTracker(project);
+                project.putUserData(SERVICE_EXTENSION_TRACKER, tracker);
+            }
+
+            return tracker;
+        }
+
+        @NotNull
+        private static Collection<ServiceInterface> collectExtensionServices(@NotNull Project project) {
+            return collectExtensionServices(project, Arrays.asList(EXTENSIONS.getExtensions()));
+        }
+
+        @NotNull
+        private static Collection<ServiceInterface> collectExtensionServices(@NotNull Project project, @NotNull Collection<fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector> extensions) {
+            Collection<ServiceInterface> services = new ArrayList<>();
 
-            // Extension points
             ServiceCollectorParameter.Service parameter = null;
-            Collection<ServiceInterface> exps = new ArrayList<>();
-            for (fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector collectorEx : EXTENSIONS.getExtensions()) {
+            for (fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector collectorEx : extensions) {
                 if(parameter == null) {
-                    parameter = new ServiceCollectorParameter.Service(project, exps);
+                    parameter = new ServiceCollectorParameter.Service(project, services);
                 }
 
                 collectorEx.collectServices(parameter);
             }
 
-            if(exps.size() > 0) {
-                exps.forEach(service -> services.put(service.getId(), new ContainerService(service, null)));
+            return services;
+        }
+
+        private static void collectExtensionIds(@NotNull Project project, @NotNull Collection<String> ids) {
+            collectExtensionIds(project, Arrays.asList(EXTENSIONS.getExtensions()), ids);
+        }
+
+        private static void collectExtensionIds(@NotNull Project project, @NotNull Collection<fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector> extensions, @NotNull Collection<String> ids) {
+            ServiceCollectorParameter.Id parameter = null;
+            for (fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector collectorEx : extensions) {
+                if(parameter == null) {
+                    parameter = new ServiceCollectorParameter.Id(project, ids);
+                }
+
+                collectorEx.collectIds(parameter);
+            }
+        }
+
+        /**
+         * Merge all sources; every source itself is already cached on its own
+         */
+        @NotNull
+        private static ServiceModel createServiceModel(@NotNull Project project) {
+            ParameterCollector parameterCollector = ParameterCollector.create(project);
+
+            Map<String, ContainerService> services = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+            // file system
+            for(Map.Entry<String, String> entry: ServiceXmlParserFactory.getInstance(project, XmlServiceParser.class).getServiceMap().getMap().entrySet()) {
+                services.put(entry.getKey(), new ContainerService(entry.getKey(), entry.getValue()));
             }
 
-            for (Map.Entry<String, List<ServiceSerializable>> entry : FileIndexCaches.getSetDataCache(project, SERVICE_CONTAINER_INDEX, SERVICE_CONTAINER_INDEX_NAMES, ServicesDefinitionStubIndex.KEY, ServiceIndexUtil.getRestrictedFileTypesScope(project)).entrySet()) {
+            Collection<ServiceInterface> aliases = new ArrayList<>();
+            Collection<ServiceInterface> decorated = new ArrayList<>();
+
+            // Extension points
+            collectExtensionServices(project).forEach(service -> services.put(service.getId(), new ContainerService(service, null)));
+
+            for (Map.Entry<String, List<ServiceSerializable>> entry : FileIndexCaches.getSetDataCache(project, SERVICE_CONTAINER_INDEX, SERVICE_CONTAINER_INDEX_NAMES, ServicesDefinitionStubIndex.KEY, ServiceIndexUtil.getRestrictedFileTypesScope(project), SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES)).entrySet()) {
 
                 // dont work twice on service;
                 // @TODO: to need to optimize this to decorate as much service data as possible
                 String serviceName = entry.getKey();
 
                 // fake empty service, case which is not allowed by catch it
-                List<ServiceSerializable> services = entry.getValue();
-                if(services.size() == 0) {
-                    this.services.put(serviceName, new ContainerService(serviceName, null, true));
+                List<ServiceSerializable> serviceDefinitions = entry.getValue();
+                if(serviceDefinitions.size() == 0) {
+                    services.put(serviceName, new ContainerService(serviceName, null, true));
                     continue;
                 }
 
-                for(ServiceInterface service: services) {
+                for(ServiceInterface service: serviceDefinitions) {
                     String classValue = service.getClassName();
 
                     // duplicate services
-                    if(this.services.containsKey(serviceName)) {
+                    if(services.containsKey(serviceName)) {
                         if(classValue == null) {
                             continue;
                         }
 
-                        String compiledClassName = this.services.get(serviceName).getClassName();
+                        String compiledClassName = services.get(serviceName).getClassName();
                         if(classValue.equalsIgnoreCase(compiledClassName)) {
                             continue;
                         }
 
-                        String resolvedClassValue = getParameterCollector().resolve(classValue);
+                        String resolvedClassValue = parameterCollector.resolve(classValue);
                         if(resolvedClassValue != null && !StringUtils.isBlank(classValue) && !resolvedClassValue.equalsIgnoreCase(compiledClassName)) {
-                            this.services.get(serviceName).addClassName(resolvedClassValue);
+                            services.get(serviceName).addClassName(resolvedClassValue);
                         }
 
                         continue;
@@ -235,47 +369,47 @@ public class ContainerCollectionResolver {
 
                     // resolve class value, it can be null or a parameter
                     if(!StringUtils.isBlank(classValue)) {
-                        classValue = getParameterCollector().resolve(classValue);
+                        classValue = parameterCollector.resolve(classValue);
                     }
 
                     // @TODO: legacy bridge; replace this with ServiceInterface
-                    this.services.put(serviceName, new ContainerService(service, classValue));
+                    services.put(serviceName, new ContainerService(service, classValue));
                 }
             }
 
             // replace alias with main service
             if(aliases.size() > 0) {
-                collectAliases(aliases);
+                collectAliases(services, aliases);
             }
 
             if(decorated.size() > 0) {
-                collectDecorated(decorated);
+                collectDecorated(services, decorated);
             }
 
-            return this.services;
+            return new ServiceModel(services, parameterCollector);
         }
 
-        private void collectAliases(@NotNull Collection<ServiceInterface> aliases) {
+        private static void collectAliases(@NotNull Map<String, ContainerService> services, @NotNull Collection<ServiceInterface> aliases) {
             for (ServiceInterface service : aliases) {
 
                 // double check alias name
                 String alias = service.getAlias();
-                if(alias == null || StringUtils.isBlank(alias) || !this.services.containsKey(alias)) {
+                if(alias == null || StringUtils.isBlank(alias) || !services.containsKey(alias)) {
                     continue;
                 }
 
-                this.services.put(service.getId(), this.services.get(alias));
+                services.put(service.getId(), services.get(alias));
             }
         }
 
-        private void collectDecorated(@NotNull Collection<ServiceInterface> decorated) {
+        private static void collectDecorated(@NotNull Map<String, ContainerService> services, @NotNull Collection<ServiceInterface> decorated) {
             for (ServiceInterface service : decorated) {
                 String decorationInnerName = service.getDecorationInnerName();
                 if(StringUtils.isBlank(decorationInnerName)) {
                     decorationInnerName = service.getId() + ".inner";
                 }
 
-                ContainerService origin = this.services.get(service.getDecorates());
+                ContainerService origin = services.get(service.getDecorates());
                 if(origin == null) {
                     continue;
                 }
@@ -284,63 +418,223 @@ public class ContainerCollectionResolver {
                 ContainerService value = new ContainerService(decorationInnerName, origin.getClassName(), origin.isWeak(), origin.isPrivate());
                 origin.getClassNames().forEach(value::addClassName);
 
-                this.services.put(decorationInnerName, value);
+                services.put(decorationInnerName, value);
             }
         }
 
-        public Set<String> convertClassNameToServices(@NotNull String fqnClassName) {
+        @NotNull
+        private static Set<String> createNames(@NotNull Project project) {
 
-            Set<String> serviceNames = new HashSet<>();
+            Set<String> serviceNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
 
-            fqnClassName = StringUtils.stripStart(fqnClassName, "\\");
+            // local filesystem
+            serviceNames.addAll(ServiceXmlParserFactory.getInstance(project, XmlServiceParser.class).getServiceMap().getMap().keySet());
 
-            for(Map.Entry<String, ContainerService> entry: this.getServices().entrySet()) {
-                for (String className : entry.getValue().getClassNames()) {
-                    String indexedClassName = this.getParameterCollector().resolve(className);
-                    if(indexedClassName != null) {
-                        if(StringUtils.stripStart(indexedClassName, "\\").equalsIgnoreCase(fqnClassName)) {
-                            serviceNames.add(entry.getKey());
-                        }
-                    }
-                }
-            }
+            // Extension points
+            collectExtensionIds(project, serviceNames);
+
+            // index
+            serviceNames.addAll(
+                FileIndexCaches.getIndexKeysCache(project, SERVICE_CONTAINER_INDEX_NAMES, ServicesDefinitionStubIndex.KEY, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES))
+            );
 
             return serviceNames;
         }
 
-        private Set<String> getNames() {
+        @NotNull
+        private static String normalizeClassName(@NotNull String className) {
+            return StringUtils.stripStart(className, "\\").toLowerCase();
+        }
+    }
 
-            Set<String> serviceNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    /**
+     * Extensions providing a tracker are only collected when it advances. All others have no dependency to listen on,
+     * so their output is collected again in an interval and the count advances if it is different to the last check.
+     * A registered or removed extension advances the count at once
+     */
+    private static class ExtensionModificationTracker implements ModificationTracker {
 
-            // local filesystem
-            serviceNames.addAll(ServiceXmlParserFactory.getInstance(project, XmlServiceParser.class).getServiceMap().getMap().keySet());
+        /**
+         * Collecting all extensions is as expensive as building the model, so dont do it on every cache hit
+         */
+        private static final long CHECK_INTERVAL = 10000;
 
-            // Extension points
-            ServiceCollectorParameter.Id parameter = null;
+        @NotNull
+        private final Project project;
+
+        @NotNull
+        private volatile Set<String> signature = Collections.emptySet();
+
+        @NotNull
+        private final AtomicLong modificationCount = new AtomicLong();
+
+        @NotNull
+        private final AtomicBoolean checking = new AtomicBoolean(false);
+
+        private volatile long lastCheck = 0;
+
+        ExtensionModificationTracker(@NotNull Project project) {
+            this.project = project;
+
+            Extensions.getRootArea().getExtensionPoint(EXTENSIONS).addExtensionPointListener(new ExtensionPointListener<fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector>() {
+                @Override
+                public void extensionAdded(@NotNull fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector extension, @Nullable PluginDescriptor pluginDescriptor) {
+                    extensionsChanged();
+                }
+
+                @Override
+                public void extensionRemoved(@NotNull fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector extension, @Nullable PluginDescriptor pluginDescriptor) {
+                    extensionsChanged();
+                }
+            }, project);
+        }
+
+        private void extensionsChanged() {
+            this.lastCheck = 0;
+            this.modificationCount.incrementAndGet();
+        }
+
+        @Override
+        public long getModificationCount() {
+            long count = this.modificationCount.get();
+
+            Collection<fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector> polled = new ArrayList<>();
             for (fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector collectorEx : EXTENSIONS.getExtensions()) {
-                if(parameter == null) {
-                    parameter = new ServiceCollectorParameter.Id(project, serviceNames);
+                ModificationTracker tracker = collectorEx.getModificationTracker(this.project);
+                if(tracker != null) {
+                    count += tracker.getModificationCount();
+                } else {
+                    polled.add(collectorEx);
                 }
+            }
 
-                collectorEx.collectIds(parameter);
+            if(polled.isEmpty() || System.currentTimeMillis() - this.lastCheck < CHECK_INTERVAL) {
+                return count;
             }
 
-            // index
-            serviceNames.addAll(
-                FileIndexCaches.getIndexKeysCache(project, SERVICE_CONTAINER_INDEX_NAMES, ServicesDefinitionStubIndex.KEY)
-            );
+            // a concurrent check is running; callers dont wait on it
+            if(!this.checking.compareAndSet(false, true)) {
+                return count;
+            }
 
-            return serviceNames;
+            try {
+                this.lastCheck = System.currentTimeMillis();
+
+                // order of collected items is not part of the output
+                Set<String> signature = new HashSet<>();
+                for (ServiceInterface service : ServiceCollector.collectExtensionServices(this.project, polled)) {
+                    signature.add(service.getId() + "\n" + service.getClassName() + "\n" + service.getAlias() + "\n" + service.getDecorates());
+                }
+
+                Collection<String> ids = new ArrayList<>();
+                ServiceCollector.collectExtensionIds(this.project, polled, ids);
+                for (String id : ids) {
+                    signature.add("id\n" + id);
+                }
+
+                if(!signature.equals(this.signature)) {
+                    this.signature = signature;
+                    this.modificationCount.incrementAndGet();
+                    count++;
+                }
+            } finally {
+                this.checking.set(false);
+            }
 
+            return count;
         }
+    }
+
+    /**
+     * Immutable service snapshot of a project, readers need no locking
+     */
+    private static class ServiceModel {
 
+        @NotNull
+        private final Map<String, ContainerService> services;
 
-        private ParameterCollector getParameterCollector() {
-            return (this.parameterCollector != null) ? this.parameterCollector : (this.parameterCollector = ParameterCollector.create(this.project));
+        @NotNull
+        private final NotNullLazyValue<Map<String, Set<String>>> classNameServices;
+
+        @NotNull
+        private final ParameterCollector parameterCollector;
+
+        /**
+         * Lower case service id to its class fqns
+         */
+        @NotNull
+        private final Map<String, Collection<String>> serviceClassNames = new ConcurrentHashMap<>();
+
+        private ServiceModel(@NotNull Map<String, ContainerService> services, @NotNull ParameterCollector parameterCollector) {
+            this.services = Collections.unmodifiableMap(services);
+            this.parameterCollector = parameterCollector;
+            this.classNameServices = new AtomicNotNullLazyValue<Map<String, Set<String>>>() {
+                @NotNull
+                @Override
+                protected Map<String, Set<String>> compute() {
+                    return createClassNameServices(services, parameterCollector);
+                }
+            };
         }
 
-        public static ServiceCollector create(@NotNull Project project) {
-            return new ContainerCollectionResolver.ServiceCollector(project);
+        @NotNull
+        private Map<String, ContainerService> getServices() {
+            return services;
+        }
+
+        @NotNull
+        private Map<String, Set<String>> getClassNameServices() {
+            return classNameServices.getValue();
+        }
+
+        @Nullable
+        private Collection<String> getServiceClassNames(@NotNull String serviceName) {
+            ContainerService service = services.get(serviceName);
+            if(service == null) {
+                return null;
+            }
+
+            return serviceClassNames.computeIfAbsent(serviceName.toLowerCase(), s -> createServiceClassNames(service, parameterCollector));
+        }
+
+        /**
+         * Class variants are resolved and deduplicated, so every class is only one PhpIndex lookup:
+         * "DateTime", "\DateTime" and "%date.class%" are the same
+         */
+        @NotNull
+        private static Collection<String> createServiceClassNames(@NotNull ContainerService service, @NotNull ParameterCollector parameterCollector) {
+            Map<String, String> classNames = new LinkedHashMap<>();
+
+            for (String className : service.getClassNames()) {
+                String resolvedClassName = parameterCollector.resolve(className);
+                if(StringUtils.isBlank(resolvedClassName)) {
+                    continue;
+                }
+
+                resolvedClassName = StringUtils.stripStart(resolvedClassName, "\\");
+                classNames.putIfAbsent(resolvedClassName.toLowerCase(), "\\" + resolvedClassName);
+            }
+
+            return Collections.unmodifiableCollection(new ArrayList<>(classNames.values()));
+        }
+
+        /**
+         * Resolved and normalized class name of every service pointing to its service ids
+         */
+        @NotNull
+        private static Map<String, Set<String>> createClassNameServices(@NotNull Map<String, ContainerService> services, @NotNull ParameterCollector parameterCollector) {
+            Map<String, Set<String>> classNameServices = new HashMap<>();
+
+            for(Map.Entry<String, ContainerService> entry: services.entrySet()) {
+                for (String className : entry.getValue().getClassNames()) {
+                    String indexedClassName = parameterCollector.resolve(className);
+                    if(indexedClassName != null) {
+                        classNameServices.computeIfAbsent(ServiceCollector.normalizeClassName(indexedClassName), s -> new HashSet<>()).add(entry.getKey());
+                    }
+                }
+            }
+
+            return classNameServices;
         }
     }
 
@@ -350,7 +644,7 @@ public class ContainerCollectionResolver {
         private Project project;
 
         @Nullable
-        private Map<String, ContainerParameter> containerParameterMap;
+        private ParameterModel parameterModel;
 
         public ParameterCollector(@NotNull Project project) {
             this.project = project;
@@ -367,38 +661,45 @@ public class ContainerCollectionResolver {
          */
         @Nullable
         private String resolve(@Nullable String paramOrClassName) {
+            return getParameterModel().resolve(paramOrClassName);
+        }
 
-            if(paramOrClassName == null) {
-                return null;
-            }
-
-            // strip "%" to get the parameter name
-            if(paramOrClassName.length() > 1 && paramOrClassName.startsWith("%") && paramOrClassName.endsWith("%")) {
-
-                paramOrClassName = paramOrClassName.substring(1, paramOrClassName.length() - 1);
-
-                // parameter is always lower see #179
-                paramOrClassName = paramOrClassName.toLowerCase();
-
-                if(this.getParameters().containsKey(paramOrClassName)) {
-                    return getParameters().get(paramOrClassName).getValue();
-                }
+        private Map<String, ContainerParameter> getParameters() {
+            return getParameterModel().getParameters();
+        }
 
-                return null;
-            }
+        private Set<String> getNames() {
+            return getParameterModel().getParameters().keySet();
+        }
 
-            return paramOrClassName;
+        @NotNull
+        private ParameterModel getParameterModel() {
+            return (this.parameterModel != null) ? this.parameterModel : (this.parameterModel = getParameterModel(this.project));
         }
 
+        @NotNull
+        private static ParameterModel getParameterModel(@NotNull Project project) {
+            CachedValue<ParameterModel> cache = project.getUserData(PARAMETER_MODEL);
 
-        private Map<String, ContainerParameter> getParameters() {
+            if(cache == null) {
+                cache = CachedValuesManager.getManager(project).createCachedValue(() -> CachedValueProvider.Result.create(
+                    new ParameterModel(createParameters(project)),
+                    ServiceXmlParserFactory.getModificationTracker(project),
+                    SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES)
+                ), false);
 
-            if(this.containerParameterMap != null) {
-                return this.containerParameterMap;
+                project.putUserData(PARAMETER_MODEL, cache);
             }
 
-            this.containerParameterMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            return cache.getValue();
+        }
 
+        /**
+         * Sources: compiled container files including extensions, the parameter index and "setParameter" calls
+         */
+        @NotNull
+        private static Map<String, ContainerParameter> createParameters(@NotNull Project project) {
+            Map<String, ContainerParameter> containerParameterMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
             // local filesystem
             for(Map.Entry<String, String> Entry: ServiceXmlParserFactory.getInstance(project, ParameterServiceParser.class).getParameterMap().entrySet()) {
@@ -406,13 +707,13 @@ public class ContainerCollectionResolver {
                 // user input here; secure nullable values
                 String key = Entry.getKey();
                 if(key != null) {
-                    this.containerParameterMap.put(key, new ContainerParameter(key, Entry.getValue()));
+                    containerParameterMap.put(key, new ContainerParameter(key, Entry.getValue()));
                 }
 
             }
 
             // index
-            for (Map.Entry<String, List<String>> entry : FileIndexCaches.getStringDataCache(project, SERVICE_PARAMETER_INDEX, SERVICE_PARAMETER_INDEX_NAMES, ContainerParameterStubIndex.KEY, ServiceIndexUtil.getRestrictedFileTypesScope(project)).entrySet()) {
+            for (Map.Entry<String, List<String>> entry : FileIndexCaches.getStringDataCache(project, SERVICE_PARAMETER_INDEX, SERVICE_PARAMETER_INDEX_NAMES, ContainerParameterStubIndex.KEY, ServiceIndexUtil.getRestrictedFileTypesScope(project), SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES)).entrySet()) {
                 String parameterName = entry.getKey();
                 // just for secure
                 if(parameterName == null) {
@@ -420,8 +721,8 @@ public class ContainerCollectionResolver {
                 }
 
                 // indexes is weak stuff, dont overwrite compiled ones
-                if(!this.containerParameterMap.containsKey(parameterName)) {
-                    this.containerParameterMap.put(parameterName, new ContainerParameter(parameterName, entry.getValue(), true));
+                if(!containerParameterMap.containsKey(parameterName)) {
+                    containerParameterMap.put(parameterName, new ContainerParameter(parameterName, entry.getValue(), true));
                 }
             }
 
@@ -433,50 +734,180 @@ public class ContainerCollectionResolver {
                 }
 
                 for (String parameter : parameters) {
-                    if(this.containerParameterMap.containsKey(parameter)) {
+                    if(containerParameterMap.containsKey(parameter)) {
                         continue;
                     }
 
-                    this.containerParameterMap.put(parameter, new ContainerParameter(parameter, true));
+                    containerParameterMap.put(parameter, new ContainerParameter(parameter, true));
                 }
 
             }
 
+            return containerParameterMap;
+        }
+    }
+
+    /**
+     * Immutable parameter snapshot of a project; every resolved parameter is memoized until one of its sources changed
+     */
+    private static class ParameterModel {
 
+        /**
+         * Memoized value for unknown or unresolvable parameter, map values cant be null
+         */
+        private static final String UNRESOLVED = new String();
 
-            return this.containerParameterMap;
+        @NotNull
+        private final Map<String, ContainerParameter> parameters;
 
+        @NotNull
+        private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+        private ParameterModel(@NotNull Map<String, ContainerParameter> parameters) {
+            this.parameters = Collections.unmodifiableMap(parameters);
         }
 
-        private Set<String> getNames() {
+        @NotNull
+        private Map<String, ContainerParameter> getParameters() {
+            return parameters;
+        }
 
-            // use overall map if already generated
-            if(this.containerParameterMap != null) {
-                return this.containerParameterMap.keySet();
+        /**
+         * "%foo%" is resolved to its value, also nested: "%kernel.root_dir%/../foo"; unknown parameter returns null.
+         * Values with embedded parameter are resolved as far as possible, anything else is returned unchanged
+         */
+        @Nullable
+        private String resolve(@Nullable String paramOrClassName) {
+            if(paramOrClassName == null) {
+                return null;
             }
 
-            Set<String> parameterNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            // strip "%" to get the parameter name
+            if(isParameter(paramOrClassName)) {
+                return resolveParameter(paramOrClassName.substring(1, paramOrClassName.length() - 1), new Resolution());
+            }
 
-            // local filesystem
-            parameterNames.addAll(ServiceXmlParserFactory.getInstance(project, ParameterServiceParser.class).getParameterMap().keySet());
+            if(paramOrClassName.indexOf('%') < 0) {
+                return paramOrClassName;
+            }
 
-            // index
-            parameterNames.addAll(
-                FileIndexCaches.getIndexKeysCache(project, SERVICE_PARAMETER_INDEX_NAMES, ContainerParameterStubIndex.KEY)
-            );
+            return resolveValue(paramOrClassName, new Resolution());
+        }
 
-            // setParameter("foo") for ContainerBuilder
-            for (ContainerBuilderCall call : FileBasedIndexImpl.getInstance().getValues(ContainerBuilderStubIndex.KEY, "setParameter", GlobalSearchScope.allScope(project))) {
-                Collection<String> parameter = call.getParameter();
-                if(parameter != null) {
-                    parameterNames.addAll(parameter);
+        @Nullable
+        private String resolveParameter(@NotNull String parameterName, @NotNull Resolution resolution) {
+            // parameter is always lower see #179
+            parameterName = parameterName.toLowerCase();
+
+            String value = resolved.get(parameterName);
+            if(value == null) {
+                // cycle: "foo: %bar%", "bar: %foo%"
+                if(!resolution.visiting.add(parameterName)) {
+                    resolution.cycles++;
+                    return null;
+                }
+
+                int cycles = resolution.cycles;
+                value = computeParameter(parameterName, resolution);
+                resolution.visiting.remove(parameterName);
+
+                // a value which run into a cycle depends on the parameter asked first; never share it
+                if(cycles == resolution.cycles) {
+                    resolved.put(parameterName, value != null ? value : UNRESOLVED);
+                }
+            }
+
+            return value == UNRESOLVED ? null : value;
+        }
+
+        @Nullable
+        private String computeParameter(@NotNull String parameterName, @NotNull Resolution resolution) {
+            ContainerParameter parameter = parameters.get(parameterName);
+
+            // "env(json:FOO)" fallbacks to the default of "env(FOO)"
+            if(parameter == null && parameterName.startsWith("env(") && parameterName.endsWith(")")) {
+                String envName = parameterName.substring(4, parameterName.length() - 1);
+                parameter = parameters.get("env(" + envName.substring(envName.lastIndexOf(':') + 1) + ")");
+            }
+
+            if(parameter == null) {
+                return null;
+            }
+
+            String value = parameter.getValue();
+            if(value == null || value.indexOf('%') < 0) {
+                return value;
+            }
+
+            if(isParameter(value)) {
+                return resolveParameter(value.substring(1, value.length() - 1), resolution);
+            }
+
+            return resolveValue(value, resolution);
+        }
+
+        /**
+         * "%kernel.root_dir%/foo%%bar"; unknown parameter stay as they are, "%%" is an escaped "%"
+         */
+        @NotNull
+        private String resolveValue(@NotNull String value, @NotNull Resolution resolution) {
+            StringBuilder result = new StringBuilder(value.length());
+
+            int pos = 0;
+            while(pos < value.length()) {
+                int start = value.indexOf('%', pos);
+                if(start < 0) {
+                    break;
                 }
+
+                result.append(value, pos, start);
+
+                if(start + 1 < value.length() && value.charAt(start + 1) == '%') {
+                    result.append('%');
+                    pos = start + 2;
+                    continue;
+                }
+
+                int end = value.indexOf('%', start + 1);
+                if(end < 0) {
+                    // lone "%" is taken as it is with the rest of the value
+                    pos = start;
+                    break;
+                }
+
+                String name = value.substring(start + 1, end);
+                String parameterValue = isParameterName(name) ? resolveParameter(name, resolution) : null;
+
+                result.append(parameterValue != null ? parameterValue : value.substring(start, end + 1));
+                pos = end + 1;
             }
 
+            result.append(value, Math.min(pos, value.length()), value.length());
+
+            return result.toString();
+        }
+
+        /**
+         * "%foo%", but not "%foo%bar%"
+         */
+        private static boolean isParameter(@NotNull String value) {
+            return value.length() > 2 && value.startsWith("%") && value.endsWith("%") && value.indexOf('%', 1) == value.length() - 1;
+        }
 
-            return parameterNames;
+        private static boolean isParameterName(@NotNull String name) {
+            return name.length() > 0 && !name.contains(" ");
         }
 
+        /**
+         * State of a single resolve call: parameter on the current path and the number of cycles hit
+         */
+        private static class Resolution {
+
+            @NotNull
+            private final Set<String> visiting = new HashSet<>();
+
+            private int cycles = 0;
+        }
     }
 
 }
@@ -13,7 +13,6 @@ import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.CachedValue;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
-import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.xml.XmlFile;
 import com.intellij.util.indexing.FileBasedIndexImpl;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
@@ -170,7 +169,7 @@ public class ServiceIndexUtil {
 
         if (cache == null) {
             cache = CachedValuesManager.getManager(project).createCachedValue(() ->
-                CachedValueProvider.Result.create(getDecoratedServicesInner(project), PsiModificationTracker.MODIFICATION_COUNT)
+                CachedValueProvider.Result.create(getDecoratedServicesInner(project), ContainerCollectionResolver.getServiceDependencies(project))
             , false);
 
             project.putUserData(SERVICE_DECORATION_CACHE, cache);
@@ -1,31 +1,129 @@
 package fr.adrienbrault.idea.symfony2plugin.stubs;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.UserDataHolderEx;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.Processor;
 import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.indexing.ID;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class SymfonyProcessors {
 
+    /**
+     * Live keys of an index and tracker; shared by all callers of the index until the tracker of its domain advances
+     */
+    private static final Key<Map<Pair<ID<?, ?>, ModificationTracker>, CachedValue<Set<?>>>> LIVE_KEYS = new Key<>("SYMFONY_LIVE_INDEX_KEYS");
+
+    /**
+     * Drops keys without any value in project scope, eg of deleted, changed or excluded files;
+     * key iteration also visits such stale keys, so every key is checked on its values until the first hit
+     */
+    @NotNull
+    public static <K, V> Set<K> filterLiveKeys(@NotNull Project project, @NotNull ID<K, V> id, @NotNull Collection<K> keys) {
+        Set<K> liveKeys = new HashSet<>();
+        if(keys.isEmpty()) {
+            return liveKeys;
+        }
+
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+
+        for (K key : keys) {
+            // processing is stopped on first value, which is reported as "false"
+            if(!index.processValues(id, key, null, (file, value) -> false, scope)) {
+                liveKeys.add(key);
+            }
+        }
+
+        return liveKeys;
+    }
+
+    /**
+     * Index keys have no liveness info, so checking them costs one value lookup per key of the whole index;
+     * its done once per change of the tracker and shared by all callers of the index with this tracker
+     */
+    @NotNull
+    public static <K, V> Set<K> filterLiveKeys(@NotNull Project project, @NotNull ID<K, V> id, @NotNull Collection<K> keys, @NotNull ModificationTracker tracker) {
+        Set<K> liveKeys = new HashSet<>();
+        if(keys.isEmpty()) {
+            return liveKeys;
+        }
+
+        Set<K> indexLiveKeys = getLiveKeys(project, id, tracker);
+        for (K key : keys) {
+            if(indexLiveKeys.contains(key)) {
+                liveKeys.add(key);
+            }
+        }
+
+        return liveKeys;
+    }
+
+    @NotNull
+    private static <K, V> Set<K> getLiveKeys(@NotNull Project project, @NotNull ID<K, V> id, @NotNull ModificationTracker tracker) {
+        Map<Pair<ID<?, ?>, ModificationTracker>, CachedValue<Set<?>>> caches = project.getUserData(LIVE_KEYS);
+        if(caches == null) {
+            caches = new ConcurrentHashMap<>();
+            if(project instanceof UserDataHolderEx) {
+                caches = ((UserDataHolderEx) project).putUserDataIfAbsent(LIVE_KEYS, caches);
+            } else {
+                project.putUserData(LIVE_KEYS, caches);
+            }
+        }
+
+        CachedValue<Set<?>> cache = caches.computeIfAbsent(Pair.<ID<?, ?>, ModificationTracker>create(id, tracker), pair -> CachedValuesManager.getManager(project).createCachedValue(() -> {
+            Set<K> keys = new HashSet<>();
+            FileBasedIndex.getInstance().processAllKeys(id, key -> {
+                keys.add(key);
+                return true;
+            }, project);
+
+            return CachedValueProvider.Result.create(Collections.unmodifiableSet(filterLiveKeys(project, id, keys)), tracker);
+        }, false));
+
+        //noinspection unchecked
+        return (Set<K>) cache.getValue();
+    }
+
     public static class CollectProjectUniqueKeys implements Processor<String> {
 
         final Project project;
         final ID id;
 
+        @Nullable
+        final ModificationTracker tracker;
+
         final Set<String> stringSet;
 
         public CollectProjectUniqueKeys(Project project, ID id) {
+            this(project, id, null);
+        }
+
+        /**
+         * @param tracker domain of the index; liveness of its keys is cached until it advances
+         */
+        public CollectProjectUniqueKeys(Project project, ID id, @Nullable ModificationTracker tracker) {
             this.project = project;
             this.id = id;
+            this.tracker = tracker;
             this.stringSet = new HashSet<>();
         }
 
@@ -36,11 +134,7 @@ public class SymfonyProcessors {
         }
 
         public Set<String> getResult() {
-            return stringSet.stream()
-                .filter(
-                    s -> FileBasedIndex.getInstance().getContainingFiles(id, s, GlobalSearchScope.allScope(project)).size() > 0)
-                .collect(Collectors.toSet()
-            );
+            return tracker != null ? filterLiveKeys(project, id, stringSet, tracker) : filterLiveKeys(project, id, stringSet);
         }
 
     }
@@ -50,13 +144,24 @@ public class SymfonyProcessors {
         final Project project;
         final ID id;
 
+        @Nullable
+        final ModificationTracker tracker;
+
         final Set<String> stringSet;
         final Collection<String> strongKeys;
 
         public CollectProjectUniqueKeysStrong(Project project, ID id, Collection<String> strongKeys) {
+            this(project, id, strongKeys, null);
+        }
+
+        /**
+         * @param tracker domain of the index; liveness of its keys is cached until it advances
+         */
+        public CollectProjectUniqueKeysStrong(Project project, ID id, Collection<String> strongKeys, @Nullable ModificationTracker tracker) {
             this.project = project;
             this.id = id;
             this.strongKeys = strongKeys;
+            this.tracker = tracker;
             this.stringSet = new HashSet<>();
         }
 
@@ -69,12 +174,7 @@ public class SymfonyProcessors {
         }
 
         public Set<String> getResult() {
-            return stringSet.stream()
-                .filter(
-                    s -> FileBasedIndex.getInstance().getContainingFiles(id, s, GlobalSearchScope.allScope(project)).size() > 0
-                )
-                .collect(Collectors.toSet()
-            );
+            return tracker != null ? filterLiveKeys(project, id, stringSet, tracker) : filterLiveKeys(project, id, stringSet);
         }
 
     }
@@ -2,11 +2,12 @@ package fr.adrienbrault.idea.symfony2plugin.stubs.cache;
 
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.UserDataHolderEx;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.CachedValue;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
-import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.indexing.ID;
 import fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors;
@@ -16,91 +17,102 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * All FileBasedIndex are slow and cross project data, we need them every often
- * Cache values as long nothing globally change in our project.
+ * Cache values as long nothing changed in the domain of the given tracker; see SymfonyModificationTracker
+ *
+ * Up-to-date values are read without locking; an outdated value is computed by one thread per cache key,
+ * other threads of the same key wait for its result.
  *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class FileIndexCaches {
 
+    /**
+     * Compute lock per cache key; keys are static constants, so this stays small
+     */
+    private static final ConcurrentMap<Key, Object> LOCKS = new ConcurrentHashMap<>();
+
     /**
      * @param dataHolderKey Main data to cache
      * @param dataHolderNames Cache extracted name Set
+     * @param tracker dependency of both caches
      */
-    static public synchronized <T> Map<String, List<T>> getSetDataCache(@NotNull final Project project, @NotNull Key<CachedValue<Map<String, List<T>>>> dataHolderKey, final @NotNull Key<CachedValue<Set<String>>> dataHolderNames, @NotNull final ID<String, T> ID, @NotNull final GlobalSearchScope scope) {
-
-        CachedValue<Map<String, List<T>>> cache = project.getUserData(dataHolderKey);
-
-        if(cache == null) {
-            cache = CachedValuesManager.getManager(project).createCachedValue(() -> {
-                Map<String, List<T>> items = new HashMap<>();
+    static public <T> Map<String, List<T>> getSetDataCache(@NotNull final Project project, @NotNull Key<CachedValue<Map<String, List<T>>>> dataHolderKey, final @NotNull Key<CachedValue<Set<String>>> dataHolderNames, @NotNull final ID<String, T> ID, @NotNull final GlobalSearchScope scope, @NotNull final ModificationTracker tracker) {
+        return getCachedValue(project, dataHolderKey, () -> {
+            Map<String, List<T>> items = new HashMap<>();
 
-                final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+            final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
 
-                getIndexKeysCache(project, dataHolderNames, ID).stream().forEach(service ->
-                    items.put(service, fileBasedIndex.getValues(ID, service, scope))
-                );
+            getIndexKeysCache(project, dataHolderNames, ID, tracker).stream().forEach(service ->
+                items.put(service, fileBasedIndex.getValues(ID, service, scope))
+            );
 
-                return CachedValueProvider.Result.create(items, PsiModificationTracker.MODIFICATION_COUNT);
-            }, false);
-
-            project.putUserData(dataHolderKey, cache);
-        }
-
-        return cache.getValue();
+            return CachedValueProvider.Result.create(items, tracker);
+        });
     }
 
     /**
      * @param dataHolderKey Main data to cache
      * @param dataHolderNames Cache extracted name Set
+     * @param tracker dependency of both caches
      */
-    static public synchronized Map<String, List<String>> getStringDataCache(@NotNull final Project project, @NotNull Key<CachedValue<Map<String, List<String>>>> dataHolderKey, final @NotNull Key<CachedValue<Set<String>>> dataHolderNames, @NotNull final ID<String, String> ID, @NotNull final GlobalSearchScope scope) {
-
-        CachedValue<Map<String, List<String>>> cache = project.getUserData(dataHolderKey);
-        if(cache == null) {
-            cache = CachedValuesManager.getManager(project).createCachedValue(() -> {
-
-                Map<String, List<String>> strings = new HashMap<>();
-
-                final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
-                getIndexKeysCache(project, dataHolderNames, ID).stream().forEach(parameterName -> {
-                    // just for secure
-                    if(parameterName == null) {
-                        return;
-                    }
-
-                    strings.put(parameterName, fileBasedIndex.getValues(ID, parameterName, scope));
-                });
-
-                return CachedValueProvider.Result.create(strings, PsiModificationTracker.MODIFICATION_COUNT);
-            }, false);
-
-            project.putUserData(dataHolderKey, cache);
-        }
-
-        return cache.getValue();
+    static public Map<String, List<String>> getStringDataCache(@NotNull final Project project, @NotNull Key<CachedValue<Map<String, List<String>>>> dataHolderKey, final @NotNull Key<CachedValue<Set<String>>> dataHolderNames, @NotNull final ID<String, String> ID, @NotNull final GlobalSearchScope scope, @NotNull final ModificationTracker tracker) {
+        return getCachedValue(project, dataHolderKey, () -> {
+            Map<String, List<String>> strings = new HashMap<>();
+
+            final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+            getIndexKeysCache(project, dataHolderNames, ID, tracker).stream().forEach(parameterName -> {
+                // just for secure
+                if(parameterName == null) {
+                    return;
+                }
+
+                strings.put(parameterName, fileBasedIndex.getValues(ID, parameterName, scope));
+            });
+
+            return CachedValueProvider.Result.create(strings, tracker);
+        });
     }
 
     /**
      * There several methods that just need to check for names, as they also needed for value extraction, so cache them also
+     *
+     * The tracker is only used on first access of the key; callers sharing a key must use the same tracker
      */
-    static public synchronized Set<String> getIndexKeysCache(@NotNull final Project project, @NotNull Key<CachedValue<Set<String>>> dataHolderKey, @NotNull final ID<String, ?> ID) {
-
-        CachedValue<Set<String>> cache = project.getUserData(dataHolderKey);
+    static public Set<String> getIndexKeysCache(@NotNull final Project project, @NotNull Key<CachedValue<Set<String>>> dataHolderKey, @NotNull final ID<String, ?> ID, @NotNull final ModificationTracker tracker) {
+        return getCachedValue(project, dataHolderKey, () -> {
+            SymfonyProcessors.CollectProjectUniqueKeys projectUniqueKeys = new SymfonyProcessors.CollectProjectUniqueKeys(project, ID, tracker);
+            FileBasedIndex.getInstance().processAllKeys(ID, projectUniqueKeys, project);
+            return CachedValueProvider.Result.create(projectUniqueKeys.getResult(), tracker);
+        });
+    }
 
+    /**
+     * Warm path is lock free; only one thread per key computes an outdated value
+     */
+    private static <T> T getCachedValue(@NotNull Project project, @NotNull Key<CachedValue<T>> key, @NotNull CachedValueProvider<T> provider) {
+        CachedValue<T> cache = project.getUserData(key);
         if(cache == null) {
-            cache = CachedValuesManager.getManager(project).createCachedValue(() -> {
-                SymfonyProcessors.CollectProjectUniqueKeys projectUniqueKeys = new SymfonyProcessors.CollectProjectUniqueKeys(project, ID);
-                FileBasedIndex.getInstance().processAllKeys(ID, projectUniqueKeys, project);
-                return CachedValueProvider.Result.create(projectUniqueKeys.getResult(), PsiModificationTracker.MODIFICATION_COUNT);
-            }, false);
+            cache = CachedValuesManager.getManager(project).createCachedValue(provider, false);
+            if(project instanceof UserDataHolderEx) {
+                cache = ((UserDataHolderEx) project).putUserDataIfAbsent(key, cache);
+            } else {
+                project.putUserData(key, cache);
+            }
+        }
 
-            project.putUserData(dataHolderKey, cache);
+        if(cache.hasUpToDateValue()) {
+            return cache.getValue();
         }
 
-        return cache.getValue();
+        // waiting threads find the value of the computing one as up-to-date
+        synchronized (LOCKS.computeIfAbsent(key, k -> new Object())) {
+            return cache.getValue();
+        }
     }
 
 }
@@ -0,0 +1,303 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.cache;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.PathUtil;
+import com.jetbrains.php.lang.psi.elements.GroupStatement;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ContainerBuilderStubIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Domain trackers for cached values; a domain only advances if a file of its type or location changed.
+ *
+ * Changes inside a PHP method body only advance the domains which are reading method bodies,
+ * so typing code does not invalidate all caches, like "PsiModificationTracker.MODIFICATION_COUNT" does
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class SymfonyModificationTracker {
+
+    public enum Domain {
+        SERVICES, ROUTES, TEMPLATES, DOCTRINE, TWIG_EXTENSIONS
+    }
+
+    /**
+     * Twig_ExtensionInterface methods
+     */
+    private static final Set<String> TWIG_EXTENSION_METHODS = new HashSet<>(Arrays.asList(
+        "getFilters", "getFunctions", "getTests", "getOperators"
+    ));
+
+    /**
+     * EventSubscriberInterface and ConfigurationInterface methods
+     */
+    private static final Set<String> SERVICE_METHODS = new HashSet<>(Arrays.asList(
+        "getSubscribedEvents", "getConfigTreeBuilder"
+    ));
+
+    private static final Set<Domain> PHP_DOMAINS = Collections.unmodifiableSet(EnumSet.of(
+        Domain.SERVICES, Domain.ROUTES, Domain.TEMPLATES, Domain.DOCTRINE, Domain.TWIG_EXTENSIONS
+    ));
+
+    private static final Set<Domain> CONFIG_DOMAINS = Collections.unmodifiableSet(EnumSet.of(
+        Domain.SERVICES, Domain.ROUTES, Domain.TEMPLATES, Domain.DOCTRINE
+    ));
+
+    @NotNull
+    private final Map<Domain, SimpleModificationTracker> trackers = new EnumMap<>(Domain.class);
+
+    public SymfonyModificationTracker(@NotNull Project project) {
+        for (Domain domain : Domain.values()) {
+            trackers.put(domain, new SimpleModificationTracker());
+        }
+
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new MyPsiTreeChangeListener(), project);
+        project.getMessageBus().connect(project).subscribe(VirtualFileManager.VFS_CHANGES, new MyBulkFileListener());
+    }
+
+    @NotNull
+    public static ModificationTracker getTracker(@NotNull Project project, @NotNull Domain domain) {
+        return ServiceManager.getService(project, SymfonyModificationTracker.class).trackers.get(domain);
+    }
+
+    private void incModificationCount(@NotNull Collection<Domain> domains) {
+        for (Domain domain : domains) {
+            trackers.get(domain).incModificationCount();
+        }
+    }
+
+    /**
+     * Contract for PHP method bodies: a cache which reads a method body, directly or through a PHP index,
+     * must be reachable by this rule, else it is not invalidated on typing.
+     *
+     *  - TWIG_EXTENSIONS: Twig_ExtensionInterface getters
+     *  - SERVICES: EventSubscriberInterface and ConfigurationInterface getters, classes inside "DependencyInjection";
+     *    edits of ContainerBuilder calls collected by ContainerBuilderStubIndex are added by the psi listener
+     *
+     * @param path file path; only name and location are used
+     * @param structure file was created, deleted, moved or renamed
+     * @param methodName change is inside the body of this PHP method
+     */
+    @NotNull
+    public static Set<Domain> getDomains(@NotNull String path, boolean structure, @Nullable String methodName) {
+        String name = PathUtil.getFileName(path);
+        String extension = FileUtilRt.getExtension(name).toLowerCase();
+
+        Set<Domain> domains = EnumSet.noneOf(Domain.class);
+
+        if("php".equals(extension)) {
+            if(methodName != null) {
+                if(TWIG_EXTENSION_METHODS.contains(methodName)) {
+                    domains.add(Domain.TWIG_EXTENSIONS);
+                }
+
+                if(SERVICE_METHODS.contains(methodName) || path.contains("/DependencyInjection/")) {
+                    domains.add(Domain.SERVICES);
+                }
+
+                return domains;
+            }
+
+            domains.addAll(PHP_DOMAINS);
+        } else if("yml".equals(extension) || "yaml".equals(extension) || "xml".equals(extension)) {
+            domains.addAll(CONFIG_DOMAINS);
+        } else if("twig".equals(extension)) {
+            // template names; content is not cached
+            if(structure) {
+                domains.add(Domain.TEMPLATES);
+            }
+        } else if("ide-twig.json".equals(name)) {
+            domains.add(Domain.TEMPLATES);
+        } else if(name.startsWith(".env") || "env".equals(extension) || "dockerfile".equalsIgnoreCase(name)) {
+            // "%env(FOO)%" parameter
+            domains.add(Domain.SERVICES);
+        }
+
+        return domains;
+    }
+
+    /**
+     * Name of the PHP method which body holds the element; functions and closures can be configuration
+     * eg "config/routes.php", so they are not taken into account
+     */
+    @Nullable
+    private static String getMethodBodyScope(@Nullable PsiElement psiElement) {
+        if(psiElement == null || psiElement instanceof PsiFile) {
+            return null;
+        }
+
+        Method method = PsiTreeUtil.getParentOfType(psiElement, Method.class, false);
+        if(method == null) {
+            return null;
+        }
+
+        GroupStatement body = PsiTreeUtil.getChildOfType(method, GroupStatement.class);
+        if(body == null || !PsiTreeUtil.isAncestor(body, psiElement, false)) {
+            return null;
+        }
+
+        return method.getName();
+    }
+
+    private class MyPsiTreeChangeListener extends PsiTreeChangeAdapter {
+
+        @Override
+        public void childAdded(@NotNull PsiTreeChangeEvent event) {
+            onChange(event);
+        }
+
+        @Override
+        public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+            onChange(event);
+        }
+
+        @Override
+        public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+            onChange(event);
+        }
+
+        @Override
+        public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+            onChange(event);
+        }
+
+        @Override
+        public void childMoved(@NotNull PsiTreeChangeEvent event) {
+            onChange(event);
+        }
+
+        @Override
+        public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+            onChange(event);
+        }
+
+        private void onChange(@NotNull PsiTreeChangeEvent event) {
+            PsiFile psiFile = event.getFile();
+
+            // file or directory itself changed; structure is also visible on vfs
+            if(psiFile == null) {
+                PsiElement child = event.getChild();
+                if(child instanceof PsiFile) {
+                    onFileChange(((PsiFile) child).getVirtualFile(), true, null);
+                } else if(child instanceof PsiDirectory || event.getElement() instanceof PsiDirectory) {
+                    incModificationCount(trackers.keySet());
+                }
+
+                return;
+            }
+
+            VirtualFile virtualFile = psiFile.getOriginalFile().getVirtualFile();
+            if(virtualFile == null) {
+                return;
+            }
+
+            String methodName = getMethodBodyScope(event.getParent());
+
+            Set<Domain> domains = getDomains(virtualFile.getPath(), false, methodName);
+            if(methodName != null && !domains.contains(Domain.SERVICES) && isContainerBuilderChange(event)) {
+                domains.add(Domain.SERVICES);
+            }
+
+            incModificationCount(domains);
+        }
+
+        /**
+         * Method body holds a ContainerBuilder call of the index before or after the change, eg "setParameter"
+         */
+        private boolean isContainerBuilderChange(@NotNull PsiTreeChangeEvent event) {
+            return hasContainerBuilderCall(PsiTreeUtil.getParentOfType(event.getParent(), Method.class, false)) ||
+                hasContainerBuilderCall(event.getChild()) ||
+                hasContainerBuilderCall(event.getOldChild());
+        }
+
+        private boolean hasContainerBuilderCall(@Nullable PsiElement psiElement) {
+            if(psiElement == null) {
+                return false;
+            }
+
+            if(psiElement instanceof MethodReference) {
+                String name = ((MethodReference) psiElement).getName();
+                if(name != null && ContainerBuilderStubIndex.isIndexedMethod(name)) {
+                    return true;
+                }
+            }
+
+            for (MethodReference methodReference : PsiTreeUtil.findChildrenOfType(psiElement, MethodReference.class)) {
+                String name = methodReference.getName();
+                if(name != null && ContainerBuilderStubIndex.isIndexedMethod(name)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private void onFileChange(@Nullable VirtualFile virtualFile, boolean structure, @Nullable String methodName) {
+            if(virtualFile != null) {
+                incModificationCount(getDomains(virtualFile.getPath(), structure, methodName));
+            }
+        }
+    }
+
+    private class MyBulkFileListener implements BulkFileListener {
+
+        @Override
+        public void before(@NotNull List<? extends VFileEvent> events) {
+        }
+
+        @Override
+        public void after(@NotNull List<? extends VFileEvent> events) {
+            Set<Domain> domains = EnumSet.noneOf(Domain.class);
+
+            for (VFileEvent event : events) {
+                if(isDirectoryEvent(event)) {
+                    domains.addAll(trackers.keySet());
+                    break;
+                }
+
+                if(event instanceof VFileContentChangeEvent) {
+                    // ide edits and their save are already classified by the psi listener; only external changes
+                    if(event.isFromRefresh()) {
+                        domains.addAll(getDomains(event.getPath(), false, null));
+                    }
+                } else if(event instanceof VFilePropertyChangeEvent) {
+                    if(((VFilePropertyChangeEvent) event).isRename()) {
+                        domains.addAll(getDomains(((VFilePropertyChangeEvent) event).getOldPath(), true, null));
+                        domains.addAll(getDomains(event.getPath(), true, null));
+                    }
+                } else if(event instanceof VFileMoveEvent) {
+                    domains.addAll(getDomains(((VFileMoveEvent) event).getOldPath(), true, null));
+                    domains.addAll(getDomains(event.getPath(), true, null));
+                } else {
+                    // create, copy, delete
+                    domains.addAll(getDomains(event.getPath(), true, null));
+                }
+            }
+
+            incModificationCount(domains);
+        }
+
+        private boolean isDirectoryEvent(@NotNull VFileEvent event) {
+            if(event instanceof VFileCreateEvent) {
+                return ((VFileCreateEvent) event).isDirectory();
+            }
+
+            VirtualFile file = event.getFile();
+            return file != null && file.isDirectory();
+        }
+    }
+}
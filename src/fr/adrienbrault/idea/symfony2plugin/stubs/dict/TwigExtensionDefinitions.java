@@ -0,0 +1,66 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.dict;
+
+import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigExtension;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Filters, functions, tests and operators of one Twig extension class
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TwigExtensionDefinitions {
+
+    @NotNull
+    private final Map<String, TwigExtension> filters = new HashMap<>();
+
+    @NotNull
+    private final Map<String, TwigExtension> functions = new HashMap<>();
+
+    @NotNull
+    private final Map<String, TwigExtension> tests = new HashMap<>();
+
+    @NotNull
+    private final Map<String, TwigExtension> operators = new HashMap<>();
+
+    @NotNull
+    public Map<String, TwigExtension> getFilters() {
+        return filters;
+    }
+
+    @NotNull
+    public Map<String, TwigExtension> getFunctions() {
+        return functions;
+    }
+
+    @NotNull
+    public Map<String, TwigExtension> getTests() {
+        return tests;
+    }
+
+    @NotNull
+    public Map<String, TwigExtension> getOperators() {
+        return operators;
+    }
+
+    public boolean isEmpty() {
+        return filters.isEmpty() && functions.isEmpty() && tests.isEmpty() && operators.isEmpty();
+    }
+
+    @Override
+    public int hashCode() {
+        return filters.hashCode() ^ functions.hashCode() ^ tests.hashCode() ^ operators.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof TwigExtensionDefinitions &&
+            ((TwigExtensionDefinitions) obj).filters.equals(this.filters) &&
+            ((TwigExtensionDefinitions) obj).functions.equals(this.functions) &&
+            ((TwigExtensionDefinitions) obj).tests.equals(this.tests) &&
+            ((TwigExtensionDefinitions) obj).operators.equals(this.operators)
+        ;
+    }
+}
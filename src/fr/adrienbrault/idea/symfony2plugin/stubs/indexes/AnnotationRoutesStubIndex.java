@@ -23,7 +23,7 @@ import com.jetbrains.php.lang.psi.stubs.indexes.PhpConstantNameIndex;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.routing.RouteHelper;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.StubIndexedRoute;
-import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.StubIndexedRouteExternalizer;
 import fr.adrienbrault.idea.symfony2plugin.util.AnnotationBackportUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import gnu.trove.THashMap;
@@ -43,7 +43,7 @@ public class AnnotationRoutesStubIndex extends FileBasedIndexExtension<String, S
 
     public static final ID<String, StubIndexedRoute> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.annotation_routes");
     private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
-    private static ObjectStreamDataExternalizer<StubIndexedRoute> EXTERNALIZER = new ObjectStreamDataExternalizer<>();
+    private static DataExternalizer<StubIndexedRoute> EXTERNALIZER = StubIndexedRouteExternalizer.INSTANCE;
 
     @NotNull
     @Override
@@ -101,7 +101,7 @@ public class AnnotationRoutesStubIndex extends FileBasedIndexExtension<String, S
 
     @Override
     public int getVersion() {
-        return 10;
+        return 11;
     }
 
     @Nullable
@@ -17,7 +17,7 @@ import com.jetbrains.php.lang.psi.elements.*;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2InterfacesUtil;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.dict.ContainerBuilderCall;
-import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ContainerBuilderCallExternalizer;
 import gnu.trove.THashMap;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -34,7 +34,7 @@ public class ContainerBuilderStubIndex extends FileBasedIndexExtension<String, C
 
     public static final ID<String, ContainerBuilderCall> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.container_builder");
     private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
-    private final static ObjectStreamDataExternalizer<ContainerBuilderCall> EXTERNALIZER = new ObjectStreamDataExternalizer<>();
+    private final static DataExternalizer<ContainerBuilderCall> EXTERNALIZER = ContainerBuilderCallExternalizer.INSTANCE;
 
     private static int MAX_FILE_BYTE_SIZE = 2621440;
 
@@ -106,7 +106,14 @@ public class ContainerBuilderStubIndex extends FileBasedIndexExtension<String, C
 
     @Override
     public int getVersion() {
-        return 2;
+        return 3;
+    }
+
+    /**
+     * Method calls this index is collecting; an edit of such a call changes the index values
+     */
+    public static boolean isIndexedMethod(@NotNull String methodName) {
+        return METHODS.contains(methodName);
     }
 
     private static boolean isValidForIndex(FileContent inputData, PsiFile psiFile) {
@@ -0,0 +1,94 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes;
+
+import com.intellij.ide.highlighter.XmlFileType;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.DoctrineUtil;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModel;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelSerializable;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.DoctrineModelsExternalizer;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.yaml.YAMLFileType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table name with its owning model classes and manager; a file can map several models on one table
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class DoctrineMetadataTableStubIndex extends FileBasedIndexExtension<String, List<DoctrineModelSerializable>> {
+
+    public static final ID<String, List<DoctrineModelSerializable>> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.doctrine_metadata_table");
+    private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
+    private static DataExternalizer<List<DoctrineModelSerializable>> EXTERNALIZER = DoctrineModelsExternalizer.INSTANCE;
+
+    @NotNull
+    @Override
+    public ID<String, List<DoctrineModelSerializable>> getName() {
+        return KEY;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<DoctrineModelSerializable>, FileContent> getIndexer() {
+        return fileContent -> {
+            Map<String, List<DoctrineModelSerializable>> map = new THashMap<>();
+
+            PsiFile psiFile = fileContent.getPsiFile();
+            if(!Symfony2ProjectComponent.isEnabledForIndex(psiFile.getProject()) || !DoctrineMetadataFileStubIndex.isValidForIndex(fileContent, psiFile)) {
+                return map;
+            }
+
+            for (DoctrineModel model : DoctrineUtil.getClassTables(psiFile)) {
+                map.computeIfAbsent(model.getTable(), table -> new ArrayList<>()).add(model);
+            }
+
+            return map;
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return this.myKeyDescriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<DoctrineModelSerializable>> getValueExternalizer() {
+        return EXTERNALIZER;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return virtualFile -> {
+            FileType fileType = virtualFile.getFileType();
+            return
+                fileType == XmlFileType.INSTANCE ||
+                fileType == PhpFileType.INSTANCE ||
+                fileType == YAMLFileType.YML
+            ;
+        };
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+}
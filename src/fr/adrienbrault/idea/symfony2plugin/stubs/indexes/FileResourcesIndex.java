@@ -8,7 +8,7 @@ import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.FileResource;
-import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.FileResourceExternalizer;
 import fr.adrienbrault.idea.symfony2plugin.util.FileResourceVisitorUtil;
 import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
@@ -23,7 +23,7 @@ import java.util.Map;
 public class FileResourcesIndex extends FileBasedIndexExtension<String, FileResource> {
 
     private static int MAX_FILE_BYTE_SIZE = 1048576;
-    private static ObjectStreamDataExternalizer<FileResource> EXTERNALIZER = new ObjectStreamDataExternalizer<>();
+    private static DataExternalizer<FileResource> EXTERNALIZER = FileResourceExternalizer.INSTANCE;
 
     public static final ID<String, FileResource> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.file_resources");
     private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
@@ -79,7 +79,7 @@ public class FileResourcesIndex extends FileBasedIndexExtension<String, FileReso
 
     @Override
     public int getVersion() {
-        return 2;
+        return 3;
     }
 
     public static boolean isValidForIndex(FileContent inputData, PsiFile psiFile) {
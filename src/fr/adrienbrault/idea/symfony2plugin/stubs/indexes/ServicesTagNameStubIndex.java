@@ -15,15 +15,19 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.yaml.YAMLFileType;
 import org.jetbrains.yaml.psi.YAMLFile;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * Tag name with the ids of its tagged services in this file; the only index which extracts service tags
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
-public class ServicesTagStubIndex extends FileBasedIndexExtension<String, Set<String>> {
+public class ServicesTagNameStubIndex extends FileBasedIndexExtension<String, Set<String>> {
 
-    public static final ID<String, Set<String>> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.service_tags");
+    public static final ID<String, Set<String>> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.service_tag_names");
     private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
 
     @NotNull
@@ -43,12 +47,19 @@ public class ServicesTagStubIndex extends FileBasedIndexExtension<String, Set<St
                 return map;
             }
 
+            Map<String, Set<String>> serviceTags = new HashMap<>();
             if(psiFile instanceof YAMLFile) {
-                map.putAll(FormUtil.getTags((YAMLFile) psiFile));
+                serviceTags.putAll(FormUtil.getTags((YAMLFile) psiFile));
             }
 
             if(psiFile instanceof XmlFile) {
-                map.putAll(FormUtil.getTags((XmlFile) psiFile));
+                serviceTags.putAll(FormUtil.getTags((XmlFile) psiFile));
+            }
+
+            for (Map.Entry<String, Set<String>> entry : serviceTags.entrySet()) {
+                for (String tag : entry.getValue()) {
+                    map.computeIfAbsent(tag, s -> new HashSet<>()).add(entry.getKey());
+                }
             }
 
             return map;
@@ -86,7 +97,7 @@ public class ServicesTagStubIndex extends FileBasedIndexExtension<String, Set<St
 
     @Override
     public int getVersion() {
-        return 4;
+        return 1;
     }
 
 }
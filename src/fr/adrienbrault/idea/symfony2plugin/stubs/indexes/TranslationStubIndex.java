@@ -16,8 +16,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.yaml.YAMLFileType;
 import org.jetbrains.yaml.psi.YAMLFile;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.ByteArrayInputStream;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -112,14 +111,8 @@ public class TranslationStubIndex extends FileBasedIndexExtension<String, Set<St
                     return map;
                 }
 
-                InputStream inputStream;
-                try {
-                    inputStream = inputData.getFile().getInputStream();
-                } catch (IOException e) {
-                    return map;
-                }
-
-                Set<String> set = TranslationUtil.getXliffTranslations(inputStream);
+                // indexer already holds the content; dont read the file again
+                Set<String> set = TranslationUtil.getXliffTranslations(new ByteArrayInputStream(inputData.getContent()));
                 if(set.size() > 0) {
                     map.put(domainName, set);
                 }
@@ -174,7 +167,7 @@ public class TranslationStubIndex extends FileBasedIndexExtension<String, Set<St
 
     @Override
     public int getVersion() {
-        return 5;
+        return 6;
     }
 
 }
@@ -0,0 +1,107 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TwigExtensionDefinitions;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.TwigExtensionDefinitionsExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigExtensionParser;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Twig extension class FQN with its filters, functions, tests and operators; only extraction, the
+ * "Twig_ExtensionInterface" hierarchy is checked on query time
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TwigExtensionStubIndex extends FileBasedIndexExtension<String, TwigExtensionDefinitions> {
+
+    public static final ID<String, TwigExtensionDefinitions> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.twig_extension");
+    private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
+    private final static DataExternalizer<TwigExtensionDefinitions> EXTERNALIZER = TwigExtensionDefinitionsExternalizer.INSTANCE;
+
+    private static final String[] METHODS = new String[] {
+        "getFilters", "getFunctions", "getTests", "getOperators"
+    };
+
+    @NotNull
+    @Override
+    public DataIndexer<String, TwigExtensionDefinitions, FileContent> getIndexer() {
+        return inputData -> {
+            Map<String, TwigExtensionDefinitions> map = new THashMap<>();
+
+            // dont build psi for files without any extension method
+            if(!hasExtensionMethod(inputData.getContentAsText())) {
+                return map;
+            }
+
+            PsiFile psiFile = inputData.getPsiFile();
+            if(!(psiFile instanceof PhpFile) || !Symfony2ProjectComponent.isEnabledForIndex(psiFile.getProject())) {
+                return map;
+            }
+
+            for (PhpClass phpClass : PsiTreeUtil.findChildrenOfType(psiFile, PhpClass.class)) {
+                TwigExtensionDefinitions definitions = TwigExtensionParser.collectDefinitions(phpClass);
+                if(!definitions.isEmpty()) {
+                    map.put(phpClass.getFQN(), definitions);
+                }
+            }
+
+            return map;
+        };
+    }
+
+    @NotNull
+    @Override
+    public ID<String, TwigExtensionDefinitions> getName() {
+        return KEY;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return this.myKeyDescriptor;
+    }
+
+    @NotNull
+    public DataExternalizer<TwigExtensionDefinitions> getValueExternalizer() {
+        return EXTERNALIZER;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return virtualFile -> virtualFile.getFileType() == PhpFileType.INSTANCE;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    private static boolean hasExtensionMethod(@NotNull CharSequence content) {
+        for (String method : METHODS) {
+            if(StringUtil.contains(content, method)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.dict.ContainerBuilderCall;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import static fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ExternalizerUtil.*;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ContainerBuilderCallExternalizer implements DataExternalizer<ContainerBuilderCall> {
+
+    public static final ContainerBuilderCallExternalizer INSTANCE = new ContainerBuilderCallExternalizer();
+
+    private static final int SCOPE = 1;
+    private static final int NAME = 1 << 1;
+
+    @Override
+    public void save(@NotNull DataOutput out, ContainerBuilderCall value) throws IOException {
+        DataInputOutputUtil.writeINT(out, flag(value.getScope(), SCOPE) | flag(value.getName(), NAME));
+        writeNullableString(out, value.getScope());
+        writeNullableString(out, value.getName());
+
+        Collection<String> parameter = value.getParameter();
+        writeStrings(out, parameter != null ? parameter : Collections.emptyList());
+    }
+
+    @Override
+    public ContainerBuilderCall read(@NotNull DataInput in) throws IOException {
+        int flags = DataInputOutputUtil.readINT(in);
+
+        ContainerBuilderCall call = new ContainerBuilderCall();
+        call.setScope(readNullableString(in, flags, SCOPE));
+        call.setName(readNullableString(in, flags, NAME));
+
+        for(int size = DataInputOutputUtil.readINT(in); size > 0; size--) {
+            call.addParameter(readString(in));
+        }
+
+        return call;
+    }
+}
@@ -0,0 +1,40 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.DispatcherEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ExternalizerUtil.*;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class DispatcherEventExternalizer implements DataExternalizer<DispatcherEvent> {
+
+    public static final DispatcherEventExternalizer INSTANCE = new DispatcherEventExternalizer();
+
+    private static final int FQN = 1;
+    private static final int INSTANCE_CLASS = 1 << 1;
+
+    @Override
+    public void save(@NotNull DataOutput out, DispatcherEvent value) throws IOException {
+        DataInputOutputUtil.writeINT(out, flag(value.getFqn(), FQN) | flag(value.getInstance(), INSTANCE_CLASS));
+        writeNullableString(out, value.getFqn());
+        writeNullableString(out, value.getInstance());
+    }
+
+    @Override
+    public DispatcherEvent read(@NotNull DataInput in) throws IOException {
+        int flags = DataInputOutputUtil.readINT(in);
+
+        String fqn = readNullableString(in, flags, FQN);
+        String instance = readNullableString(in, flags, INSTANCE_CLASS);
+
+        return fqn != null ? new DispatcherEvent(fqn, instance) : new DispatcherEvent();
+    }
+}
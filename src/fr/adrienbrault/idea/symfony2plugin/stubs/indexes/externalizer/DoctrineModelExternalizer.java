@@ -0,0 +1,52 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModel;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelSerializable;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.dict.DoctrineManagerEnum;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ExternalizerUtil.*;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class DoctrineModelExternalizer implements DataExternalizer<DoctrineModelSerializable> {
+
+    public static final DoctrineModelExternalizer INSTANCE = new DoctrineModelExternalizer();
+
+    private static final int REPOSITORY_CLASS = 1;
+    private static final int TABLE = 1 << 1;
+    private static final int MANAGER = 1 << 2;
+
+    @Override
+    public void save(@NotNull DataOutput out, DoctrineModelSerializable value) throws IOException {
+        String table = null;
+        String manager = null;
+        if(value instanceof DoctrineModel) {
+            table = ((DoctrineModel) value).getTable();
+            manager = ((DoctrineModel) value).getManager() != null ? ((DoctrineModel) value).getManager().name() : null;
+        }
+
+        DataInputOutputUtil.writeINT(out, flag(value.getRepositoryClass(), REPOSITORY_CLASS) | flag(table, TABLE) | flag(manager, MANAGER));
+        writeString(out, value.getClassName());
+        writeNullableString(out, value.getRepositoryClass());
+        writeNullableString(out, table);
+        writeNullableString(out, manager);
+    }
+
+    @Override
+    public DoctrineModelSerializable read(@NotNull DataInput in) throws IOException {
+        int flags = DataInputOutputUtil.readINT(in);
+
+        return new DoctrineModel(readString(in))
+            .setRepositoryClass(readNullableString(in, flags, REPOSITORY_CLASS))
+            .setTable(readNullableString(in, flags, TABLE))
+            .setManager(DoctrineManagerEnum.getEnumFromString(readNullableString(in, flags, MANAGER)));
+    }
+}
@@ -0,0 +1,42 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All models of a file sharing one key, eg entities mapped on the same table
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class DoctrineModelsExternalizer implements DataExternalizer<List<DoctrineModelSerializable>> {
+
+    public static final DoctrineModelsExternalizer INSTANCE = new DoctrineModelsExternalizer();
+
+    @Override
+    public void save(@NotNull DataOutput out, List<DoctrineModelSerializable> value) throws IOException {
+        DataInputOutputUtil.writeINT(out, value.size());
+        for (DoctrineModelSerializable model : value) {
+            DoctrineModelExternalizer.INSTANCE.save(out, model);
+        }
+    }
+
+    @Override
+    public List<DoctrineModelSerializable> read(@NotNull DataInput in) throws IOException {
+        int size = DataInputOutputUtil.readINT(in);
+
+        List<DoctrineModelSerializable> models = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            models.add(DoctrineModelExternalizer.INSTANCE.read(in));
+        }
+
+        return models;
+    }
+}
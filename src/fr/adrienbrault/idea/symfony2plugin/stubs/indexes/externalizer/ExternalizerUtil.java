@@ -0,0 +1,62 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Shared primitives for the index value externalizers: varint sizes and enumerated strings
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ExternalizerUtil {
+
+    public static void writeString(@NotNull DataOutput out, @NotNull String value) throws IOException {
+        EnumeratorStringDescriptor.INSTANCE.save(out, value);
+    }
+
+    @NotNull
+    public static String readString(@NotNull DataInput in) throws IOException {
+        return EnumeratorStringDescriptor.INSTANCE.read(in);
+    }
+
+    /**
+     * Nullable value must be guarded by a flag bit of the owning value
+     */
+    public static void writeNullableString(@NotNull DataOutput out, @Nullable String value) throws IOException {
+        if(value != null) {
+            writeString(out, value);
+        }
+    }
+
+    @Nullable
+    public static String readNullableString(@NotNull DataInput in, int flags, int bit) throws IOException {
+        return (flags & bit) != 0 ? readString(in) : null;
+    }
+
+    public static int flag(@Nullable Object value, int bit) {
+        return value != null ? bit : 0;
+    }
+
+    public static void writeStrings(@NotNull DataOutput out, @NotNull Collection<String> values) throws IOException {
+        DataInputOutputUtil.writeINT(out, values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    @NotNull
+    public static <T extends Collection<String>> T readStrings(@NotNull DataInput in, @NotNull T values) throws IOException {
+        for(int size = DataInputOutputUtil.readINT(in); size > 0; size--) {
+            values.add(readString(in));
+        }
+
+        return values;
+    }
+}
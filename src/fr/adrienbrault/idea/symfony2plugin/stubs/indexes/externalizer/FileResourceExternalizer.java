@@ -0,0 +1,38 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.FileResource;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ExternalizerUtil.*;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class FileResourceExternalizer implements DataExternalizer<FileResource> {
+
+    public static final FileResourceExternalizer INSTANCE = new FileResourceExternalizer();
+
+    private static final int RESOURCE = 1;
+    private static final int PREFIX = 1 << 1;
+
+    @Override
+    public void save(@NotNull DataOutput out, FileResource value) throws IOException {
+        DataInputOutputUtil.writeINT(out, flag(value.getResource(), RESOURCE) | flag(value.getPrefix(), PREFIX));
+        writeNullableString(out, value.getResource());
+        writeNullableString(out, value.getPrefix());
+    }
+
+    @Override
+    public FileResource read(@NotNull DataInput in) throws IOException {
+        int flags = DataInputOutputUtil.readINT(in);
+
+        return new FileResource(readNullableString(in, flags, RESOURCE))
+            .setPrefix(readNullableString(in, flags, PREFIX));
+    }
+}
@@ -0,0 +1,103 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.SerializableService;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.ServiceSerializable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ExternalizerUtil.*;
+
+/**
+ * All optional properties are packed into one varint: which nullable values exists and the boolean values itself
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ServiceSerializableExternalizer implements DataExternalizer<ServiceSerializable> {
+
+    public static final ServiceSerializableExternalizer INSTANCE = new ServiceSerializableExternalizer();
+
+    private static final int CLASS = 1;
+    private static final int ALIAS = 1 << 1;
+    private static final int DECORATES = 1 << 2;
+    private static final int DECORATION_INNER_NAME = 1 << 3;
+    private static final int PARENT = 1 << 4;
+
+    // two bits for each "Boolean": [is set, value]
+    private static final int PUBLIC = 1 << 5;
+    private static final int LAZY = 1 << 7;
+    private static final int ABSTRACT = 1 << 9;
+    private static final int AUTOWIRE = 1 << 11;
+    private static final int DEPRECATED = 1 << 13;
+
+    @Override
+    public void save(@NotNull DataOutput out, ServiceSerializable value) throws IOException {
+        int flags = flag(value.getClassName(), CLASS) |
+            flag(value.getAlias(), ALIAS) |
+            flag(value.getDecorates(), DECORATES) |
+            flag(value.getDecorationInnerName(), DECORATION_INNER_NAME) |
+            flag(value.getParent(), PARENT);
+
+        if(value instanceof SerializableService) {
+            SerializableService service = (SerializableService) value;
+            flags |= booleanFlag(service.getIsPublic(), PUBLIC) |
+                booleanFlag(service.getIsLazy(), LAZY) |
+                booleanFlag(service.getIsAbstract(), ABSTRACT) |
+                booleanFlag(service.getIsAutowire(), AUTOWIRE) |
+                booleanFlag(service.getIsDeprecated(), DEPRECATED);
+        } else {
+            flags |= booleanFlag(value.isPublic(), PUBLIC) |
+                booleanFlag(value.isLazy(), LAZY) |
+                booleanFlag(value.isAbstract(), ABSTRACT) |
+                booleanFlag(value.isAutowire(), AUTOWIRE) |
+                booleanFlag(value.isDeprecated(), DEPRECATED);
+        }
+
+        DataInputOutputUtil.writeINT(out, flags);
+        writeString(out, value.getId());
+        writeNullableString(out, value.getClassName());
+        writeNullableString(out, value.getAlias());
+        writeNullableString(out, value.getDecorates());
+        writeNullableString(out, value.getDecorationInnerName());
+        writeNullableString(out, value.getParent());
+    }
+
+    @Override
+    public ServiceSerializable read(@NotNull DataInput in) throws IOException {
+        int flags = DataInputOutputUtil.readINT(in);
+
+        return new SerializableService(readString(in))
+            .setClassName(readNullableString(in, flags, CLASS))
+            .setAlias(readNullableString(in, flags, ALIAS))
+            .setDecorates(readNullableString(in, flags, DECORATES))
+            .setDecorationInnerName(readNullableString(in, flags, DECORATION_INNER_NAME))
+            .setParent(readNullableString(in, flags, PARENT))
+            .setIsPublic(readBoolean(flags, PUBLIC))
+            .setIsLazy(readBoolean(flags, LAZY))
+            .setIsAbstract(readBoolean(flags, ABSTRACT))
+            .setIsAutowire(readBoolean(flags, AUTOWIRE))
+            .setIsDeprecated(readBoolean(flags, DEPRECATED));
+    }
+
+    private static int booleanFlag(@Nullable Boolean value, int bit) {
+        if(value == null) {
+            return 0;
+        }
+
+        return value ? bit | bit << 1 : bit;
+    }
+
+    @Nullable
+    private static Boolean readBoolean(int flags, int bit) {
+        if((flags & bit) == 0) {
+            return null;
+        }
+
+        return (flags & bit << 1) != 0;
+    }
+}
@@ -0,0 +1,45 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.StubIndexedRoute;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+
+import static fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ExternalizerUtil.*;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class StubIndexedRouteExternalizer implements DataExternalizer<StubIndexedRoute> {
+
+    public static final StubIndexedRouteExternalizer INSTANCE = new StubIndexedRouteExternalizer();
+
+    private static final int CONTROLLER = 1;
+    private static final int PATH = 1 << 1;
+
+    @Override
+    public void save(@NotNull DataOutput out, StubIndexedRoute value) throws IOException {
+        DataInputOutputUtil.writeINT(out, flag(value.getController(), CONTROLLER) | flag(value.getPath(), PATH));
+        writeString(out, value.getName());
+        writeNullableString(out, value.getController());
+        writeNullableString(out, value.getPath());
+        writeStrings(out, value.getMethods());
+    }
+
+    @Override
+    public StubIndexedRoute read(@NotNull DataInput in) throws IOException {
+        int flags = DataInputOutputUtil.readINT(in);
+
+        StubIndexedRoute route = new StubIndexedRoute(readString(in));
+        route.setController(readNullableString(in, flags, CONTROLLER));
+        route.setPath(readNullableString(in, flags, PATH));
+        route.setMethods(readStrings(in, new HashSet<>()));
+
+        return route;
+    }
+}
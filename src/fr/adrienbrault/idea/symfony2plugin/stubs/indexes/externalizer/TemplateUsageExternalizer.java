@@ -0,0 +1,31 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TemplateUsage;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+
+import static fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ExternalizerUtil.*;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TemplateUsageExternalizer implements DataExternalizer<TemplateUsage> {
+
+    public static final TemplateUsageExternalizer INSTANCE = new TemplateUsageExternalizer();
+
+    @Override
+    public void save(@NotNull DataOutput out, TemplateUsage value) throws IOException {
+        writeString(out, value.getTemplate());
+        writeStrings(out, value.getScopes());
+    }
+
+    @Override
+    public TemplateUsage read(@NotNull DataInput in) throws IOException {
+        return new TemplateUsage(readString(in), readStrings(in, new HashSet<>()));
+    }
+}
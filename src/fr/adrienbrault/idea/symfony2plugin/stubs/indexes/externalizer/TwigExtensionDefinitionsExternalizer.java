@@ -0,0 +1,82 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TwigExtensionDefinitions;
+import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigExtension;
+import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigExtensionParser;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+import static fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ExternalizerUtil.*;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TwigExtensionDefinitionsExternalizer implements DataExternalizer<TwigExtensionDefinitions> {
+
+    public static final TwigExtensionDefinitionsExternalizer INSTANCE = new TwigExtensionDefinitionsExternalizer();
+
+    private static final int SIGNATURE = 1;
+
+    private static final TwigExtensionParser.TwigExtensionType[] TYPES = TwigExtensionParser.TwigExtensionType.values();
+
+    @Override
+    public void save(@NotNull DataOutput out, TwigExtensionDefinitions value) throws IOException {
+        saveExtensions(out, value.getFilters());
+        saveExtensions(out, value.getFunctions());
+        saveExtensions(out, value.getTests());
+        saveExtensions(out, value.getOperators());
+    }
+
+    @Override
+    public TwigExtensionDefinitions read(@NotNull DataInput in) throws IOException {
+        TwigExtensionDefinitions definitions = new TwigExtensionDefinitions();
+
+        readExtensions(in, definitions.getFilters());
+        readExtensions(in, definitions.getFunctions());
+        readExtensions(in, definitions.getTests());
+        readExtensions(in, definitions.getOperators());
+
+        return definitions;
+    }
+
+    private static void saveExtensions(@NotNull DataOutput out, @NotNull Map<String, TwigExtension> extensions) throws IOException {
+        DataInputOutputUtil.writeINT(out, extensions.size());
+
+        for (Map.Entry<String, TwigExtension> entry : extensions.entrySet()) {
+            TwigExtension extension = entry.getValue();
+
+            writeString(out, entry.getKey());
+            DataInputOutputUtil.writeINT(out, extension.getTwigExtensionType().ordinal());
+            DataInputOutputUtil.writeINT(out, flag(extension.getSignature(), SIGNATURE));
+            writeNullableString(out, extension.getSignature());
+
+            Map<String, String> options = extension.getOptions();
+            DataInputOutputUtil.writeINT(out, options.size());
+            for (Map.Entry<String, String> option : options.entrySet()) {
+                writeString(out, option.getKey());
+                writeString(out, option.getValue());
+            }
+        }
+    }
+
+    private static void readExtensions(@NotNull DataInput in, @NotNull Map<String, TwigExtension> extensions) throws IOException {
+        for(int size = DataInputOutputUtil.readINT(in); size > 0; size--) {
+            String name = readString(in);
+            TwigExtensionParser.TwigExtensionType type = TYPES[DataInputOutputUtil.readINT(in)];
+            String signature = readNullableString(in, DataInputOutputUtil.readINT(in), SIGNATURE);
+
+            TwigExtension extension = new TwigExtension(type, signature);
+            for(int options = DataInputOutputUtil.readINT(in); options > 0; options--) {
+                extension.putOption(readString(in), readString(in));
+            }
+
+            extensions.put(name, extension);
+        }
+    }
+}
@@ -16,13 +16,15 @@ public class IndexUtil {
             ContainerBuilderStubIndex.KEY,
             ContainerParameterStubIndex.KEY,
             DoctrineMetadataFileStubIndex.KEY,
+            DoctrineMetadataTableStubIndex.KEY,
             EventAnnotationStubIndex.KEY,
             FileResourcesIndex.KEY,
             PhpTwigTemplateUsageStubIndex.KEY,
             RoutesStubIndex.KEY,
             ServicesDefinitionStubIndex.KEY,
-            ServicesTagStubIndex.KEY,
+            ServicesTagNameStubIndex.KEY,
             TwigExtendsStubIndex.KEY,
+            TwigExtensionStubIndex.KEY,
             TwigIncludeStubIndex.KEY,
             TwigMacroFunctionStubIndex.KEY,
             TranslationStubIndex.KEY,
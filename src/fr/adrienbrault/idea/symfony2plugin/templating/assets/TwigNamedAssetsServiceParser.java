@@ -1,64 +1,113 @@
 package fr.adrienbrault.idea.symfony2plugin.templating.assets;
 
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
 import org.apache.commons.lang.StringUtils;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.InputStream;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * "/container/services/service[@id='assetic.asset_manager']//call[@method='addResource']//service[@class='Symfony\\Bundle\\AsseticBundle\\Factory\\Resource\\ConfigurationResource']//argument/argument[@key]"
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class TwigNamedAssetsServiceParser extends AbstractServiceParser {
 
     protected Map<String, String[]> namedAssets = new HashMap<>();
 
-    @Override
-    public String getXPathFilter() {
-        return "/container/services/service[@id='assetic.asset_manager']//call[@method='addResource']//service[@class='Symfony\\Bundle\\AsseticBundle\\Factory\\Resource\\ConfigurationResource']//argument/argument[@key]";
-    }
+    @Nullable
+    private ServiceContainerElement serviceScope;
 
-    public void parser(InputStream file) {
-        NodeList nodeList = this.parserer(file);
+    @Nullable
+    private ServiceContainerElement callScope;
 
-        if(nodeList == null) {
-            return;
-        }
+    @Nullable
+    private ServiceContainerElement resourceScope;
 
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
-            String key = node.getAttribute("key");
-            if(key != null && StringUtils.isNotBlank(key)) {
+    /**
+     * argument[@key]: the named asset itself
+     */
+    @Nullable
+    private ServiceContainerElement assetScope;
 
+    /**
+     * first nested argument of a named asset holding the files
+     */
+    @Nullable
+    private ServiceContainerElement filesScope;
 
-                Set<String> files = new HashSet<>();
-                NodeList argument1 = node.getElementsByTagName("argument");
-                if(argument1.getLength() > 1) {
+    private int assetArguments = 0;
 
-                    Element argument = (Element) argument1.item(0);
+    private final Set<String> files = new HashSet<>();
 
-                    NodeList firstChild = argument.getElementsByTagName("argument");
-                    for (int x = 0; x < firstChild.getLength(); x++) {
-                        String textContent = firstChild.item(x).getTextContent();
-                        if(StringUtils.isNotBlank(textContent)) {
-                            files.add(textContent);
-                        }
-                    }
+    @Override
+    public void startElement(@NotNull ServiceContainerElement element) {
+        if(serviceScope == null) {
+            if("assetic.asset_manager".equals(element.getAttribute("id")) && element.isPath("container", "services", "service")) {
+                serviceScope = element;
+            }
+        } else if(callScope == null) {
+            if("call".equals(element.getName()) && "addResource".equals(element.getAttribute("method"))) {
+                callScope = element;
+            }
+        } else if(resourceScope == null) {
+            if("service".equals(element.getName()) && "Symfony\\Bundle\\AsseticBundle\\Factory\\Resource\\ConfigurationResource".equals(element.getAttribute("class"))) {
+                resourceScope = element;
+            }
+        } else if("argument".equals(element.getName())) {
+            if(assetScope == null) {
+                ServiceContainerElement parent = element.getParent();
+                if(parent != null && parent != resourceScope && "argument".equals(parent.getName()) && StringUtils.isNotBlank(element.getAttribute("key"))) {
+                    assetScope = element;
+                    filesScope = null;
+                    assetArguments = 0;
+                    files.clear();
+                }
+            } else {
+                assetArguments++;
+                if(filesScope == null) {
+                    filesScope = element;
                 }
+            }
+        }
+    }
 
-                namedAssets.put(key, files.toArray(new String[files.size()]));
+    @Override
+    public void endElement(@NotNull ServiceContainerElement element) {
+        if(element == serviceScope) {
+            serviceScope = null;
+        } else if(element == callScope) {
+            callScope = null;
+        } else if(element == resourceScope) {
+            resourceScope = null;
+        } else if(element == assetScope) {
+            assetScope = null;
+            namedAssets.put(element.getAttribute("key"), assetArguments > 1 ? files.toArray(new String[files.size()]) : new String[0]);
+        } else if(assetScope != null && filesScope != null && element != filesScope && "argument".equals(element.getName()) && isInsideFilesScope(element)) {
+            String textContent = element.getText();
+            if(StringUtils.isNotBlank(textContent)) {
+                files.add(textContent);
+            }
+        }
+    }
 
+    private boolean isInsideFilesScope(@NotNull ServiceContainerElement element) {
+        for (ServiceContainerElement parent = element.getParent(); parent != null && parent != assetScope; parent = parent.getParent()) {
+            if(parent == filesScope) {
+                return true;
             }
         }
+
+        return false;
     }
 
     public Map<String, String[]> getNamedAssets() {
         return namedAssets;
     }
 
-}
\ No newline at end of file
+}
@@ -4,8 +4,10 @@ import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigExtensionParser;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -54,4 +56,23 @@ public class TwigExtension {
     public String getOption(String key) {
         return options.containsKey(key) ? options.get(key) : null;
     }
+
+    @NotNull
+    public Map<String, String> getOptions() {
+        return Collections.unmodifiableMap(options);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(twigExtensionType, signature, options);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof TwigExtension &&
+            ((TwigExtension) obj).twigExtensionType == this.twigExtensionType &&
+            Objects.equals(((TwigExtension) obj).signature, this.signature) &&
+            ((TwigExtension) obj).options.equals(this.options)
+        ;
+    }
 }
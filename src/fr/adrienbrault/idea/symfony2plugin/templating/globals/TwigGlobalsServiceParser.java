@@ -1,55 +1,82 @@
 package fr.adrienbrault.idea.symfony2plugin.templating.globals;
 
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * "/container/services/service[@id='twig']//call[@method='addGlobal']"
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class TwigGlobalsServiceParser extends AbstractServiceParser {
 
     protected Map<String, TwigGlobalVariable> twigGlobals = new ConcurrentHashMap<>();
 
+    @Nullable
+    private ServiceContainerElement serviceScope;
+
+    @Nullable
+    private ServiceContainerElement callScope;
+
+    /**
+     * All arguments of the call in document order; text is read on call end
+     */
+    private final List<ServiceContainerElement> arguments = new ArrayList<>();
+
     @Override
-    public String getXPathFilter() {
-        return "/container/services/service[@id='twig']//call[@method='addGlobal']";
+    public void startElement(@NotNull ServiceContainerElement element) {
+        if(serviceScope == null) {
+            if("twig".equals(element.getAttribute("id")) && element.isPath("container", "services", "service")) {
+                serviceScope = element;
+            }
+        } else if(callScope == null) {
+            if("call".equals(element.getName()) && "addGlobal".equals(element.getAttribute("method"))) {
+                callScope = element;
+                arguments.clear();
+            }
+        } else if("argument".equals(element.getName())) {
+            arguments.add(element);
+        }
     }
 
-    public void parser(InputStream file) {
-        NodeList nodeList = this.parserer(file);
-
-        if(nodeList == null) {
+    @Override
+    public void endElement(@NotNull ServiceContainerElement element) {
+        if(element == serviceScope) {
+            serviceScope = null;
             return;
         }
 
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
+        if(callScope == null) {
+            return;
+        }
 
-            NodeList arguments = node.getElementsByTagName("argument");
+        if(element == callScope) {
+            callScope = null;
 
-            if(arguments.getLength() == 2) {
-                String globalName = arguments.item(0).getTextContent();
+            if(arguments.size() == 2) {
+                String globalName = arguments.get(0).getText();
 
-                Element nodeValue = (Element) arguments.item(1);
+                ServiceContainerElement nodeValue = arguments.get(1);
                 if(nodeValue.hasAttribute("id")) {
                     this.twigGlobals.put(globalName, new TwigGlobalVariable(globalName, nodeValue.getAttribute("id"), TwigGlobalEnum.SERVICE));
                 } else {
-                    this.twigGlobals.put(globalName, new TwigGlobalVariable(globalName, arguments.item(1).getTextContent(), TwigGlobalEnum.TEXT));
+                    this.twigGlobals.put(globalName, new TwigGlobalVariable(globalName, nodeValue.getText(), TwigGlobalEnum.TEXT));
                 }
-
             }
 
+            arguments.clear();
         }
-
     }
 
     public Map<String, TwigGlobalVariable> getTwigGlobals() {
         return twigGlobals;
     }
 
-}
\ No newline at end of file
+}
@@ -9,10 +9,10 @@ import com.intellij.psi.PsiManager;
 import com.intellij.psi.util.CachedValue;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
-import com.intellij.psi.util.PsiModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
 import fr.adrienbrault.idea.symfony2plugin.extension.TwigNamespaceExtension;
 import fr.adrienbrault.idea.symfony2plugin.extension.TwigNamespaceExtensionParameter;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.yaml.psi.YAMLFile;
 
@@ -38,7 +38,7 @@ public class ConfigAddPathTwigNamespaces implements TwigNamespaceExtension {
         CachedValue<Collection<TwigPath>> cache = parameter.getProject().getUserData(CACHE);
         if (cache == null) {
             cache = CachedValuesManager.getManager(parameter.getProject()).createCachedValue(() ->
-                    CachedValueProvider.Result.create(getTwigPaths(parameter), PsiModificationTracker.MODIFICATION_COUNT),
+                    CachedValueProvider.Result.create(getTwigPaths(parameter), SymfonyModificationTracker.getTracker(parameter.getProject(), SymfonyModificationTracker.Domain.TEMPLATES)),
                 false
             );
 
@@ -13,9 +13,9 @@ import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.CachedValue;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
-import com.intellij.psi.util.PsiModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.extension.TwigNamespaceExtension;
 import fr.adrienbrault.idea.symfony2plugin.extension.TwigNamespaceExtensionParameter;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigConfigJson;
 import fr.adrienbrault.idea.symfony2plugin.templating.path.dict.TwigPathJson;
 import fr.adrienbrault.idea.symfony2plugin.util.VfsExUtil;
@@ -39,7 +39,7 @@ public class JsonFileIndexTwigNamespaces implements TwigNamespaceExtension {
         CachedValue<Collection<TwigPath>> cache = parameter.getProject().getUserData(CACHE);
         if (cache == null) {
             cache = CachedValuesManager.getManager(parameter.getProject()).createCachedValue(() ->
-                CachedValueProvider.Result.create(getNamespacesInner(parameter), PsiModificationTracker.MODIFICATION_COUNT),
+                CachedValueProvider.Result.create(getNamespacesInner(parameter), SymfonyModificationTracker.getTracker(parameter.getProject(), SymfonyModificationTracker.Domain.TEMPLATES)),
                 false
             );
 
@@ -6,6 +6,7 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.jetbrains.php.lang.PhpFileType;
 import com.jetbrains.twig.TwigFileType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,6 +32,9 @@ public class TwigPathContentIterator {
     @NotNull
     private Set<String> workedOn = new HashSet<>();
 
+    @Nullable
+    private VirtualFile virtualDirectoryFile;
+
     public TwigPathContentIterator(@NotNull Project project, @NotNull TwigPath twigPath) {
         this.twigPath = twigPath;
         this.project = project;
@@ -51,7 +55,11 @@ public class TwigPathContentIterator {
 
         workedOn.add(filePath);
 
-        VirtualFile virtualDirectoryFile = twigPath.getDirectory(this.project);
+        // resolve root directory once per iterator instance, not per file
+        if(this.virtualDirectoryFile == null) {
+            this.virtualDirectoryFile = twigPath.getDirectory(this.project);
+        }
+
         if(virtualDirectoryFile == null) {
             return true;
         }
@@ -0,0 +1,236 @@
+package fr.adrienbrault.idea.symfony2plugin.templating.path;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.twig.TwigFileType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Template files of every namespace root directory. A vfs event only drops the roots containing the changed path,
+ * so a new file in one bundle does not collect the files of all other roots again.
+ *
+ * Modification count advances if a root was dropped; template maps build on top can use it as dependency
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TwigPathFileCache implements ModificationTracker {
+
+    @NotNull
+    private final Project project;
+
+    /**
+     * Root directory path and namespace to its template files
+     */
+    @NotNull
+    private final Map<String, RootFiles> roots = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final AtomicLong modificationCount = new AtomicLong();
+
+    /**
+     * A configured root directory was not found; it can be created later on
+     */
+    private volatile boolean missingRoots = false;
+
+    @NotNull
+    private List<String> pathsSignature = Collections.emptyList();
+
+    private long pathsModificationCount = 0;
+
+    public TwigPathFileCache(@NotNull Project project) {
+        this.project = project;
+        project.getMessageBus().connect(project).subscribe(VirtualFileManager.VFS_CHANGES, new MyBulkFileListener());
+    }
+
+    @NotNull
+    public static TwigPathFileCache getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, TwigPathFileCache.class);
+    }
+
+    @Override
+    public long getModificationCount() {
+        return this.modificationCount.get();
+    }
+
+    /**
+     * Advances every time the given namespace roots are different to the ones of the previous call
+     */
+    public synchronized long getPathsModificationCount(@NotNull Collection<TwigPath> twigPaths) {
+        List<String> signature = new ArrayList<>();
+        for (TwigPath twigPath : twigPaths) {
+            signature.add(twigPath.getNamespaceType() + twigPath.getNamespace() + twigPath.getPath().replace("\\", "/") + twigPath.isEnabled());
+        }
+
+        if(!signature.equals(this.pathsSignature)) {
+            this.pathsSignature = signature;
+            this.pathsModificationCount++;
+        }
+
+        return this.pathsModificationCount;
+    }
+
+    /**
+     * Template names of the root directory with the file they are pointing to
+     */
+    @NotNull
+    public Map<String, VirtualFile> getFiles(@NotNull TwigPath twigPath, boolean withTwig, boolean withPhp) {
+        VirtualFile directory = twigPath.getDirectory(this.project);
+        if(directory == null) {
+            this.missingRoots = true;
+            return Collections.emptyMap();
+        }
+
+        String key = twigPath.getNamespaceType() + "\n" + twigPath.getNamespace() + "\n" + directory.getPath() + "\n" + withTwig + "\n" + withPhp;
+
+        RootFiles rootFiles = this.roots.get(key);
+        if(rootFiles != null) {
+            return rootFiles.files;
+        }
+
+        // dont store files which were collected while an event dropped this root
+        long modificationCount = this.modificationCount.get();
+
+        Map<String, VirtualFile> files = Collections.unmodifiableMap(collectFiles(twigPath, directory, withTwig, withPhp));
+        if(modificationCount == this.modificationCount.get()) {
+            this.roots.put(key, new RootFiles(directory.getPath(), files));
+        }
+
+        return files;
+    }
+
+    @NotNull
+    private Map<String, VirtualFile> collectFiles(@NotNull TwigPath twigPath, @NotNull VirtualFile directory, boolean withTwig, boolean withPhp) {
+        TwigPathContentIterator iterator = new TwigPathContentIterator(this.project, twigPath).setWithTwig(withTwig).setWithPhp(withPhp);
+
+        ProjectFileIndex fileIndex = ProjectRootManager.getInstance(this.project).getFileIndex();
+        if(fileIndex.isInContent(directory) || fileIndex.isInLibraryClasses(directory) || fileIndex.isInLibrarySource(directory)) {
+            Collection<FileType> fileTypes = new ArrayList<>();
+            if(withTwig) {
+                fileTypes.add(TwigFileType.INSTANCE);
+            }
+
+            if(withPhp) {
+                fileTypes.add(PhpFileType.INSTANCE);
+            }
+
+            // only files below the root; not all files of the project with its vendor directory
+            GlobalSearchScope scope = GlobalSearchScopesCore.directoryScope(this.project, directory, true);
+            for (FileType fileType : fileTypes) {
+                for (VirtualFile virtualFile : FileTypeIndex.getFiles(fileType, scope)) {
+                    iterator.processFile(virtualFile);
+                }
+            }
+        } else {
+            // directory is unknown for the index eg excluded; symlinks are not followed, so a walk cannot loop
+            VfsUtilCore.visitChildrenRecursively(directory, new VirtualFileVisitor(VirtualFileVisitor.NO_FOLLOW_SYMLINKS) {
+                @Override
+                public boolean visitFile(@NotNull VirtualFile virtualFile) {
+                    iterator.processFile(virtualFile);
+                    return true;
+                }
+            });
+        }
+
+        return iterator.getResults();
+    }
+
+    /**
+     * Drop all roots which are containing the path or are inside of it, eg a moved parent directory
+     */
+    private boolean dropRoots(@NotNull String path) {
+        boolean dropped = false;
+
+        for (Iterator<RootFiles> iterator = this.roots.values().iterator(); iterator.hasNext(); ) {
+            String directory = iterator.next().directory;
+            if(FileUtil.isAncestor(directory, path, false) || FileUtil.isAncestor(path, directory, false)) {
+                iterator.remove();
+                dropped = true;
+            }
+        }
+
+        return dropped;
+    }
+
+    private static class RootFiles {
+        @NotNull
+        private final String directory;
+
+        @NotNull
+        private final Map<String, VirtualFile> files;
+
+        RootFiles(@NotNull String directory, @NotNull Map<String, VirtualFile> files) {
+            this.directory = directory;
+            this.files = files;
+        }
+    }
+
+    private class MyBulkFileListener implements BulkFileListener {
+
+        @Override
+        public void before(@NotNull List<? extends VFileEvent> events) {
+        }
+
+        @Override
+        public void after(@NotNull List<? extends VFileEvent> events) {
+            boolean changed = false;
+
+            for (VFileEvent event : events) {
+                // template names only depend on the file structure
+                if(event instanceof VFileContentChangeEvent) {
+                    continue;
+                }
+
+                if(event instanceof VFilePropertyChangeEvent) {
+                    if(!((VFilePropertyChangeEvent) event).isRename()) {
+                        continue;
+                    }
+
+                    changed |= dropRoots(((VFilePropertyChangeEvent) event).getOldPath());
+                } else if(event instanceof VFileMoveEvent) {
+                    changed |= dropRoots(((VFileMoveEvent) event).getOldPath());
+                }
+
+                // create, copy, delete and target of move or rename
+                changed |= dropRoots(event.getPath());
+
+                // a missing root directory may now exist
+                if(missingRoots && isDirectoryEvent(event)) {
+                    missingRoots = false;
+                    changed = true;
+                }
+            }
+
+            if(changed) {
+                modificationCount.incrementAndGet();
+            }
+        }
+
+        private boolean isDirectoryEvent(@NotNull VFileEvent event) {
+            if(event instanceof VFileCreateEvent) {
+                return ((VFileCreateEvent) event).isDirectory();
+            }
+
+            VirtualFile file = event.getFile();
+            return file != null && file.isDirectory();
+        }
+    }
+}
@@ -1,47 +1,75 @@
 package fr.adrienbrault.idea.symfony2plugin.templating.path;
 
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
+ * "/container/services/service[@id='twig.loader']//call[@method='addPath']"
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class TwigPathServiceParser extends AbstractServiceParser {
 
     protected TwigPathIndex twigPathIndex = new TwigPathIndex();
 
+    @Nullable
+    private ServiceContainerElement serviceScope;
+
+    @Nullable
+    private ServiceContainerElement callScope;
+
+    /**
+     * All arguments of the call in document order; text is read on call end
+     */
+    private final List<ServiceContainerElement> arguments = new ArrayList<>();
+
     @Override
-    public String getXPathFilter() {
-        return "/container/services/service[@id='twig.loader']//call[@method='addPath']";
+    public void startElement(@NotNull ServiceContainerElement element) {
+        if(serviceScope == null) {
+            if("twig.loader".equals(element.getAttribute("id")) && element.isPath("container", "services", "service")) {
+                serviceScope = element;
+            }
+        } else if(callScope == null) {
+            if("call".equals(element.getName()) && "addPath".equals(element.getAttribute("method"))) {
+                callScope = element;
+                arguments.clear();
+            }
+        } else if("argument".equals(element.getName())) {
+            arguments.add(element);
+        }
     }
 
-    public void parser(InputStream file) {
-        NodeList nodeList = this.parserer(file);
-
-        if(nodeList == null) {
+    @Override
+    public void endElement(@NotNull ServiceContainerElement element) {
+        if(element == serviceScope) {
+            serviceScope = null;
             return;
         }
 
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
+        if(callScope == null) {
+            return;
+        }
 
-            NodeList arguments = node.getElementsByTagName("argument");
+        if(element == callScope) {
+            callScope = null;
 
-            if(arguments.getLength() == 1) {
-                this.twigPathIndex.addPath(new TwigPath(arguments.item(0).getTextContent()));
-            } else if(arguments.getLength() == 2) {
-                this.twigPathIndex.addPath(new TwigPath(arguments.item(0).getTextContent(), arguments.item(1).getTextContent()));
+            if(arguments.size() == 1) {
+                this.twigPathIndex.addPath(new TwigPath(arguments.get(0).getText()));
+            } else if(arguments.size() == 2) {
+                this.twigPathIndex.addPath(new TwigPath(arguments.get(0).getText(), arguments.get(1).getText()));
             }
 
+            arguments.clear();
         }
-
     }
 
     public TwigPathIndex getTwigPathIndex() {
         return twigPathIndex;
     }
 
-}
\ No newline at end of file
+}
@@ -3,16 +3,22 @@ package fr.adrienbrault.idea.symfony2plugin.templating.util;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.patterns.PlatformPatterns;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.*;
+import com.intellij.util.indexing.FileBasedIndex;
 import com.jetbrains.php.PhpIcons;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.parser.PhpElementTypes;
 import com.jetbrains.php.lang.psi.PhpPsiUtil;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.jetbrains.php.phpunit.PhpUnitUtil;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TwigExtensionDefinitions;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigExtensionStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigExtension;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
@@ -22,6 +28,7 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -93,7 +100,7 @@ public class TwigExtensionParser  {
             CachedValue<Map<String, TwigExtension>> cache = project.getUserData(FILTERS_CACHE);
             if(cache == null) {
                 cache = CachedValuesManager.getManager(project).createCachedValue(() ->
-                    CachedValueProvider.Result.create(parseFilters(getTwigExtensionClasses()), PsiModificationTracker.MODIFICATION_COUNT),
+                    CachedValueProvider.Result.create(collectExtensions(TwigExtensionDefinitions::getFilters), SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.TWIG_EXTENSIONS)),
                     false
                 );
 
@@ -107,7 +114,7 @@ public class TwigExtensionParser  {
             CachedValue<Map<String, TwigExtension>> cache = project.getUserData(FUNCTION_CACHE);
             if(cache == null) {
                 cache = CachedValuesManager.getManager(project).createCachedValue(() ->
-                    CachedValueProvider.Result.create(parseFunctions(getTwigExtensionClasses()), PsiModificationTracker.MODIFICATION_COUNT),
+                    CachedValueProvider.Result.create(collectExtensions(TwigExtensionDefinitions::getFunctions), SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.TWIG_EXTENSIONS)),
                     false
                 );
 
@@ -121,7 +128,7 @@ public class TwigExtensionParser  {
             CachedValue<Map<String, TwigExtension>> cache = project.getUserData(TEST_CACHE);
             if(cache == null) {
                 cache = CachedValuesManager.getManager(project).createCachedValue(() ->
-                    CachedValueProvider.Result.create(parseTests(getTwigExtensionClasses()), PsiModificationTracker.MODIFICATION_COUNT),
+                    CachedValueProvider.Result.create(collectExtensions(TwigExtensionDefinitions::getTests), SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.TWIG_EXTENSIONS)),
                     false
                 );
 
@@ -135,7 +142,7 @@ public class TwigExtensionParser  {
             CachedValue<Map<String, TwigExtension>> cache = project.getUserData(OPERATORS_CACHE);
             if(cache == null) {
                 cache = CachedValuesManager.getManager(project).createCachedValue(() ->
-                    CachedValueProvider.Result.create(parseOperators(getTwigExtensionClasses()), PsiModificationTracker.MODIFICATION_COUNT),
+                    CachedValueProvider.Result.create(collectExtensions(TwigExtensionDefinitions::getOperators), SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.TWIG_EXTENSIONS)),
                     false
                 );
 
@@ -159,63 +166,58 @@ public class TwigExtensionParser  {
         return phpClasses;
     }
 
+    /**
+     * Extension classes are extracted on indexing, so only the index values of the classes are merged here
+     */
     @NotNull
-    private Map<String, TwigExtension> parseFilters(@NotNull Collection<PhpClass> phpClasses) {
+    private Map<String, TwigExtension> collectExtensions(@NotNull Function<TwigExtensionDefinitions, Map<String, TwigExtension>> elements) {
         Map<String, TwigExtension> extensions = new HashMap<>();
 
-        for(PhpClass phpClass : phpClasses) {
-            Method method = phpClass.findMethodByName("getFilters");
-            if(method != null) {
-                parseFilter(method, extensions);
+        for(PhpClass phpClass : getTwigExtensionClasses()) {
+            VirtualFile virtualFile = phpClass.getContainingFile().getVirtualFile();
+            if(virtualFile == null) {
+                continue;
             }
-        }
-
-        return extensions;
-    }
-
-    @NotNull
-    private Map<String, TwigExtension> parseFunctions(@NotNull Collection<PhpClass> phpClasses) {
-        Map<String, TwigExtension> extensions = new HashMap<>();
 
-        for(PhpClass phpClass : phpClasses) {
-            Method method = phpClass.findMethodByName("getFunctions");
-            if(method != null) {
-                parseFunctions(method, extensions);
+            for (TwigExtensionDefinitions definitions : FileBasedIndex.getInstance().getValues(TwigExtensionStubIndex.KEY, phpClass.getFQN(), GlobalSearchScope.fileScope(project, virtualFile))) {
+                extensions.putAll(elements.apply(definitions));
             }
         }
 
         return extensions;
     }
 
+    /**
+     * Index safe: no reference is resolved, so only the class methods and their string literals are visited
+     */
     @NotNull
-    private Map<String, TwigExtension> parseTests(@NotNull Collection<PhpClass> phpClasses) {
-        Map<String, TwigExtension> extensions = new HashMap<>();
+    public static TwigExtensionDefinitions collectDefinitions(@NotNull PhpClass phpClass) {
+        TwigExtensionDefinitions definitions = new TwigExtensionDefinitions();
 
-        for(PhpClass phpClass : phpClasses) {
-            Method method = phpClass.findMethodByName("getTests");
-            if(method != null) {
-                parseSimpleTest(method, extensions);
-            }
+        Method method = phpClass.findOwnMethodByName("getFilters");
+        if(method != null) {
+            parseFilter(method, definitions.getFilters());
         }
 
-        return extensions;
-    }
+        method = phpClass.findOwnMethodByName("getFunctions");
+        if(method != null) {
+            parseFunctions(method, definitions.getFunctions());
+        }
 
-    @NotNull
-    private Map<String, TwigExtension> parseOperators(@NotNull Collection<PhpClass> phpClasses) {
-        Map<String, TwigExtension> extensions = new HashMap<>();
+        method = phpClass.findOwnMethodByName("getTests");
+        if(method != null) {
+            parseSimpleTest(method, definitions.getTests());
+        }
 
-        for(PhpClass phpClass : phpClasses) {
-            Method method = phpClass.findMethodByName("getOperators");
-            if(method != null) {
-                parseOperators(method, extensions);
-            }
+        method = phpClass.findOwnMethodByName("getOperators");
+        if(method != null) {
+            parseOperators(method, definitions.getOperators());
         }
 
-        return extensions;
+        return definitions;
     }
 
-    private void parseFunctions(@NotNull Method method, @NotNull Map<String, TwigExtension> filters) {
+    private static void parseFunctions(@NotNull Method method, @NotNull Map<String, TwigExtension> filters) {
         final PhpClass containingClass = method.getContainingClass();
         if(containingClass == null) {
             return;
@@ -235,7 +237,7 @@ public class TwigExtensionParser  {
             if(arrayValues.size() > 1) {
                 PsiElement firstChild = arrayValues.get(0).getFirstChild();
                 if(firstChild instanceof Variable && "this".equals(((Variable) firstChild).getName())) {
-                    String methodName = PhpElementsUtil.getStringValue(arrayValues.get(1).getFirstChild());
+                    String methodName = getStringValue(arrayValues.get(1).getFirstChild());
                     if(StringUtils.isNotBlank(methodName)) {
                         PhpClass phpClass = method.getContainingClass();
                         if(phpClass != null) {
@@ -245,7 +247,7 @@ public class TwigExtensionParser  {
                 }
             }
         } else {
-            String funcTargetName = PhpElementsUtil.getStringValue(psiElement);
+            String funcTargetName = getStringValue(psiElement);
             if(funcTargetName != null) {
 
                 if(funcTargetName.contains("::")) {
@@ -263,7 +265,7 @@ public class TwigExtensionParser  {
         return null;
     }
 
-    private void parseFilter(@NotNull Method method, @NotNull Map<String, TwigExtension> filters) {
+    private static void parseFilter(@NotNull Method method, @NotNull Map<String, TwigExtension> filters) {
         final PhpClass containingClass = method.getContainingClass();
         if(containingClass == null) {
             return;
@@ -272,7 +274,7 @@ public class TwigExtensionParser  {
         method.acceptChildren(new TwigFilterVisitor(method, filters, containingClass));
     }
 
-    private void parseOperators(@NotNull Method method, @NotNull Map<String, TwigExtension> filters) {
+    private static void parseOperators(@NotNull Method method, @NotNull Map<String, TwigExtension> filters) {
         final PhpClass containingClass = method.getContainingClass();
         if(containingClass == null) {
             return;
@@ -311,7 +313,7 @@ public class TwigExtensionParser  {
                         if(arrayValue instanceof ArrayCreationExpression) {
                             for (ArrayHashElement arrayHashElement : PsiTreeUtil.findChildrenOfType(arrayValue, ArrayHashElement.class)) {
                                 PhpPsiElement key = arrayHashElement.getKey();
-                                String stringValue = PhpElementsUtil.getStringValue(key);
+                                String stringValue = getStringValue(key);
                                 if(stringValue != null && StringUtils.isNotBlank(stringValue)) {
                                     filters.put(stringValue, new TwigExtension(TwigExtensionType.OPERATOR));
                                 }
@@ -324,7 +326,7 @@ public class TwigExtensionParser  {
         }
     }
 
-    private void parseSimpleTest(@NotNull Method method, @NotNull Map<String, TwigExtension> filters) {
+    private static void parseSimpleTest(@NotNull Method method, @NotNull Map<String, TwigExtension> filters) {
         final PhpClass containingClass = method.getContainingClass();
         if(containingClass == null) {
             return;
@@ -405,10 +407,10 @@ public class TwigExtensionParser  {
         private void visitNewExpression(@NotNull NewExpression element) {
 
             // new \Twig_SimpleFunction('url', array($this, 'getUrl'), array('is_safe_callback' => array($this, 'isUrlGenerationSafe'))),
-            if(PhpElementsUtil.isNewExpressionPhpClassWithInstance(element, "Twig_SimpleFilter")) {
+            if(isNewExpressionOf(element, "Twig_SimpleFilter")) {
                 PsiElement[] psiElement = element.getParameters();
                 if(psiElement.length > 0) {
-                    String funcName = PhpElementsUtil.getStringValue(psiElement[0]);
+                    String funcName = getStringValue(psiElement[0]);
                     if(funcName != null && !funcName.contains("*")) {
 
                         String signature = null;
@@ -430,13 +432,13 @@ public class TwigExtensionParser  {
             }
 
             // array('shuffle' => new Twig_Filter_Function('twig_shuffle_filter'),)
-            if(PhpElementsUtil.isNewExpressionPhpClassWithInstance(element, "Twig_Filter_Function")) {
+            if(isNewExpressionOf(element, "Twig_Filter_Function")) {
                 PsiElement arrayValue = element.getParent();
                 if(arrayValue != null && arrayValue.getNode().getElementType() == PhpElementTypes.ARRAY_VALUE) {
                     PsiElement arrayHash = arrayValue.getParent();
                     if(arrayHash instanceof ArrayHashElement) {
                         PsiElement arrayKey = ((ArrayHashElement) arrayHash).getKey();
-                        String funcName = PhpElementsUtil.getStringValue(arrayKey);
+                        String funcName = getStringValue(arrayKey);
                         if(funcName != null && !funcName.contains("*")) {
 
                             PsiElement[] parameters = element.getParameters();
@@ -454,20 +456,20 @@ public class TwigExtensionParser  {
             }
 
             // return array('serialize'  => new \Twig_Filter_Method($this, 'serialize'), );
-            if(PhpElementsUtil.isNewExpressionPhpClassWithInstance(element, "Twig_Filter_Method")) {
+            if(isNewExpressionOf(element, "Twig_Filter_Method")) {
                 PsiElement arrayValue = element.getParent();
                 if(arrayValue != null && arrayValue.getNode().getElementType() == PhpElementTypes.ARRAY_VALUE) {
                     PsiElement arrayHash = arrayValue.getParent();
                     if(arrayHash instanceof ArrayHashElement) {
                         PsiElement arrayKey = ((ArrayHashElement) arrayHash).getKey();
-                        String funcName = PhpElementsUtil.getStringValue(arrayKey);
+                        String funcName = getStringValue(arrayKey);
                         if(funcName != null && funcName.matches("\\w+")) {
 
                             PsiElement[] parameters = element.getParameters();
                             String signature = null;
                             if(parameters.length > 1) {
                                 if(parameters[0] instanceof Variable && "this".equals(((Variable) parameters[0]).getName())) {
-                                    String methodName = PhpElementsUtil.getStringValue(parameters[1]);
+                                    String methodName = getStringValue(parameters[1]);
                                     if(methodName != null) {
                                         signature = String.format("#M#C\\%s.%s", containingClass.getPresentableFQN(), methodName);
                                     }
@@ -525,10 +527,10 @@ public class TwigExtensionParser  {
         private void visitNewExpression(@NotNull NewExpression element) {
 
             // new \Twig_SimpleFunction('url', array($this, 'getUrl'), array('is_safe_callback' => array($this, 'isUrlGenerationSafe'))),
-            if(PhpElementsUtil.isNewExpressionPhpClassWithInstance(element, "Twig_SimpleFunction")) {
+            if(isNewExpressionOf(element, "Twig_SimpleFunction")) {
                 PsiElement[] psiElement = element.getParameters();
                 if(psiElement.length > 0) {
-                    String funcName = PhpElementsUtil.getStringValue(psiElement[0]);
+                    String funcName = getStringValue(psiElement[0]);
                     if(funcName != null && !funcName.contains("*")) {
 
                         String signature = null;
@@ -549,20 +551,20 @@ public class TwigExtensionParser  {
             }
 
             //array('form_javascript' => new \Twig_Function_Method($this, 'renderJavascript', array('is_safe' => array('html'))),);
-            if(PhpElementsUtil.isNewExpressionPhpClassWithInstance(element, "Twig_Function_Method")) {
+            if(isNewExpressionOf(element, "Twig_Function_Method")) {
                 PsiElement arrayValue = element.getParent();
                 if(arrayValue != null && arrayValue.getNode().getElementType() == PhpElementTypes.ARRAY_VALUE) {
                     PsiElement arrayHash = arrayValue.getParent();
                     if(arrayHash instanceof ArrayHashElement) {
                         PsiElement arrayKey = ((ArrayHashElement) arrayHash).getKey();
-                        String funcName = PhpElementsUtil.getStringValue(arrayKey);
+                        String funcName = getStringValue(arrayKey);
                         if(funcName != null && !funcName.contains("*")) {
 
                             PsiElement[] parameters = element.getParameters();
                             String signature = null;
                             if(parameters.length > 1) {
                                 if(parameters[0] instanceof Variable && "this".equals(((Variable) parameters[0]).getName())) {
-                                    String methodName = PhpElementsUtil.getStringValue(parameters[1]);
+                                    String methodName = getStringValue(parameters[1]);
                                     if(methodName != null) {
                                         signature = String.format("#M#C\\%s.%s", containingClass.getPresentableFQN(), methodName);
                                     }
@@ -579,19 +581,19 @@ public class TwigExtensionParser  {
             }
 
             // array('form_help' => new \Twig_Function_Node('Symfony\Bridge\Twig\Node\SearchAndRenderBlockNode', array('is_safe' => array('html'))),)
-            if(PhpElementsUtil.isNewExpressionPhpClassWithInstance(element, "Twig_Function_Node")) {
+            if(isNewExpressionOf(element, "Twig_Function_Node")) {
                 PsiElement arrayValue = element.getParent();
                 if(arrayValue != null && arrayValue.getNode().getElementType() == PhpElementTypes.ARRAY_VALUE) {
                     PsiElement arrayHash = arrayValue.getParent();
                     if(arrayHash instanceof ArrayHashElement) {
                         PsiElement arrayKey = ((ArrayHashElement) arrayHash).getKey();
-                        String funcName = PhpElementsUtil.getStringValue(arrayKey);
+                        String funcName = getStringValue(arrayKey);
                         if(funcName != null && !funcName.contains("*")) {
 
                             PsiElement[] parameters = element.getParameters();
                             String signature = null;
                             if(parameters.length > 0) {
-                                String className = PhpElementsUtil.getStringValue(parameters[0]);
+                                String className = getStringValue(parameters[0]);
                                 if(className != null) {
                                     signature = String.format("#M#C\\%s.%s", StringUtils.stripStart(className, "\\"), "compile");
                                 }
@@ -628,10 +630,10 @@ public class TwigExtensionParser  {
         private void visitNewExpression(@NotNull NewExpression element) {
 
             // new Twig_SimpleTest('even', null, array('node_class' => 'Twig_Node_Expression_Test_Even')),
-            if(PhpElementsUtil.isNewExpressionPhpClassWithInstance(element, "Twig_SimpleTest")) {
+            if(isNewExpressionOf(element, "Twig_SimpleTest")) {
                 PsiElement[] psiElement = element.getParameters();
                 if(psiElement.length > 0) {
-                    String funcName = PhpElementsUtil.getStringValue(psiElement[0]);
+                    String funcName = getStringValue(psiElement[0]);
                     if(funcName != null && !funcName.contains("*")) {
                         PhpClass phpClass = method.getContainingClass();
 
@@ -660,6 +662,32 @@ public class TwigExtensionParser  {
         }
     }
 
+    /**
+     * Class reference name of the "new" expression; imports are resolved by the parser, class hierarchy is not visited
+     */
+    private static boolean isNewExpressionOf(@NotNull NewExpression newExpression, @NotNull String className) {
+        ClassReference classReference = newExpression.getClassReference();
+        if(classReference == null) {
+            return false;
+        }
+
+        String fqn = classReference.getFQN();
+        return fqn != null && StringUtils.stripStart(fqn, "\\").equalsIgnoreCase(className);
+    }
+
+    /**
+     * Only string literals; references are not resolvable on indexing
+     */
+    @Nullable
+    private static String getStringValue(@Nullable PsiElement psiElement) {
+        if(!(psiElement instanceof StringLiteralExpression)) {
+            return null;
+        }
+
+        String contents = ((StringLiteralExpression) psiElement).getContents();
+        return StringUtils.isNotEmpty(contents) ? contents : null;
+    }
+
     private static class PsiElementTypCondition implements Condition<PsiElement> {
         @Override
         public boolean value(PsiElement psiElement) {
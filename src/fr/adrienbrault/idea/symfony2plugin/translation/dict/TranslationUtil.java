@@ -2,7 +2,6 @@ package fr.adrienbrault.idea.symfony2plugin.translation.dict;
 
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
@@ -22,6 +21,7 @@ import fr.adrienbrault.idea.symfony2plugin.translation.collector.YamlTranslation
 import fr.adrienbrault.idea.symfony2plugin.translation.collector.YamlTranslationVistor;
 import fr.adrienbrault.idea.symfony2plugin.translation.parser.DomainMappings;
 import fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationStringMap;
+import fr.adrienbrault.idea.symfony2plugin.translation.parser.XliffTranslationParser;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceXmlParserFactory;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlKeyFinder;
@@ -32,16 +32,7 @@ import org.jetbrains.yaml.psi.YAMLDocument;
 import org.jetbrains.yaml.psi.YAMLFile;
 import org.jetbrains.yaml.psi.YAMLKeyValue;
 import org.jetbrains.yaml.psi.YAMLScalar;
-import org.w3c.dom.*;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
@@ -53,12 +44,6 @@ import java.util.stream.Collectors;
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class TranslationUtil {
-    private static final String[] XLIFF_XPATH = {
-        "//xliff/file/body/trans-unit/source",
-        "//xliff/file/group/unit/segment/source",
-        "//xliff/file/unit/segment/source"
-    };
-
     static public VirtualFile[] getDomainFilePsiElements(Project project, String domainName) {
 
         DomainMappings domainMappings = ServiceXmlParserFactory.getInstance(project, DomainMappings.class);
@@ -341,28 +326,19 @@ public class TranslationUtil {
     public static Set<String> getXliffTranslations(@NotNull InputStream content) {
         Set<String> set = new HashSet<>();
 
-        visitXliffTranslations(content, pair -> set.add(pair.getFirst()));
-
-        return set;
-    }
-
-    private static void visitXliffTranslations(@NotNull InputStream content, @NotNull Consumer<Pair<String, Node>> consumer) {
-        Document document;
-
-        try {
-            DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            document = documentBuilder.parse(content);
-        } catch (ParserConfigurationException | SAXException | IOException e) {
-            return;
-        }
+        XliffTranslationParser.parse(content, unit -> {
+            if(StringUtils.isNotBlank(unit.getSource())) {
+                set.add(unit.getSource());
+            }
 
-        if(document == null) {
-            return;
-        }
+            // <trans-unit id="1" resname="title.test">
+            String resname = unit.getResname();
+            if(resname != null && StringUtils.isNotBlank(resname)) {
+                set.add(resname);
+            }
+        });
 
-        for (String s : XLIFF_XPATH) {
-            visitNodes(s, document, consumer);
-        }
+        return set;
     }
 
     public static boolean isSupportedXlfFile(@NotNull PsiFile psiFile) {
@@ -428,11 +404,8 @@ public class TranslationUtil {
                 // visiting on file scope because we dont rely on xlf and xliff registered as XML file
                 // dont visit file twice
                 if(!visitedXlf.contains(virtualFile)) {
-                    try {
-                        visitXliffTranslations(
-                            element.getContainingFile().getVirtualFile().getInputStream(),
-                            new MyXlfTranslationConsumer(placeholder, key)
-                        );
+                    try (InputStream inputStream = virtualFile.getInputStream()) {
+                        XliffTranslationParser.parse(inputStream, new MyXlfTranslationConsumer(placeholder, key));
                     } catch (IOException ignored) {
                     }
                 }
@@ -444,52 +417,13 @@ public class TranslationUtil {
         return placeholder;
     }
 
-    private static void visitNodes(@NotNull String xpath, @NotNull Document document, @NotNull Consumer<Pair<String, Node>> consumer) {
-        Object result;
-        try {
-            // @TODO: xpath should not use "file/body"
-            XPathExpression xPathExpr = XPathFactory.newInstance().newXPath().compile(xpath);
-            result = xPathExpr.evaluate(document, XPathConstants.NODESET);
-        } catch (XPathExpressionException e) {
-            return;
-        }
-
-        if(!(result instanceof NodeList)) {
-            return;
-        }
-
-        NodeList nodeList = (NodeList) result;
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
-            String textContent = node.getTextContent();
-            if(org.apache.commons.lang.StringUtils.isNotBlank(textContent)) {
-                consumer.consume(Pair.create(textContent, node));
-            }
-
-            // <trans-unit id="1" resname="title.test">
-            Node transUnitNode = node.getParentNode();
-            if(transUnitNode != null) {
-                NamedNodeMap attributes = transUnitNode.getAttributes();
-                if(attributes != null) {
-                    Node resname = attributes.getNamedItem("resname");
-                    if(resname != null) {
-                        String textContentResname = resname.getTextContent();
-                        if(textContentResname != null && StringUtils.isNotBlank(textContentResname)) {
-                            consumer.consume(Pair.create(textContentResname, node));
-                        }
-                    }
-                }
-            }
-        }
-    }
-
     /**
      * <trans-unit id="29">
      *  <source>foo</source>
      *  <target>foo</target>
      * </trans-unit>
      */
-    private static class MyXlfTranslationConsumer implements Consumer<Pair<String, Node>> {
+    private static class MyXlfTranslationConsumer implements Consumer<XliffTranslationParser.TranslationUnit> {
         @NotNull
         private final Set<String> placeholder;
 
@@ -502,32 +436,23 @@ public class TranslationUtil {
         }
 
         @Override
-        public void consume(Pair<String, Node> pair) {
-            if(!(pair.getSecond() instanceof Element) || !"source".equalsIgnoreCase(pair.getSecond().getNodeName())) {
+        public void consume(XliffTranslationParser.TranslationUnit unit) {
+            if(!key.equalsIgnoreCase(unit.getSource())) {
                 return;
             }
 
-            Element source = (Element) pair.getSecond();
-            if(!key.equalsIgnoreCase(source.getTextContent())) {
-                return;
-            }
-
-            visitNodeText(source);
+            visitText(unit.getSource());
 
-            Node transUnit = source.getParentNode();
-            if(transUnit instanceof Element) {
-                NodeList target = ((Element) transUnit).getElementsByTagName("target");
-                if(target.getLength() > 0) {
-                    visitNodeText(target.item(0));
-                }
+            String target = unit.getTarget();
+            if(target != null) {
+                visitText(target);
             }
         }
 
-        private void visitNodeText(@NotNull Node target) {
-            String nodeValue = target.getTextContent();
-            if(StringUtils.isNotBlank(nodeValue)) {
+        private void visitText(@NotNull String text) {
+            if(StringUtils.isNotBlank(text)) {
                 placeholder.addAll(
-                    TranslationUtil.getPlaceholderFromTranslation(nodeValue)
+                    TranslationUtil.getPlaceholderFromTranslation(text)
                 );
             }
         }
@@ -2,47 +2,75 @@ package fr.adrienbrault.idea.symfony2plugin.translation.parser;
 
 import fr.adrienbrault.idea.symfony2plugin.translation.dict.DomainFileMap;
 import fr.adrienbrault.idea.symfony2plugin.util.service.AbstractServiceParser;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
+ * "/container/services/service[@class="Symfony\Bundle\FrameworkBundle\Translation\Translator"]//call[@method="addResource"]"
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class DomainMappings extends AbstractServiceParser {
 
     protected List<DomainFileMap> domainFileMaps = new CopyOnWriteArrayList<>();
 
+    @Nullable
+    private ServiceContainerElement serviceScope;
+
+    @Nullable
+    private ServiceContainerElement callScope;
+
+    /**
+     * All arguments of the call in document order, like the DOM "getElementsByTagName"; text is read on call end
+     */
+    private final List<ServiceContainerElement> arguments = new ArrayList<>();
+
     @Override
-    public String getXPathFilter() {
-        return "/container/services/service[@class=\"Symfony\\Bundle\\FrameworkBundle\\Translation\\Translator\"]//call[@method=\"addResource\"]";
+    public void startElement(@NotNull ServiceContainerElement element) {
+        if(serviceScope == null) {
+            if("Symfony\\Bundle\\FrameworkBundle\\Translation\\Translator".equals(element.getAttribute("class")) && element.isPath("container", "services", "service")) {
+                serviceScope = element;
+            }
+        } else if(callScope == null) {
+            if("call".equals(element.getName()) && "addResource".equals(element.getAttribute("method"))) {
+                callScope = element;
+                arguments.clear();
+            }
+        } else if("argument".equals(element.getName())) {
+            arguments.add(element);
+        }
     }
 
-    public void parser(InputStream file) {
-
-        NodeList nodeList = this.parserer(file);
+    @Override
+    public void endElement(@NotNull ServiceContainerElement element) {
+        if(element == serviceScope) {
+            serviceScope = null;
+            return;
+        }
 
-        if(nodeList == null) {
+        if(callScope == null) {
             return;
         }
 
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
-            NodeList arguments = node.getElementsByTagName("argument");
+        if(element == callScope) {
+            callScope = null;
 
-            if(arguments.getLength() == 4) {
-                this.domainFileMaps.add(new DomainFileMap(arguments.item(0).getTextContent(), arguments.item(1).getTextContent(), arguments.item(2).getTextContent(), arguments.item(3).getTextContent()));
+            if(arguments.size() == 4) {
+                this.domainFileMaps.add(new DomainFileMap(arguments.get(0).getText(), arguments.get(1).getText(), arguments.get(2).getText(), arguments.get(3).getText()));
             }
-        }
 
+            arguments.clear();
+        }
     }
 
     public List<DomainFileMap> getDomainFileMaps() {
         return Collections.synchronizedList(domainFileMaps);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,227 @@
+package fr.adrienbrault.idea.symfony2plugin.translation.parser;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scans domains and message keys of a compiled "catalogue.*.php" without building a PSI tree;
+ * fallback catalogues of other locales are included like before
+ *
+ * $catalogue = new MessageCatalogue('de', array (
+ *   'validators' => array (
+ *     'This value should be false.' => 'Dieser Wert sollte false sein.',
+ *   ),
+ * ));
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TranslationCatalogueParser {
+
+    private static final Pattern MESSAGE_CATALOGUE = Pattern.compile("new\\s+\\\\?(?:[\\w\\\\]+\\\\)?MessageCatalogue\\s*\\(");
+
+    @NotNull
+    private final String content;
+
+    private int pos;
+
+    private TranslationCatalogueParser(@NotNull String content, int pos) {
+        this.content = content;
+        this.pos = pos;
+    }
+
+    /**
+     * @return domain with its message keys; null if no supported catalogue was found
+     */
+    @Nullable
+    public static Map<String, Set<String>> parse(@NotNull String content) {
+        Map<String, Set<String>> domains = new HashMap<>();
+        boolean found = false;
+
+        Matcher matcher = MESSAGE_CATALOGUE.matcher(content);
+
+        int offset = 0;
+        while(matcher.find(offset)) {
+            TranslationCatalogueParser parser = new TranslationCatalogueParser(content, matcher.end());
+
+            try {
+                // first parameter is the locale
+                parser.skipValue();
+                parser.expect(',');
+                parser.readDomains(domains);
+            } catch (UnsupportedFormatException e) {
+                return null;
+            }
+
+            offset = parser.pos;
+            found = true;
+        }
+
+        return found ? domains : null;
+    }
+
+    private void readDomains(@NotNull Map<String, Set<String>> domains) throws UnsupportedFormatException {
+        readEntries(domain -> {
+            skipWhitespace();
+            if(domain == null || !isArrayStart()) {
+                skipValue();
+                return;
+            }
+
+            Set<String> keys = domains.computeIfAbsent(domain, s -> new HashSet<>());
+            readEntries(key -> {
+                if(key != null) {
+                    keys.add(key);
+                }
+
+                skipValue();
+            });
+        });
+    }
+
+    /**
+     * Visits every "key => value" of the array at current position; consumer must consume the value.
+     * Array values without key are skipped
+     */
+    private void readEntries(@NotNull EntryConsumer consumer) throws UnsupportedFormatException {
+        char close = readArrayStart();
+
+        while(true) {
+            skipWhitespace();
+            if(peek() == close) {
+                pos++;
+                return;
+            }
+
+            String key = null;
+            boolean isString = peek() == '\'' || peek() == '"';
+
+            int start = pos;
+            skipValue();
+            int end = pos;
+
+            skipWhitespace();
+            if(content.startsWith("=>", pos)) {
+                pos += 2;
+
+                // keys are raw string contents, like StringLiteralExpression::getContents
+                if(isString) {
+                    key = content.substring(start + 1, end - 1);
+                }
+
+                consumer.consume(key);
+            }
+
+            skipWhitespace();
+            char c = peek();
+            if(c == ',') {
+                pos++;
+            } else if(c != close) {
+                throw new UnsupportedFormatException();
+            }
+        }
+    }
+
+    private void skipValue() throws UnsupportedFormatException {
+        skipWhitespace();
+
+        char c = peek();
+        if(c == '\'' || c == '"') {
+            skipString(c);
+            return;
+        }
+
+        if(isArrayStart()) {
+            readEntries(key -> skipValue());
+            return;
+        }
+
+        // NULL, true or numbers
+        int start = pos;
+        while(pos < content.length() && (Character.isLetterOrDigit(content.charAt(pos)) || "._-+".indexOf(content.charAt(pos)) >= 0)) {
+            pos++;
+        }
+
+        if(start == pos) {
+            throw new UnsupportedFormatException();
+        }
+    }
+
+    private void skipString(char quote) throws UnsupportedFormatException {
+        pos++;
+
+        while(pos < content.length()) {
+            char c = content.charAt(pos);
+            if(c == '\\') {
+                pos += 2;
+            } else if(c == quote) {
+                pos++;
+                return;
+            } else {
+                pos++;
+            }
+        }
+
+        throw new UnsupportedFormatException();
+    }
+
+    private boolean isArrayStart() {
+        return pos < content.length() && (content.charAt(pos) == '[' || content.regionMatches(true, pos, "array", 0, "array".length()));
+    }
+
+    /**
+     * @return closing char of the opened array
+     */
+    private char readArrayStart() throws UnsupportedFormatException {
+        skipWhitespace();
+
+        if(peek() == '[') {
+            pos++;
+            return ']';
+        }
+
+        if(isArrayStart()) {
+            pos += "array".length();
+            expect('(');
+            return ')';
+        }
+
+        throw new UnsupportedFormatException();
+    }
+
+    private void expect(char c) throws UnsupportedFormatException {
+        skipWhitespace();
+        if(peek() != c) {
+            throw new UnsupportedFormatException();
+        }
+
+        pos++;
+    }
+
+    private char peek() throws UnsupportedFormatException {
+        if(pos >= content.length()) {
+            throw new UnsupportedFormatException();
+        }
+
+        return content.charAt(pos);
+    }
+
+    private void skipWhitespace() {
+        while(pos < content.length() && Character.isWhitespace(content.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private interface EntryConsumer {
+        void consume(@Nullable String key) throws UnsupportedFormatException;
+    }
+
+    private static class UnsupportedFormatException extends Exception {
+    }
+}
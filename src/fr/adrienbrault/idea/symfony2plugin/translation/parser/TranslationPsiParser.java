@@ -11,10 +11,15 @@ import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.*;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -38,19 +43,55 @@ public class TranslationPsiParser {
             return this.translationStringMap;
         }
 
+        List<File> catalogues = new ArrayList<>();
         for (final File fileEntry : files) {
             if (!fileEntry.isDirectory()) {
                 String fileName = fileEntry.getName();
                 if(fileName.startsWith("catalogue") && fileName.endsWith("php")) {
-                    this.parse(fileEntry);
-                    this.translationStringMap.addFile(fileName, fileEntry.lastModified());
+                    catalogues.add(fileEntry);
                 }
             }
         }
 
+        // catalogues are independent of each other; merge is done afterwards in order
+        List<Map<String, Set<String>>> results = catalogues.parallelStream()
+            .map(TranslationPsiParser::scan)
+            .collect(Collectors.toList());
+
+        for (int i = 0; i < catalogues.size(); i++) {
+            File catalogue = catalogues.get(i);
+
+            Map<String, Set<String>> domains = results.get(i);
+            if(domains != null) {
+                Symfony2ProjectComponent.getLogger().info("update translations: " + catalogue.getPath());
+
+                for (Map.Entry<String, Set<String>> entry : domains.entrySet()) {
+                    this.translationStringMap.addDomain(entry.getKey());
+                    entry.getValue().forEach(key -> this.translationStringMap.addString(entry.getKey(), key));
+                }
+            } else {
+                // unknown format
+                this.parse(catalogue);
+            }
+
+            this.translationStringMap.addFile(catalogue.getName(), catalogue.lastModified());
+        }
+
         return this.translationStringMap;
     }
 
+    /**
+     * Scan catalogue without PSI
+     */
+    @Nullable
+    private static Map<String, Set<String>> scan(@NotNull File file) {
+        try {
+            return TranslationCatalogueParser.parse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     public void parse(File file) {
 
         VirtualFile virtualFile = VfsUtil.findFileByIoFile(file, true);
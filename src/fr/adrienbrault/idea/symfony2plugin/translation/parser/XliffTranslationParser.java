@@ -0,0 +1,169 @@
+package fr.adrienbrault.idea.symfony2plugin.translation.parser;
+
+import com.intellij.util.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single pass StAX reader for xliff translation units; replaces DOM building and XPath per file
+ *
+ * 1.2 xliff -> file -> body -> trans-unit -> source
+ * 2.0 xliff -> file -> group -> unit -> segment -> source
+ * 2.0 xliff -> file -> unit -> segment -> source
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class XliffTranslationParser {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private static final List<List<String>> UNIT_PATHS = Arrays.asList(
+        Arrays.asList("xliff", "file", "body", "trans-unit"),
+        Arrays.asList("xliff", "file", "group", "unit", "segment"),
+        Arrays.asList("xliff", "file", "unit", "segment")
+    );
+
+    /**
+     * Every unit with a "source" is visited; on invalid xml all units until the error are visited
+     */
+    public static void parse(@NotNull InputStream content, @NotNull Consumer<TranslationUnit> consumer) {
+        List<String> path = new ArrayList<>();
+
+        TranslationUnit unit = null;
+        int unitDepth = -1;
+
+        // text content of "source" or "target" including nested inline elements
+        StringBuilder text = null;
+        String textElement = null;
+
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(content);
+
+            while(reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        path.add(reader.getLocalName());
+
+                        if(unit == null && UNIT_PATHS.contains(path)) {
+                            unit = new TranslationUnit(reader.getAttributeValue(null, "id"), reader.getAttributeValue(null, "resname"));
+                            unitDepth = path.size();
+                        } else if(unit != null && text == null && path.size() == unitDepth + 1 && ("source".equals(reader.getLocalName()) || "target".equals(reader.getLocalName()))) {
+                            text = new StringBuilder();
+                            textElement = reader.getLocalName();
+                        }
+
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if(text != null) {
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if(text != null && path.size() == unitDepth + 1) {
+                            // first one wins, like DOM did on "getElementsByTagName"
+                            if("source".equals(textElement) && unit.source == null) {
+                                unit.source = text.toString();
+                            } else if("target".equals(textElement) && unit.target == null) {
+                                unit.target = text.toString();
+                            }
+
+                            text = null;
+                            textElement = null;
+                        } else if(unit != null && path.size() == unitDepth) {
+                            if(unit.source != null) {
+                                consumer.consume(unit);
+                            }
+
+                            unit = null;
+                            unitDepth = -1;
+                        }
+
+                        path.remove(path.size() - 1);
+
+                        break;
+                }
+            }
+        } catch (XMLStreamException ignored) {
+            // invalid xml; units until the error are already visited
+        } finally {
+            if(reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * <trans-unit id="1" resname="title.test">
+     *  <source>foo</source>
+     *  <target>foo</target>
+     * </trans-unit>
+     */
+    public static class TranslationUnit {
+
+        @Nullable
+        private final String id;
+
+        @Nullable
+        private final String resname;
+
+        @Nullable
+        private String source;
+
+        @Nullable
+        private String target;
+
+        private TranslationUnit(@Nullable String id, @Nullable String resname) {
+            this.id = id;
+            this.resname = resname;
+        }
+
+        @Nullable
+        public String getId() {
+            return id;
+        }
+
+        @Nullable
+        public String getResname() {
+            return resname;
+        }
+
+        /**
+         * Never null for visited units
+         */
+        @NotNull
+        public String getSource() {
+            return source != null ? source : "";
+        }
+
+        @Nullable
+        public String getTarget() {
+            return target;
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+
+        // translation files are indexed; never resolve anything external
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        return factory;
+    }
+}
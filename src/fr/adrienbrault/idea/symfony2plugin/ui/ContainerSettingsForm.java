@@ -16,6 +16,7 @@ import fr.adrienbrault.idea.symfony2plugin.dic.ContainerFile;
 import fr.adrienbrault.idea.symfony2plugin.ui.utils.UiSettingsUtil;
 import fr.adrienbrault.idea.symfony2plugin.ui.utils.dict.UiPathColumnInfo;
 import fr.adrienbrault.idea.symfony2plugin.ui.utils.dict.WebServerFileDialogExtensionCallback;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceXmlParserFactory;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.WebDeploymentUtil;
 import icons.WebDeploymentIcons;
 import org.jetbrains.annotations.Nls;
@@ -171,6 +172,8 @@ public class ContainerSettingsForm implements Configurable {
 
         getSettings().containerFiles = containerFiles;
         this.changed = false;
+
+        ServiceXmlParserFactory.invalidate(this.project);
     }
 
     private Settings getSettings() {
@@ -4,21 +4,19 @@ import com.intellij.codeInsight.completion.CompletionParameters;
 import com.intellij.codeInsight.completion.CompletionProvider;
 import com.intellij.codeInsight.completion.CompletionResultSet;
 import com.intellij.codeInsight.lookup.LookupElement;
-import com.intellij.ide.highlighter.XmlFileType;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.ProcessingContext;
 import com.intellij.util.indexing.FileBasedIndexImpl;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.completion.lookup.ContainerTagLookupElement;
-import fr.adrienbrault.idea.symfony2plugin.dic.XmlTagParser;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.dict.ContainerBuilderCall;
 import fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ContainerBuilderStubIndex;
-import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesTagStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesTagNameStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceXmlParserFactory;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.yaml.YAMLFileType;
 
 import java.util.*;
 
@@ -42,24 +40,18 @@ public class TagNameCompletionProvider extends CompletionProvider<CompletionPara
 
         Set<String> uniqueTags = new HashSet<>();
 
-        XmlTagParser xmlEventParser = ServiceXmlParserFactory.getInstance(project, XmlTagParser.class);
-        for(String tag: xmlEventParser.get()) {
+        for(String tag: ServiceXmlParserFactory.getTagNames(project)) {
             uniqueTags.add(tag);
             lookupElements.add(new ContainerTagLookupElement(tag));
         }
 
-        SymfonyProcessors.CollectProjectUniqueKeys projectUniqueKeysStrong = new SymfonyProcessors.CollectProjectUniqueKeys(project, ServicesTagStubIndex.KEY);
-        FileBasedIndexImpl.getInstance().processAllKeys(ServicesTagStubIndex.KEY, projectUniqueKeysStrong, project);
-
-        for(String serviceName: projectUniqueKeysStrong.getResult()) {
-            List<Set<String>> tags = FileBasedIndexImpl.getInstance().getValues(ServicesTagStubIndex.KEY, serviceName, GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.allScope(project), XmlFileType.INSTANCE, YAMLFileType.YML));
-            for(Set<String> tagDef: tags) {
-                for(String tag: tagDef) {
-                    if(!uniqueTags.contains(tag)) {
-                        uniqueTags.add(tag);
-                        lookupElements.add(new ContainerTagLookupElement(tag, true));
-                    }
-                }
+        SymfonyProcessors.CollectProjectUniqueKeys projectUniqueKeysStrong = new SymfonyProcessors.CollectProjectUniqueKeys(project, ServicesTagNameStubIndex.KEY, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES));
+        FileBasedIndexImpl.getInstance().processAllKeys(ServicesTagNameStubIndex.KEY, projectUniqueKeysStrong, project);
+
+        for(String tag: projectUniqueKeysStrong.getResult()) {
+            if(!uniqueTags.contains(tag)) {
+                uniqueTags.add(tag);
+                lookupElements.add(new ContainerTagLookupElement(tag, true));
             }
         }
 
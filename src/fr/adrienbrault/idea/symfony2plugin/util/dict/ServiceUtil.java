@@ -30,14 +30,15 @@ import fr.adrienbrault.idea.symfony2plugin.action.generator.naming.JavascriptSer
 import fr.adrienbrault.idea.symfony2plugin.action.generator.naming.ServiceNameStrategyInterface;
 import fr.adrienbrault.idea.symfony2plugin.action.generator.naming.ServiceNameStrategyParameter;
 import fr.adrienbrault.idea.symfony2plugin.dic.ContainerService;
-import fr.adrienbrault.idea.symfony2plugin.dic.XmlTagParser;
 import fr.adrienbrault.idea.symfony2plugin.form.util.FormUtil;
 import fr.adrienbrault.idea.symfony2plugin.stubs.ContainerCollectionResolver;
 import fr.adrienbrault.idea.symfony2plugin.stubs.ServiceIndexUtil;
 import fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ContainerParameterStubIndex;
-import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesTagStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesTagNameStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerDefinition;
 import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceXmlParserFactory;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
 import org.apache.commons.lang.StringUtils;
@@ -212,25 +213,12 @@ public class ServiceUtil {
 
         Project project = phpClass.getProject();
 
-        SymfonyProcessors.CollectProjectUniqueKeys projectUniqueKeysStrong = new SymfonyProcessors.CollectProjectUniqueKeys(project, ServicesTagStubIndex.KEY);
-        FileBasedIndexImpl.getInstance().processAllKeys(ServicesTagStubIndex.KEY, projectUniqueKeysStrong, project);
         ContainerCollectionResolver.ServiceCollector collector = null;
 
         Set<String> matchedTags = new HashSet<>();
-        Set<String> result = projectUniqueKeysStrong.getResult();
-        for (String serviceName : result) {
-
-            // get service where we found our tags
-            List<Set<String>> values = FileBasedIndexImpl.getInstance().getValues(ServicesTagStubIndex.KEY, serviceName, GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.allScope(project), XmlFileType.INSTANCE, YAMLFileType.YML));
-            if(values.size() == 0) {
-                continue;
-            }
-
-            // create unique tag list
-            Set<String> tags = new HashSet<>();
-            for(Set<String> tagValue: values) {
-                tags.addAll(tagValue);
-            }
+        for (Map.Entry<String, Set<String>> entry : getServiceTags(project).entrySet()) {
+            String serviceName = entry.getKey();
+            Set<String> tags = entry.getValue();
 
             if(collector == null) {
                 collector = ContainerCollectionResolver.ServiceCollector.create(project);
@@ -280,24 +268,40 @@ public class ServiceUtil {
 
     public static Set<String> getTaggedServices(Project project, String tagName) {
 
-        // @TODO: cache
-        SymfonyProcessors.CollectProjectUniqueKeys projectUniqueKeysStrong = new SymfonyProcessors.CollectProjectUniqueKeys(project, ServicesTagStubIndex.KEY);
-        FileBasedIndexImpl.getInstance().processAllKeys(ServicesTagStubIndex.KEY, projectUniqueKeysStrong, project);
-
         Set<String> service = new HashSet<>();
 
-        for(String serviceName: projectUniqueKeysStrong.getResult()) {
+        for(Set<String> serviceNames: FileBasedIndexImpl.getInstance().getValues(ServicesTagNameStubIndex.KEY, tagName, getTagScope(project))) {
+            service.addAll(serviceNames);
+        }
+
+        return service;
+    }
 
-            List<Set<String>> serviceDefinitions = FileBasedIndexImpl.getInstance().getValues(ServicesTagStubIndex.KEY, serviceName, GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.allScope(project), XmlFileType.INSTANCE, YAMLFileType.YML));
-            for(Set<String> strings: serviceDefinitions) {
-                if(strings.contains(tagName)) {
-                    service.add(serviceName);
+    /**
+     * Service ids with all of its tags; collected over the tag names which are much less than services
+     */
+    @NotNull
+    private static Map<String, Set<String>> getServiceTags(@NotNull Project project) {
+        SymfonyProcessors.CollectProjectUniqueKeys tagNames = new SymfonyProcessors.CollectProjectUniqueKeys(project, ServicesTagNameStubIndex.KEY, SymfonyModificationTracker.getTracker(project, SymfonyModificationTracker.Domain.SERVICES));
+        FileBasedIndexImpl.getInstance().processAllKeys(ServicesTagNameStubIndex.KEY, tagNames, project);
+
+        Map<String, Set<String>> serviceTags = new HashMap<>();
+
+        GlobalSearchScope scope = getTagScope(project);
+        for (String tagName : tagNames.getResult()) {
+            for (Set<String> serviceNames : FileBasedIndexImpl.getInstance().getValues(ServicesTagNameStubIndex.KEY, tagName, scope)) {
+                for (String serviceName : serviceNames) {
+                    serviceTags.computeIfAbsent(serviceName, s -> new HashSet<>()).add(tagName);
                 }
             }
-
         }
 
-        return service;
+        return serviceTags;
+    }
+
+    @NotNull
+    private static GlobalSearchScope getTagScope(@NotNull Project project) {
+        return GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.allScope(project), XmlFileType.INSTANCE, YAMLFileType.YML);
     }
 
     public static Collection<PhpClass> getTaggedClasses(@NotNull Project project, @NotNull String tagName) {
@@ -336,17 +340,13 @@ public class ServiceUtil {
             }
         }
 
-        XmlTagParser xmlTagParser = ServiceXmlParserFactory.getInstance(project, XmlTagParser.class);
-
-        List<String> taggedCompiledClasses= xmlTagParser.getTaggedClass(tagName);
-        if(taggedCompiledClasses == null) {
-            return taggedClasses;
-        }
-
-        for(String className: taggedCompiledClasses) {
-            if(!uniqueClass.contains(className)) {
+        // only services with this tag are decoded from the compiled container
+        for(ServiceContainerDefinition service: ServiceXmlParserFactory.getTaggedServices(project, tagName)) {
+            String className = service.getClassName();
+            if(className != null && !uniqueClass.contains(className)) {
                 PhpClass phpClass = PhpElementsUtil.getClass(project, className);
                 if(phpClass != null) {
+                    uniqueClass.add(className);
                     taggedClasses.add(phpClass);
                 }
             }
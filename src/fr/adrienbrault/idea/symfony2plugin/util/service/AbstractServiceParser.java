@@ -1,49 +1,26 @@
 package fr.adrienbrault.idea.symfony2plugin.util.service;
 
-import org.jetbrains.annotations.Nullable;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import org.jetbrains.annotations.NotNull;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.*;
-import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
-abstract public class AbstractServiceParser  implements ServiceParserInterface {
+abstract public class AbstractServiceParser implements ServiceParserInterface {
 
-    @Nullable
-    protected NodeList parserer(InputStream file) {
-
-        Document document;
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-
-        try {
-            DocumentBuilder documentBuilder = dbFactory.newDocumentBuilder();
-            document = documentBuilder.parse(file);
-        } catch (ParserConfigurationException | SAXException | IOException e) {
-            return null;
-        }
-
-        if(document == null) {
-            return null;
-        }
+    @Override
+    public void startElement(@NotNull ServiceContainerElement element) {
+    }
 
-        Object result;
-        try {
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            XPathExpression xPathExpr = xpath.compile(this.getXPathFilter());
-            result = xPathExpr.evaluate(document, XPathConstants.NODESET);
-        } catch (XPathExpressionException e) {
-            return null;
-        }
+    @Override
+    public void endElement(@NotNull ServiceContainerElement element) {
+    }
 
-        return (NodeList) result;
+    @Override
+    public void parser(@NotNull InputStream file) {
+        ServiceContainerStreamParser.parse(file, Collections.singletonList(this));
     }
 
 }
@@ -0,0 +1,149 @@
+package fr.adrienbrault.idea.symfony2plugin.util.service;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Details of a single compiled service; decoded on request from the container snapshot
+ *
+ * <service id="foo" class="Foo\Bar" decorates="bar">
+ *   <tag name="kernel.event_subscriber"/>
+ *   <argument type="service" id="car"/>
+ *   <call method="setFoo"/>
+ * </service>
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ServiceContainerDefinition {
+
+    @NotNull
+    private final String id;
+
+    @Nullable
+    private final String className;
+
+    @Nullable
+    private final String decorates;
+
+    @NotNull
+    private final Map<String, List<Map<String, String>>> tags = new LinkedHashMap<>();
+
+    @NotNull
+    private final List<String> arguments = new ArrayList<>();
+
+    @NotNull
+    private final List<String> calls = new ArrayList<>();
+
+    private ServiceContainerDefinition(@NotNull String id, @Nullable String className, @Nullable String decorates) {
+        this.id = id;
+        this.className = className;
+        this.decorates = decorates;
+    }
+
+    @NotNull
+    public String getId() {
+        return id;
+    }
+
+    @Nullable
+    public String getClassName() {
+        return className;
+    }
+
+    @Nullable
+    public String getDecorates() {
+        return decorates;
+    }
+
+    @NotNull
+    public Set<String> getTagNames() {
+        return Collections.unmodifiableSet(tags.keySet());
+    }
+
+    /**
+     * Attributes of every tag with the given name, a service can have a tag multiple times
+     */
+    @NotNull
+    public List<Map<String, String>> getTags(@NotNull String name) {
+        List<Map<String, String>> attributes = tags.get(name);
+        return attributes != null ? Collections.unmodifiableList(attributes) : Collections.emptyList();
+    }
+
+    /**
+     * Constructor arguments: "@foo" for a service reference, else the text value
+     */
+    @NotNull
+    public List<String> getArguments() {
+        return Collections.unmodifiableList(arguments);
+    }
+
+    /**
+     * Method names of "call"
+     */
+    @NotNull
+    public List<String> getCalls() {
+        return Collections.unmodifiableList(calls);
+    }
+
+    /**
+     * Service element is the root of the replayed subtree
+     */
+    static class Parser implements ServiceParserInterface {
+
+        @Nullable
+        private ServiceContainerDefinition definition;
+
+        @Override
+        public void startElement(@NotNull ServiceContainerElement element) {
+            ServiceContainerElement parent = element.getParent();
+            if(parent == null) {
+                definition = new ServiceContainerDefinition(
+                    element.getAttribute("id"),
+                    element.hasAttribute("class") ? StringUtils.stripStart(element.getAttribute("class"), "\\") : null,
+                    element.hasAttribute("decorates") ? element.getAttribute("decorates") : null
+                );
+
+                return;
+            }
+
+            if(definition == null || parent.getParent() != null) {
+                return;
+            }
+
+            if("tag".equals(element.getName()) && element.hasAttribute("name")) {
+                definition.tags.computeIfAbsent(element.getAttribute("name"), s -> new ArrayList<>())
+                    .add(new HashMap<>(element.getAttributes()));
+            } else if("call".equals(element.getName()) && element.hasAttribute("method")) {
+                definition.calls.add(element.getAttribute("method"));
+            }
+        }
+
+        @Override
+        public void endElement(@NotNull ServiceContainerElement element) {
+            ServiceContainerElement parent = element.getParent();
+            if(definition == null || parent == null || parent.getParent() != null || !"argument".equals(element.getName())) {
+                return;
+            }
+
+            if("service".equals(element.getAttribute("type"))) {
+                definition.arguments.add("@" + element.getAttribute("id"));
+            } else {
+                definition.arguments.add(element.getText());
+            }
+        }
+
+        @Override
+        public void parser(@NotNull InputStream file) {
+            ServiceContainerStreamParser.parse(file, Collections.singletonList(this));
+        }
+
+        @Nullable
+        ServiceContainerDefinition getDefinition() {
+            return definition;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package fr.adrienbrault.idea.symfony2plugin.util.service;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * Currently open element of a compiled container stream. Only the element path from the root is alive at a time,
+ * so memory is bounded by the nesting depth and not by the container size
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ServiceContainerElement {
+
+    @NotNull
+    private final String name;
+
+    @NotNull
+    private final Map<String, String> attributes;
+
+    @Nullable
+    private final ServiceContainerElement parent;
+
+    @Nullable
+    private StringBuilder text;
+
+    private boolean hasChildren = false;
+
+    ServiceContainerElement(@NotNull String name, @NotNull Map<String, String> attributes, @Nullable ServiceContainerElement parent) {
+        this.name = name;
+        this.attributes = attributes;
+        this.parent = parent;
+
+        if(parent != null) {
+            parent.childStarted();
+        }
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    public ServiceContainerElement getParent() {
+        return parent;
+    }
+
+    public boolean hasAttribute(@NotNull String attribute) {
+        return attributes.containsKey(attribute);
+    }
+
+    /**
+     * Same as DOM: empty string for a missing attribute
+     */
+    @NotNull
+    public String getAttribute(@NotNull String attribute) {
+        String value = attributes.get(attribute);
+        return value != null ? value : "";
+    }
+
+    /**
+     * Text content of a leaf element; complete only inside "endElement"
+     */
+    @NotNull
+    public String getText() {
+        return text != null ? text.toString() : "";
+    }
+
+    /**
+     * Absolute element path: "container", "services", "service"
+     */
+    public boolean isPath(@NotNull String... path) {
+        ServiceContainerElement element = this;
+        for (int i = path.length - 1; i >= 0; i--) {
+            if(element == null || !path[i].equals(element.name)) {
+                return false;
+            }
+
+            element = element.parent;
+        }
+
+        return element == null;
+    }
+
+    @NotNull
+    Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Leaf element without any child; its text is the content
+     */
+    boolean hasChildren() {
+        return hasChildren;
+    }
+
+    void appendText(@NotNull char[] chars, int start, int length) {
+        // mixed content is never needed; dont collect whitespace between children
+        if(hasChildren) {
+            return;
+        }
+
+        if(text == null) {
+            text = new StringBuilder(length);
+        }
+
+        text.append(chars, start, length);
+    }
+
+    private void childStarted() {
+        hasChildren = true;
+        text = null;
+    }
+}
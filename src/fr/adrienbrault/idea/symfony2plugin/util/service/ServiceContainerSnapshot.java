@@ -0,0 +1,811 @@
+package fr.adrienbrault.idea.symfony2plugin.util.service;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.util.io.FileUtil;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Binary snapshot of the element stream of a compiled container file inside the IDE system directory.
+ *
+ * On project open the snapshot is memory mapped and replayed to the parsers, so the xml itself is never parsed again
+ * until the source changes. The element stream is stored instead of the parser results, so every parser,
+ * also of extensions, gets its results without knowing about the snapshot.
+ *
+ * The mapped snapshot stays the second level of the container: strings are decoded on access and a single service
+ * with its tags, arguments and calls is decoded on request, so parsers only need to keep what they index.
+ * Services and tagged services are found by their event offset; this index is build on first request without
+ * decoding any element.
+ *
+ * Layout: header with source path, size and mtime; element events; string table; footer with content hash,
+ * string table position and magic. Events are streamed into the file while the xml is read, the string table
+ * follows as trailer, so recording never holds the event stream in memory.
+ * Remote files use the same layout as in memory instance
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ServiceContainerSnapshot {
+
+    private static final int MAGIC = 0x53594D43;
+    private static final int VERSION = 2;
+
+    /**
+     * Content hash, string table position, magic
+     */
+    private static final int FOOTER_SIZE = 16;
+
+    private static final byte EVENT_EOF = 0;
+    private static final byte EVENT_START = 1;
+    private static final byte EVENT_END = 2;
+
+    /**
+     * Complete snapshot; all positions are absolute
+     */
+    @NotNull
+    private final ByteBuffer buffer;
+
+    /**
+     * Position of every string inside the string table
+     */
+    @NotNull
+    private final int[] strings;
+
+    private final int events;
+
+    /**
+     * Event offsets of services and tagged services; built on first service request
+     */
+    @Nullable
+    private volatile ServiceIndex index;
+
+    private ServiceContainerSnapshot(@NotNull ByteBuffer buffer, @NotNull int[] strings, int events) {
+        this.buffer = buffer;
+        this.strings = strings;
+        this.events = events;
+    }
+
+    /**
+     * In memory snapshot of a container stream, eg a remote file; parsed once and replayed for every parsing pass.
+     * On invalid xml the snapshot holds all elements until the error
+     */
+    @NotNull
+    public static ServiceContainerSnapshot create(@NotNull InputStream stream) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(content)) {
+            writeHeader(out, "", 0, 0);
+
+            Recorder recorder = new Recorder(out);
+            ServiceContainerStreamParser.parse(stream, Collections.singletonList(recorder));
+            recorder.finish(0);
+        } catch (IOException e) {
+            // in memory stream
+            throw new IllegalStateException("invalid container snapshot", e);
+        }
+
+        ServiceContainerSnapshot snapshot = read(ByteBuffer.wrap(content.toByteArray()), null, 0, 0);
+        if(snapshot == null) {
+            // we just wrote it
+            throw new IllegalStateException("invalid container snapshot");
+        }
+
+        return snapshot;
+    }
+
+    public void replay(@NotNull Collection<? extends ServiceParserInterface> parsers) {
+        try {
+            replayEvents(parsers);
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            Symfony2ProjectComponent.getLogger().warn("invalid container snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes a "container/services/service" element with all its children from the snapshot
+     */
+    @Nullable
+    public ServiceContainerDefinition getService(@NotNull String id) {
+        Integer position = getIndex().services.get(id);
+        if(position == null) {
+            return null;
+        }
+
+        return getService(position);
+    }
+
+    /**
+     * Services with the tag; only these services are decoded
+     */
+    @NotNull
+    public Collection<ServiceContainerDefinition> getTaggedServices(@NotNull String tagName) {
+        List<Integer> positions = getIndex().tags.get(tagName);
+        if(positions == null) {
+            return Collections.emptyList();
+        }
+
+        Collection<ServiceContainerDefinition> services = new ArrayList<>();
+        for (int position : positions) {
+            ServiceContainerDefinition service = getService(position);
+            if(service != null) {
+                services.add(service);
+            }
+        }
+
+        return services;
+    }
+
+    /**
+     * Tag names of "container/services/service[@id]/tag[@name]"
+     */
+    @NotNull
+    public Set<String> getTagNames() {
+        return Collections.unmodifiableSet(getIndex().tags.keySet());
+    }
+
+    @Nullable
+    private ServiceContainerDefinition getService(int position) {
+        ServiceContainerDefinition.Parser parser = new ServiceContainerDefinition.Parser();
+
+        ByteBuffer events = this.buffer.duplicate();
+        events.position(position);
+
+        try {
+            replayEvents(events, Collections.singletonList(parser), null, true);
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            return null;
+        }
+
+        return parser.getDefinition();
+    }
+
+    /**
+     * Feeds the parsers with the container file; from the snapshot if it is still valid, else the xml is parsed
+     * and a new snapshot is written
+     *
+     * @return false if the container file is not readable
+     */
+    public static boolean parse(@NotNull File source, @NotNull Collection<? extends ServiceParserInterface> parsers) {
+        return parse(source, null, parsers);
+    }
+
+    public static boolean parse(@NotNull File source, @Nullable File snapshot, @NotNull Collection<? extends ServiceParserInterface> parsers) {
+        if(parsers.size() == 0) {
+            return true;
+        }
+
+        try {
+            load(source, snapshot, parsers);
+        } catch (IOException e) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Same as parse, but the snapshot is kept for service details
+     *
+     * @return null if the container file is not readable or was parsed without a snapshot, eg while it is written
+     */
+    @Nullable
+    public static ServiceContainerSnapshot load(@NotNull File source, @NotNull Collection<? extends ServiceParserInterface> parsers) {
+        try {
+            return load(source, null, parsers);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A snapshot with same path, size and mtime is trusted without hashing the source; a refresh never reads
+     * the whole container file while nothing changed
+     *
+     * @return replayed snapshot; null if parsers were feed from the xml
+     * @throws IOException container file is not readable
+     */
+    @Nullable
+    private static ServiceContainerSnapshot load(@NotNull File source, @Nullable File snapshotFile, @NotNull Collection<? extends ServiceParserInterface> parsers) throws IOException {
+        long size = source.length();
+        long lastModified = source.lastModified();
+
+        Collection<File> snapshotFiles = snapshotFile != null ? Collections.singletonList(snapshotFile) : findSnapshots(source);
+        for (File file : snapshotFiles) {
+            if(!file.exists()) {
+                continue;
+            }
+
+            ServiceContainerSnapshot snapshot = null;
+            try {
+                snapshot = read(map(file), source.getAbsolutePath(), size, lastModified);
+            } catch (IOException ignored) {
+            }
+
+            // header and length can be valid on a corrupted content; parsers must never get a partial container,
+            // they are feed by the new snapshot of the source instead
+            if(snapshot != null && snapshot.isValid()) {
+                snapshot.replay(parsers);
+                return snapshot;
+            }
+
+            if(snapshot != null) {
+                Symfony2ProjectComponent.getLogger().warn("invalid container snapshot: " + file.getPath());
+                FileUtil.delete(file);
+            }
+        }
+
+        return record(source, snapshotFile, parsers, size, lastModified);
+    }
+
+    /**
+     * Xml is streamed into a temp file which becomes the new snapshot; parsers are always feed by replaying it,
+     * so equal strings are shared between all parser results like on a snapshot hit.
+     * The content hash is collected on the same read
+     */
+    @Nullable
+    private static ServiceContainerSnapshot record(@NotNull File source, @Nullable File snapshotFile, @NotNull Collection<? extends ServiceParserInterface> parsers, long size, long lastModified) throws IOException {
+        File directory = snapshotFile != null ? snapshotFile.getParentFile() : getSnapshotDirectory();
+
+        File temp = null;
+        boolean valid;
+        long hash;
+
+        try {
+            FileUtil.createDirectory(directory);
+            temp = FileUtil.createTempFile(directory, getSnapshotPrefix(source), ".tmp", true);
+
+            CRC32 crc32 = new CRC32();
+            try (InputStream inputStream = new CheckedInputStream(new BufferedInputStream(new FileInputStream(source)), crc32);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+
+                writeHeader(out, source.getAbsolutePath(), size, lastModified);
+
+                Recorder recorder = new Recorder(out);
+
+                // xml reader closes its stream, but it can stop before the end of the file
+                valid = ServiceContainerStreamParser.parse(new FilterInputStream(inputStream) {
+                    @Override
+                    public void close() {
+                    }
+                }, Collections.singletonList(recorder));
+
+                byte[] buffer = new byte[65536];
+                while(inputStream.read(buffer) >= 0) {
+                    // hashed by reading
+                }
+
+                hash = crc32.getValue();
+                recorder.finish(hash);
+            }
+        } catch (IOException e) {
+            Symfony2ProjectComponent.getLogger().warn("container snapshot not written: " + e.getMessage());
+            if(temp != null) {
+                FileUtil.delete(temp);
+            }
+
+            parseSource(source, parsers);
+            return null;
+        }
+
+        // file was changed while we were reading it or is invalid; dont store something we cant trust
+        if(!valid || size != source.length() || lastModified != source.lastModified()) {
+            FileUtil.delete(temp);
+            parseSource(source, parsers);
+            return null;
+        }
+
+        File target = snapshotFile != null ? snapshotFile : getSnapshotFile(source, hash, lastModified);
+
+        ServiceContainerSnapshot snapshot = null;
+        try {
+            FileUtil.rename(temp, target);
+            snapshot = read(map(target), source.getAbsolutePath(), size, lastModified);
+        } catch (IOException e) {
+            Symfony2ProjectComponent.getLogger().warn("container snapshot not written: " + e.getMessage());
+            FileUtil.delete(temp);
+        }
+
+        if(snapshotFile == null) {
+            deleteOutdatedSnapshots(source, target);
+        }
+
+        if(snapshot == null) {
+            parseSource(source, parsers);
+            return null;
+        }
+
+        snapshot.replay(parsers);
+        return snapshot;
+    }
+
+    /**
+     * Fallback without snapshot: invalid xml feeds all elements until the error
+     */
+    private static void parseSource(@NotNull File source, @NotNull Collection<? extends ServiceParserInterface> parsers) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(source))) {
+            ServiceContainerStreamParser.parse(inputStream, parsers);
+        }
+    }
+
+    /**
+     * Content hash and mtime are part of the name: a mapped snapshot is never overwritten, which is not possible on all platforms
+     */
+    @NotNull
+    private static File getSnapshotFile(@NotNull File source, long hash, long lastModified) {
+        return new File(getSnapshotDirectory(), getSnapshotPrefix(source) + Long.toHexString(hash) + "." + Long.toHexString(lastModified) + ".snapshot");
+    }
+
+    /**
+     * Snapshots of the source; the header decides which one is current
+     */
+    @NotNull
+    private static Collection<File> findSnapshots(@NotNull File source) {
+        File[] files = getSnapshotDirectory().listFiles();
+        if(files == null) {
+            return Collections.emptyList();
+        }
+
+        String prefix = getSnapshotPrefix(source);
+
+        Collection<File> snapshots = new ArrayList<>();
+        for (File file : files) {
+            if(file.getName().startsWith(prefix) && file.getName().endsWith(".snapshot")) {
+                snapshots.add(file);
+            }
+        }
+
+        return snapshots;
+    }
+
+    @NotNull
+    private static File getSnapshotDirectory() {
+        return new File(PathManager.getSystemPath() + File.separator + "symfony2-plugin" + File.separator + "container");
+    }
+
+    /**
+     * Path is also part of the header, collisions are detected there
+     */
+    @NotNull
+    private static String getSnapshotPrefix(@NotNull File source) {
+        return FileUtil.sanitizeFileName(source.getName()) + "." + Integer.toHexString(source.getAbsolutePath().hashCode()) + ".";
+    }
+
+    @NotNull
+    private static ByteBuffer map(@NotNull File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Snapshots of previous contents; a still mapped one is removed next time
+     */
+    private static void deleteOutdatedSnapshots(@NotNull File source, @NotNull File snapshot) {
+        File[] files = getSnapshotDirectory().listFiles();
+        if(files == null) {
+            return;
+        }
+
+        String prefix = getSnapshotPrefix(source);
+        for (File file : files) {
+            if(!file.equals(snapshot) && file.getName().startsWith(prefix) && file.getName().endsWith(".snapshot")) {
+                FileUtil.delete(file);
+            }
+        }
+    }
+
+    /**
+     * @param path null for an in memory snapshot without a source
+     * @return null if the snapshot does not belong to the current source or is truncated
+     */
+    @Nullable
+    private static ServiceContainerSnapshot read(@NotNull ByteBuffer buffer, @Nullable String path, long size, long lastModified) {
+        try {
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+
+            String sourcePath = readString(buffer);
+            long sourceSize = buffer.getLong();
+            long sourceLastModified = buffer.getLong();
+
+            if(path != null && (!path.equals(sourcePath) || sourceSize != size || sourceLastModified != lastModified)) {
+                return null;
+            }
+
+            int events = buffer.position();
+
+            // a truncated snapshot must not feed the parsers with a partial container
+            int footer = buffer.limit() - FOOTER_SIZE;
+            if(footer <= events || buffer.getInt(footer + 12) != MAGIC) {
+                return null;
+            }
+
+            int stringTable = buffer.getInt(footer + 8);
+            if(stringTable <= events || stringTable > footer || buffer.get(stringTable - 1) != EVENT_EOF) {
+                return null;
+            }
+
+            buffer.position(stringTable);
+
+            int count = buffer.getInt();
+            if(count < 0 || count > (footer - buffer.position()) / 4) {
+                return null;
+            }
+
+            int[] strings = new int[count];
+            for (int i = 0; i < count; i++) {
+                strings[i] = buffer.position();
+
+                int length = buffer.getInt();
+                if(length < 0 || length > footer - buffer.position()) {
+                    return null;
+                }
+
+                buffer.position(buffer.position() + length);
+            }
+
+            if(buffer.position() != footer) {
+                return null;
+            }
+
+            return new ServiceContainerSnapshot(buffer, strings, events);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Walks all events without decoding anything; so a corrupted content is found before any parser gets an event
+     */
+    private boolean isValid() {
+        ByteBuffer events = this.buffer.duplicate();
+        events.position(this.events);
+
+        int depth = 0;
+
+        try {
+            byte event;
+            while((event = events.get()) != EVENT_EOF) {
+                if(event == EVENT_START) {
+                    if(!isString(events.getInt())) {
+                        return false;
+                    }
+
+                    int attributeCount = events.getInt();
+                    if(attributeCount < 0 || attributeCount > events.remaining() / 8) {
+                        return false;
+                    }
+
+                    for (int i = 0; i < attributeCount * 2; i++) {
+                        if(!isString(events.getInt())) {
+                            return false;
+                        }
+                    }
+
+                    depth++;
+                } else if(event == EVENT_END && depth > 0) {
+                    int text = events.getInt();
+                    if(text >= 0 && !isString(text)) {
+                        return false;
+                    }
+
+                    depth--;
+                } else {
+                    return false;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean isString(int index) {
+        return index >= 0 && index < this.strings.length;
+    }
+
+    private void replayEvents(@NotNull Collection<? extends ServiceParserInterface> parsers) throws IOException {
+        if(parsers.size() == 0) {
+            return;
+        }
+
+        ByteBuffer events = this.buffer.duplicate();
+        events.position(this.events);
+
+        // same instance for same strings like the xml parser, parsers keep a lot of them
+        replayEvents(events, parsers, new String[this.strings.length], false);
+    }
+
+    /**
+     * @param cache decoded strings for a whole replay
+     * @param subtree stop after the end of the element we are starting on
+     */
+    private void replayEvents(@NotNull ByteBuffer events, @NotNull Collection<? extends ServiceParserInterface> parsers, @Nullable String[] cache, boolean subtree) throws IOException {
+        ServiceContainerElement element = null;
+
+        byte event;
+        while((event = events.get()) != EVENT_EOF) {
+            if(event == EVENT_START) {
+                String name = getString(events.getInt(), cache);
+
+                int attributeCount = events.getInt();
+                Map<String, String> attributes = new HashMap<>(attributeCount);
+                for (int i = 0; i < attributeCount; i++) {
+                    attributes.put(getString(events.getInt(), cache), getString(events.getInt(), cache));
+                }
+
+                element = new ServiceContainerElement(name, attributes, element);
+                for (ServiceParserInterface parser : parsers) {
+                    parser.startElement(element);
+                }
+            } else if(event == EVENT_END && element != null) {
+                int text = events.getInt();
+                if(text >= 0) {
+                    char[] chars = getString(text, cache).toCharArray();
+                    element.appendText(chars, 0, chars.length);
+                }
+
+                for (ServiceParserInterface parser : parsers) {
+                    parser.endElement(element);
+                }
+
+                element = element.getParent();
+                if(subtree && element == null) {
+                    return;
+                }
+            } else {
+                throw new IOException("unknown event");
+            }
+        }
+    }
+
+    @NotNull
+    private ServiceIndex getIndex() {
+        ServiceIndex index = this.index;
+        if(index != null) {
+            return index;
+        }
+
+        synchronized (this) {
+            if(this.index == null) {
+                try {
+                    this.index = indexServices();
+                } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                    this.index = new ServiceIndex();
+                }
+            }
+
+            return this.index;
+        }
+    }
+
+    /**
+     * One pass over the events without building elements; only "container/services/service[@id]" and their
+     * "tag[@name]" are collected
+     */
+    @NotNull
+    private ServiceIndex indexServices() {
+        ServiceIndex index = new ServiceIndex();
+        String[] cache = new String[this.strings.length];
+
+        ByteBuffer events = this.buffer.duplicate();
+        events.position(this.events);
+
+        List<String> path = new ArrayList<>();
+
+        // start event of the current service with an id
+        int service = -1;
+
+        byte event;
+        while((event = events.get()) != EVENT_EOF) {
+            if(event == EVENT_START) {
+                int position = events.position() - 1;
+                path.add(getString(events.getInt(), cache));
+
+                boolean isService = path.size() == 3 && "service".equals(path.get(2)) && "services".equals(path.get(1)) && "container".equals(path.get(0));
+                boolean isTag = path.size() == 4 && service >= 0 && "tag".equals(path.get(3));
+
+                String id = null;
+                String tagName = null;
+
+                int attributeCount = events.getInt();
+                for (int i = 0; i < attributeCount; i++) {
+                    String key = getString(events.getInt(), cache);
+                    int value = events.getInt();
+
+                    if(isService && "id".equals(key)) {
+                        id = getString(value, cache);
+                    } else if(isTag && "name".equals(key)) {
+                        tagName = getString(value, cache);
+                    }
+                }
+
+                if(isService) {
+                    service = id != null ? position : -1;
+                    if(id != null) {
+                        index.services.put(id, position);
+                    }
+                } else if(tagName != null) {
+                    // a service can have the same tag multiple times
+                    List<Integer> services = index.tags.computeIfAbsent(tagName, s -> new ArrayList<>());
+                    if(services.isEmpty() || services.get(services.size() - 1) != service) {
+                        services.add(service);
+                    }
+                }
+            } else if(event == EVENT_END && path.size() > 0) {
+                events.getInt();
+                path.remove(path.size() - 1);
+
+                if(path.size() < 3) {
+                    service = -1;
+                }
+            } else {
+                break;
+            }
+        }
+
+        return index;
+    }
+
+    @NotNull
+    private String getString(int index, @Nullable String[] cache) {
+        if(cache != null && cache[index] != null) {
+            return cache[index];
+        }
+
+        int position = this.strings[index];
+
+        byte[] bytes = new byte[this.buffer.getInt(position)];
+        ByteBuffer string = this.buffer.duplicate();
+        string.position(position + 4);
+        string.get(bytes);
+
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if(cache != null) {
+            cache[index] = value;
+        }
+
+        return value;
+    }
+
+    @NotNull
+    private static String readString(@NotNull ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if(length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeHeader(@NotNull DataOutputStream out, @NotNull String path, long size, long lastModified) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        writeString(out, path);
+        out.writeLong(size);
+        out.writeLong(lastModified);
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @NotNull String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Event offsets of a snapshot; values are never decoded here
+     */
+    private static class ServiceIndex {
+        @NotNull
+        private final Map<String, Integer> services = new HashMap<>();
+
+        @NotNull
+        private final Map<String, List<Integer>> tags = new HashMap<>();
+    }
+
+    /**
+     * Writes the element stream of a parsing pass behind the header; every string is stored once in the trailing table
+     */
+    private static class Recorder implements ServiceParserInterface {
+
+        @NotNull
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        @NotNull
+        private final DataOutputStream out;
+
+        /**
+         * Parser callbacks cant throw; first write error is reported on finish
+         */
+        @Nullable
+        private IOException error;
+
+        private Recorder(@NotNull DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void startElement(@NotNull ServiceContainerElement element) {
+            if(error != null) {
+                return;
+            }
+
+            try {
+                out.writeByte(EVENT_START);
+                out.writeInt(getStringIndex(element.getName()));
+
+                Map<String, String> attributes = element.getAttributes();
+                out.writeInt(attributes.size());
+                for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                    out.writeInt(getStringIndex(entry.getKey()));
+                    out.writeInt(getStringIndex(entry.getValue()));
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        @Override
+        public void endElement(@NotNull ServiceContainerElement element) {
+            if(error != null) {
+                return;
+            }
+
+            String text = element.hasChildren() ? "" : element.getText();
+
+            try {
+                out.writeByte(EVENT_END);
+                out.writeInt(text.isEmpty() ? -1 : getStringIndex(text));
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        @Override
+        public void parser(@NotNull InputStream file) {
+            ServiceContainerStreamParser.parse(file, Collections.singletonList(this));
+        }
+
+        private int getStringIndex(@Nullable String value) {
+            return strings.computeIfAbsent(value != null ? value : "", s -> strings.size());
+        }
+
+        /**
+         * Positions are absolute, the header is written on the same stream
+         */
+        private void finish(long hash) throws IOException {
+            if(error != null) {
+                throw error;
+            }
+
+            out.writeByte(EVENT_EOF);
+
+            int stringTable = out.size();
+
+            out.writeInt(strings.size());
+            for (String value : strings.keySet()) {
+                writeString(out, value);
+            }
+
+            out.writeLong(hash);
+            out.writeInt(stringTable);
+            out.writeInt(MAGIC);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package fr.adrienbrault.idea.symfony2plugin.util.service;
+
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import org.jetbrains.annotations.NotNull;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a compiled container xml once and dispatches every element to all given parsers
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ServiceContainerStreamParser {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    /**
+     * @return false on invalid xml; parsers still got all elements until the error
+     */
+    public static boolean parse(@NotNull InputStream stream, @NotNull Collection<? extends ServiceParserInterface> parsers) {
+        if(parsers.size() == 0) {
+            return true;
+        }
+
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(stream);
+
+            ServiceContainerElement element = null;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        Map<String, String> attributes = new HashMap<>();
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                        }
+
+                        element = new ServiceContainerElement(reader.getLocalName(), attributes, element);
+                        for (ServiceParserInterface parser : parsers) {
+                            parser.startElement(element);
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if(element != null) {
+                            element.appendText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if(element != null) {
+                            for (ServiceParserInterface parser : parsers) {
+                                parser.endElement(element);
+                            }
+
+                            element = element.getParent();
+                        }
+                        break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            Symfony2ProjectComponent.getLogger().warn("invalid container file: " + e.getMessage());
+            return false;
+        } finally {
+            if(reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
+        }
+
+        return true;
+    }
+
+    @NotNull
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+
+        // compiled container never needs a dtd, so never resolve one
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        return factory;
+    }
+}
@@ -1,11 +1,39 @@
 package fr.adrienbrault.idea.symfony2plugin.util.service;
 
+import org.jetbrains.annotations.NotNull;
+
 import java.io.InputStream;
 
 /**
+ * Consumer of the compiled container element stream; all parsers of one container file share a single pass
+ *
+ * @see ServiceContainerStreamParser
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public interface ServiceParserInterface {
-    String getXPathFilter();
-    void parser(InputStream file);
+
+    /**
+     * Element was opened; attributes are available but text content is not yet read
+     */
+    void startElement(@NotNull ServiceContainerElement element);
+
+    /**
+     * Element was closed; direct text content of leaf elements is now available
+     */
+    void endElement(@NotNull ServiceContainerElement element);
+
+    /**
+     * Parsers are fed by the element stream; a filter is never evaluated
+     *
+     * @deprecated match elements inside "startElement" and "endElement"
+     */
+    @Deprecated
+    default String getXPathFilter() {
+        return "";
+    }
+
+    /**
+     * Standalone parsing for this parser only
+     */
+    void parser(@NotNull InputStream file);
 }
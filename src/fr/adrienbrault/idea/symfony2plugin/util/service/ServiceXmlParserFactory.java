@@ -1,29 +1,110 @@
 package fr.adrienbrault.idea.symfony2plugin.util.service;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.extensions.ExtensionPointName;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.config.component.parser.ParameterServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.dic.XmlEventParser;
+import fr.adrienbrault.idea.symfony2plugin.dic.XmlServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.component.DocumentNamespacesParser;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.component.EntityNamesServiceParser;
 import fr.adrienbrault.idea.symfony2plugin.extension.CompiledServiceBuilderArguments;
 import fr.adrienbrault.idea.symfony2plugin.extension.CompiledServiceBuilderFactory;
+import fr.adrienbrault.idea.symfony2plugin.form.dict.FormExtensionServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.form.dict.FormTypeServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.templating.assets.TwigNamedAssetsServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.templating.globals.TwigGlobalsServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.templating.path.TwigPathServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.translation.parser.DomainMappings;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * Every container file is read once for all registered parsers.
+ *
+ * Changes are detected by vfs events on the watched container files; container files and extensions are also polled
+ * as fallback. Callers get the last result until the background pass publishes the new one
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class ServiceXmlParserFactory {
 
-    protected static Map<Project, Map<Class, ServiceXmlParserFactory>> instance = new HashMap<>();
+    /**
+     * Parsers which are always feed in the shared pass; unknown parser are registered on first access
+     */
+    private static final Collection<Class<? extends ServiceParserInterface>> DEFAULT_PARSERS = Arrays.asList(
+        XmlServiceParser.class,
+        ParameterServiceParser.class,
+        XmlEventParser.class,
+        FormTypeServiceParser.class,
+        FormExtensionServiceParser.class,
+        TwigPathServiceParser.class,
+        TwigGlobalsServiceParser.class,
+        TwigNamedAssetsServiceParser.class,
+        EntityNamesServiceParser.class,
+        DocumentNamespacesParser.class,
+        DomainMappings.class
+    );
+
+    /**
+     * Extensions have no events, eg remote files, and vfs can miss external changes; so they are polled, but not on every access
+     */
+    private static final long CHECK_INTERVAL = 10000;
+
+    protected static Map<Project, ServiceXmlParserFactory> instance = new HashMap<>();
 
     protected Project project;
-    protected ServiceParserInterface serviceParserInstance;
 
-    protected HashMap<String, Long> serviceFiles = new HashMap<>();
+    @NotNull
+    private final Set<Class<? extends ServiceParserInterface>> parserClasses = Collections.synchronizedSet(new LinkedHashSet<>(DEFAULT_PARSERS));
+
+    /**
+     * Published results; replaced as a whole after a parsing pass, so readers never see a partial state
+     */
+    @NotNull
+    private volatile Map<Class, ServiceParserInterface> parserInstances = Collections.emptyMap();
+
+    /**
+     * Last modified and size of the parsed container files by their system independent path
+     */
+    @NotNull
+    private volatile Map<String, List<Long>> serviceFiles = Collections.emptyMap();
+
+    /**
+     * Container files are written by Symfony outside of the ide; without a watch vfs would not see them changing
+     */
+    @NotNull
+    private Set<LocalFileSystem.WatchRequest> watchRequests = Collections.emptySet();
+
+    /**
+     * Containers of the last parsing pass; service details and tags are decoded from them on request
+     */
+    @NotNull
+    private volatile List<ServiceContainerSnapshot> containers = Collections.emptyList();
+
+    private volatile boolean dirty = true;
+
+    @NotNull
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    private volatile long lastCheck = 0;
+
+    private volatile long modificationCount = 0;
 
     private Collection<CompiledServiceBuilderFactory.Builder> extensions = new ArrayList<>();
     private static final ExtensionPointName<CompiledServiceBuilderFactory> EXTENSIONS = new ExtensionPointName<>(
@@ -34,96 +115,292 @@ public class ServiceXmlParserFactory {
         this.project = project;
     }
 
-    protected boolean isModified(List<File> serviceFiles) {
-        if(this.serviceFiles.size() != serviceFiles.size()) {
-            return true;
+    /**
+     * Served from the last parsing pass; a changed container is parsed in background meanwhile.
+     * Only the first access of a parser needs to wait for parsing
+     */
+    @Nullable
+    public <T extends ServiceParserInterface> T parser(Class<T> serviceParser) {
+        ServiceParserInterface parserInstance = this.parserInstances.get(serviceParser);
+        if(parserInstance != null) {
+            this.scheduleRefresh();
+            return (T) parserInstance;
         }
 
-        for(File serviceFile: serviceFiles) {
-            if(serviceFile.exists()) {
-                if(!this.serviceFiles.containsKey(serviceFile.getAbsolutePath())) {
-                    return true;
+        synchronized (this) {
+            parserInstance = this.parserInstances.get(serviceParser);
+            if(parserInstance == null) {
+                // unknown parser joins the shared pass from now on
+                this.parserClasses.add(serviceParser);
+                this.refresh();
+
+                Symfony2ProjectComponent.getLogger().info("update: " + serviceParser.getName());
+
+                parserInstance = this.parserInstances.get(serviceParser);
+            }
+        }
+
+        return (T) parserInstance;
+    }
+
+    /**
+     * Runs outdated parsing in background; unit tests need the result synchronously
+     */
+    private void scheduleRefresh() {
+        boolean check = System.currentTimeMillis() - this.lastCheck > CHECK_INTERVAL;
+        if(!this.dirty && !check) {
+            return;
+        }
+
+        if(!this.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        Runnable runnable = () -> {
+            try {
+                if(!this.dirty && isModified()) {
+                    this.dirty = true;
                 }
-                if(!this.serviceFiles.get(serviceFile.getAbsolutePath()).equals(serviceFile.lastModified())) {
-                    return true;
+
+                if(this.dirty && !this.project.isDisposed()) {
+                    synchronized (this) {
+                        this.refresh();
+                    }
                 }
-            } else {
-                Symfony2ProjectComponent.getLogger().warn("file not found: " + serviceFiles.toString());
+            } finally {
+                this.refreshing.set(false);
+            }
+        };
+
+        if(ApplicationManager.getApplication().isUnitTestMode()) {
+            runnable.run();
+        } else {
+            ApplicationManager.getApplication().executeOnPooledThread(runnable);
+        }
+    }
+
+    private boolean isModified() {
+        this.lastCheck = System.currentTimeMillis();
+
+        // cheap fallback for missed vfs events: created, removed or changed container files
+        Map<String, List<Long>> serviceFiles = new HashMap<>();
+        for (File file : this.project.getComponent(Symfony2ProjectComponent.class).getContainerFiles()) {
+            serviceFiles.put(FileUtil.toSystemIndependentName(file.getAbsolutePath()), getFileStamp(file));
+        }
+
+        if(!serviceFiles.equals(this.serviceFiles)) {
+            return true;
+        }
+
+        for (CompiledServiceBuilderFactory.Builder builder : this.extensions) {
+            if(builder.isModified(project)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * One pass over all container files for all known parsers; caller must hold the instance lock
+     */
+    private void refresh() {
+        // changes while parsing must trigger a new pass
+        this.dirty = false;
+        this.lastCheck = System.currentTimeMillis();
+
+        List<File> settingsServiceFiles = this.project.getComponent(Symfony2ProjectComponent.class).getContainerFiles();
+
+        Map<Class, ServiceParserInterface> parserInstances = new HashMap<>();
+        for (Class<? extends ServiceParserInterface> parserClass : new ArrayList<>(this.parserClasses)) {
+            try {
+                parserInstances.put(parserClass, parserClass.newInstance());
+            } catch (InstantiationException | IllegalAccessException e) {
+                Symfony2ProjectComponent.getLogger().warn("invalid parser: " + parserClass.getName());
             }
         }
 
+        Collection<ServiceParserInterface> parsers = parserInstances.values();
+        List<ServiceContainerSnapshot> containers = new ArrayList<>();
+
+        // extensions
         if(this.extensions.size() > 0) {
+            CompiledServiceBuilderArguments args = new CompiledServiceBuilderArguments(project);
             for (CompiledServiceBuilderFactory.Builder builder : this.extensions) {
-                if(builder.isModified(project)) {
-                    return true;
+                builder.build(args);
+            }
+
+            for (InputStream inputStream : args.getStreams()) {
+                // closing is required: remote streams are replayed on close
+                try (InputStream stream = inputStream) {
+                    containers.add(ServiceContainerSnapshot.create(stream));
+                } catch (IOException ignored) {
                 }
             }
+
+            containers.addAll(args.getContainers());
+            for (ServiceContainerSnapshot container : containers) {
+                container.replay(parsers);
+            }
         }
 
-        return false;
+        Map<String, List<Long>> serviceFiles = new HashMap<>();
+        for(File settingsServiceFile: settingsServiceFiles) {
+            // stamp before reading; a change while parsing is seen on next check
+            serviceFiles.put(FileUtil.toSystemIndependentName(settingsServiceFile.getAbsolutePath()), getFileStamp(settingsServiceFile));
+            if(!settingsServiceFile.exists()) {
+                continue;
+            }
+
+            // snapshot of a previous parsing survives ide restarts
+            ServiceContainerSnapshot container = ServiceContainerSnapshot.load(settingsServiceFile, parsers);
+            if(container != null) {
+                containers.add(container);
+            }
+        }
+
+        if(!serviceFiles.keySet().equals(this.serviceFiles.keySet())) {
+            this.watch(serviceFiles.keySet(), settingsServiceFiles);
+        }
+
+        this.serviceFiles = serviceFiles;
+        this.containers = containers;
+        this.parserInstances = parserInstances;
+        this.modificationCount++;
     }
 
-    @Nullable
-    synchronized public <T extends ServiceParserInterface> T parser(Class<T> serviceParser) {
+    /**
+     * Watch the container files and load them into vfs, else their changes have no events
+     */
+    private void watch(@NotNull Set<String> paths, @NotNull List<File> files) {
+        LocalFileSystem localFileSystem = LocalFileSystem.getInstance();
+        this.watchRequests = localFileSystem.replaceWatchedRoots(this.watchRequests, null, paths);
 
-        Symfony2ProjectComponent symfony2ProjectComponent = this.project.getComponent(Symfony2ProjectComponent.class);
+        // async; a synchronous refresh must not run inside of a read action
+        localFileSystem.refreshIoFiles(files, true, false, null);
+    }
 
-        List<File> settingsServiceFiles = symfony2ProjectComponent.getContainerFiles();
+    /**
+     * Container file itself or one of its directories was changed, created, deleted or moved; eg a "cache:clear".
+     * New container files which are not known yet are found by polling
+     */
+    private boolean isContainerEvent(@NotNull VFileEvent event) {
+        Set<String> paths = this.serviceFiles.keySet();
+        if(paths.contains(event.getPath())) {
+            return true;
+        }
 
-        if (this.serviceParserInstance != null && !this.isModified(settingsServiceFiles)) {
-            return (T) this.serviceParserInstance;
+        // renamed or moved: file is already at its new path
+        VirtualFile file = event.getFile();
+        if(file != null && paths.contains(file.getPath())) {
+            return true;
         }
 
-        try {
-            this.serviceParserInstance = serviceParser.newInstance();
-            Symfony2ProjectComponent.getLogger().info("new instance: " + serviceParser.getName());
-        } catch (InstantiationException | IllegalAccessException ignored) {
+        if(event instanceof VFileContentChangeEvent) {
+            return false;
         }
 
-        if (this.serviceParserInstance != null) {
+        String directory = event.getPath() + "/";
+        for (String path : paths) {
+            if(path.startsWith(directory)) {
+                return true;
+            }
+        }
 
-            // extensions
-            if(this.extensions.size() > 0) {
-                CompiledServiceBuilderArguments args = new CompiledServiceBuilderArguments(project);
-                for (CompiledServiceBuilderFactory.Builder builder : this.extensions) {
-                    builder.build(args);
-                }
+        return false;
+    }
 
-                for (InputStream inputStream : args.getStreams()) {
-                    this.serviceParserInstance.parser(inputStream);
-                }
-            }
+    @NotNull
+    private static List<Long> getFileStamp(@NotNull File file) {
+        return Arrays.asList(file.lastModified(), file.length());
+    }
 
-            this.serviceFiles = new HashMap<>();
-            for(File settingsServiceFile: settingsServiceFiles) {
-                if(!settingsServiceFile.exists()) {
-                    continue;
-                }
+    public void setCacheInvalid() {
+        this.dirty = true;
+    }
 
-                try {
-                    this.serviceParserInstance.parser(new FileInputStream(settingsServiceFile));
-                } catch (FileNotFoundException e) {
-                    continue;
-                }
+    public static <T extends ServiceParserInterface> T getInstance(Project project, Class<T> serviceParser){
+        return getFactory(project).parser(serviceParser);
+    }
 
-                serviceFiles.put(settingsServiceFile.getAbsolutePath(), settingsServiceFile.lastModified());
+    /**
+     * Tags, arguments and calls of a compiled service; only this service is decoded, parsers only hold what they index.
+     * Like for the service map the last container wins
+     */
+    @Nullable
+    public static ServiceContainerDefinition getServiceDefinition(@NotNull Project project, @NotNull String id) {
+        List<ServiceContainerSnapshot> containers = getContainers(project);
+        for (int i = containers.size() - 1; i >= 0; i--) {
+            ServiceContainerDefinition definition = containers.get(i).getService(id);
+            if(definition != null) {
+                return definition;
             }
         }
 
-        Symfony2ProjectComponent.getLogger().info("update: " + serviceParser.getName());
+        return null;
+    }
+
+    /**
+     * Compiled services with the tag; only these services are decoded
+     */
+    @NotNull
+    public static Collection<ServiceContainerDefinition> getTaggedServices(@NotNull Project project, @NotNull String tagName) {
+        Collection<ServiceContainerDefinition> services = new ArrayList<>();
+        for (ServiceContainerSnapshot container : getContainers(project)) {
+            services.addAll(container.getTaggedServices(tagName));
+        }
 
-        return (T) this.serviceParserInstance;
+        return services;
     }
 
-    public void setCacheInvalid() {
-        this.serviceFiles = new HashMap<>();
+    @NotNull
+    public static Set<String> getTagNames(@NotNull Project project) {
+        Set<String> tagNames = new HashSet<>();
+        for (ServiceContainerSnapshot container : getContainers(project)) {
+            tagNames.addAll(container.getTagNames());
+        }
+
+        return tagNames;
+    }
+
+    @NotNull
+    private static List<ServiceContainerSnapshot> getContainers(@NotNull Project project) {
+        ServiceXmlParserFactory factory = getFactory(project);
+
+        // make sure we have a parsing pass
+        factory.getModificationCount();
+
+        return factory.containers;
+    }
+
+    /**
+     * Container settings changed
+     */
+    public static void invalidate(@NotNull Project project) {
+        getFactory(project).setCacheInvalid();
+    }
+
+    /**
+     * Compiled container as dependency for cached values; a check also schedules parsing of a changed container
+     */
+    @NotNull
+    public static ModificationTracker getModificationTracker(@NotNull Project project) {
+        return () -> getFactory(project).getModificationCount();
     }
 
-    synchronized public static <T extends ServiceParserInterface> T getInstance(Project project, Class<T> serviceParser){
+    private long getModificationCount() {
+        if(this.parserInstances.isEmpty()) {
+            parser(XmlServiceParser.class);
+        } else {
+            scheduleRefresh();
+        }
 
-        Map<Class, ServiceXmlParserFactory> projectInstance = instance.computeIfAbsent(project, k -> new HashMap<>());
+        return this.modificationCount;
+    }
 
-        ServiceXmlParserFactory serviceXmlParserFactory = projectInstance.get(serviceParser);
+    @NotNull
+    synchronized private static ServiceXmlParserFactory getFactory(@NotNull Project project) {
+        ServiceXmlParserFactory serviceXmlParserFactory = instance.get(project);
         if(serviceXmlParserFactory == null) {
             serviceXmlParserFactory = new ServiceXmlParserFactory(project);
 
@@ -132,17 +409,38 @@ public class ServiceXmlParserFactory {
                 serviceXmlParserFactory.extensions.add(ext.create());
             }
 
-            projectInstance.put(serviceParser, serviceXmlParserFactory);
-        }
+            final ServiceXmlParserFactory factory = serviceXmlParserFactory;
+            project.getMessageBus().connect(project).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+                @Override
+                public void before(@NotNull List<? extends VFileEvent> events) {
+                }
+
+                @Override
+                public void after(@NotNull List<? extends VFileEvent> events) {
+                    for (VFileEvent event : events) {
+                        if(factory.isContainerEvent(event)) {
+                            factory.setCacheInvalid();
+                            return;
+                        }
+                    }
+                }
+            });
 
-        return serviceXmlParserFactory.parser(serviceParser);
+            instance.put(project, serviceXmlParserFactory);
+        }
 
+        return serviceXmlParserFactory;
     }
 
     synchronized public static void cleanInstance(Project project){
         if(instance.containsKey(project)) {
             Symfony2ProjectComponent.getLogger().info("clean ServiceXmlParserFactory for " + project.getName());
-            instance.remove(project);
+            ServiceXmlParserFactory factory = instance.remove(project);
+
+            synchronized (factory) {
+                LocalFileSystem.getInstance().removeWatchedRoots(factory.watchRequests);
+                factory.watchRequests = Collections.emptySet();
+            }
         }
     }
 
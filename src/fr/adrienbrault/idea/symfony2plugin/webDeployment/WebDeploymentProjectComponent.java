@@ -5,21 +5,32 @@ import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import fr.adrienbrault.idea.symfony2plugin.Settings;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.utils.RemoteWebServerUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class WebDeploymentProjectComponent implements ProjectComponent {
 
+    private static final long INTERVAL = 300000;
+    private static final long MAX_INTERVAL = 3600000;
+
     private Project project;
 
+    @Nullable
+    private ScheduledFuture<?> future;
+
+    private volatile long delay = INTERVAL;
+
     public WebDeploymentProjectComponent(Project project) {
         this.project = project;
     }
@@ -44,7 +55,7 @@ public class WebDeploymentProjectComponent implements ProjectComponent {
         if(Settings.getInstance(project).remoteDevFileScheduler) {
             Symfony2ProjectComponent.getLogger().info("Starting Symfony webDeployment background scheduler");
 
-            DumbService.getInstance(project).smartInvokeLater(() -> new Timer().schedule(new MyTimerTask(), 1000, 300000));
+            DumbService.getInstance(project).smartInvokeLater(() -> schedule(1000));
         }
     }
 
@@ -54,10 +65,37 @@ public class WebDeploymentProjectComponent implements ProjectComponent {
         }
     }
 
-    private class MyTimerTask extends TimerTask {
+    /**
+     * Next download; cancelled with the project
+     */
+    synchronized private void schedule(long delay) {
+        if(project.isDisposed()) {
+            return;
+        }
+
+        if(future == null) {
+            Disposer.register(project, () -> {
+                synchronized (WebDeploymentProjectComponent.this) {
+                    if(future != null) {
+                        future.cancel(false);
+                    }
+                }
+            });
+        }
+
+        future = AppExecutorUtil.getAppScheduledExecutorService().schedule(this::download, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Every path reschedules, also a failing one; else syncing would stop until the project is reopened
+     */
+    private void download() {
+        if(project.isDisposed()) {
+            return;
+        }
 
-        @Override
-        public void run() {
+        boolean queued = false;
+        try {
             if(!RemoteWebServerUtil.hasConfiguredRemoteFile(project)) {
                 return;
             }
@@ -66,9 +104,23 @@ public class WebDeploymentProjectComponent implements ProjectComponent {
                 @Override
                 public void run(@NotNull ProgressIndicator indicator) {
                     Symfony2ProjectComponent.getLogger().info("Running background webDeployment dev download");
-                    RemoteWebServerUtil.collectRemoteFiles(project);
+
+                    boolean success = false;
+                    try {
+                        success = RemoteWebServerUtil.collectRemoteFiles(project);
+                    } finally {
+                        // unreachable server or files: dont hammer it, wait longer on every failure
+                        delay = success ? INTERVAL : Math.min(delay * 2, MAX_INTERVAL);
+                        schedule(delay);
+                    }
                 }
             }.queue());
+
+            queued = true;
+        } finally {
+            if(!queued) {
+                schedule(INTERVAL);
+            }
         }
     }
 }
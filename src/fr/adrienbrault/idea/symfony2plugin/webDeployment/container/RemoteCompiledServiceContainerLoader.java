@@ -26,7 +26,7 @@ public class RemoteCompiledServiceContainerLoader implements CompiledServiceBuil
                 }
 
                 this.remoteBuildTime = extension.getState().getBuildTime();
-                args.addStreams(extension.getState().getInputStreams());
+                args.addContainers(extension.getState().getContainers());
             }
 
             @Override
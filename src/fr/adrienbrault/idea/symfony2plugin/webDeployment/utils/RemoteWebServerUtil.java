@@ -3,6 +3,7 @@ package fr.adrienbrault.idea.symfony2plugin.webDeployment.utils;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.util.Function;
 import com.intellij.util.containers.ContainerUtil;
 import com.jetbrains.plugins.webDeployment.ConnectionOwnerFactory;
@@ -17,13 +18,17 @@ import fr.adrienbrault.idea.symfony2plugin.dic.webDeployment.ServiceContainerRem
 import fr.adrienbrault.idea.symfony2plugin.routing.webDeployment.RoutingRemoteFileStorage;
 import fr.adrienbrault.idea.symfony2plugin.ui.dict.UiFilePathInterface;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileStorageInterface;
+import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -32,6 +37,11 @@ public class RemoteWebServerUtil {
 
     public static Map<Project, RemoteFileStorageInterface[]> STORAGE_INSTANCES = new ConcurrentHashMap<>();
 
+    /**
+     * Remote file fingerprints of the last build; storages are weak so closed projects are released
+     */
+    private static final Map<RemoteFileStorageInterface, Map<String, String>> FINGERPRINTS = ContainerUtil.createConcurrentWeakMap();
+
     @NotNull
     public synchronized static RemoteFileStorageInterface[] getExtension(@NotNull Project project) {
         if(STORAGE_INSTANCES.containsKey(project)) {
@@ -61,10 +71,15 @@ public class RemoteWebServerUtil {
         return null;
     }
 
-    public static void collectRemoteFiles(final @NotNull Project project) {
+    /**
+     * Files which were found are still updated if others failed
+     *
+     * @return false if the remote server or one of the remote files was not reachable
+     */
+    public static boolean collectRemoteFiles(final @NotNull Project project) {
         WebServerConfig defaultServer = PublishConfig.getInstance(project).findDefaultServer();
         if(defaultServer == null) {
-            return;
+            return true;
         }
 
         Deployable deployable = Deployable.create(defaultServer);
@@ -72,9 +87,10 @@ public class RemoteWebServerUtil {
         try {
             connection = RemoteConnectionManager.getInstance().openConnection(ConnectionOwnerFactory.createConnectionOwner(project), "foo", deployable, FileTransferConfig.Origin.Default, null, null);
         } catch (FileSystemException e) {
-            return;
+            return false;
         }
 
+        int failures = 0;
         for (final RemoteFileStorageInterface fileStorage : RemoteWebServerUtil.getExtension(project)) {
             final Collection<FileObject> contents = new ArrayList<>();
 
@@ -84,18 +100,82 @@ public class RemoteWebServerUtil {
                 try {
                     file = PublishUtils.findFile(connection.getFileSystem(), new WebServerConfig.RemotePath((String) s), deployable);
                 } catch (FileSystemException e) {
+                    failures++;
+                    continue;
+                }
+
+                if(file == null) {
+                    failures++;
                     continue;
                 }
 
                 contents.add(file);
             }
 
-            fileStorage.clear();
-
-            ApplicationManager.getApplication().runReadAction(() -> fileStorage.build(project, contents));
+            updateStorage(project, fileStorage, contents);
         }
 
         connection.clone();
+
+        return failures == 0;
+    }
+
+    /**
+     * Rebuilds the storage only if size or modification time of a remote file changed; without them
+     * the storage must download and compare the checksum itself
+     *
+     * @return false if the storage was not rebuilt
+     */
+    public static boolean updateStorage(@NotNull Project project, @NotNull RemoteFileStorageInterface fileStorage, @NotNull Collection<FileObject> files) {
+        Map<String, String> fingerprints = new HashMap<>();
+
+        boolean complete = true;
+        for (FileObject file : files) {
+            String fingerprint = getFingerprint(file);
+            if(fingerprint == null) {
+                complete = false;
+            }
+
+            fingerprints.put(file.getName().getURI(), fingerprint);
+        }
+
+        if(complete && fingerprints.equals(FINGERPRINTS.get(fileStorage))) {
+            return false;
+        }
+
+        ApplicationManager.getApplication().runReadAction(() -> fileStorage.build(project, files));
+
+        FINGERPRINTS.put(fileStorage, fingerprints);
+
+        return true;
+    }
+
+    /**
+     * Size and modification time of the remote file; a "stat" without downloading it
+     */
+    @Nullable
+    private static String getFingerprint(@NotNull FileObject file) {
+        try {
+            FileContent content = file.getContent();
+            return content.getSize() + ":" + content.getLastModifiedTime();
+        } catch (FileSystemException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    public static byte[] getContent(@NotNull FileObject file) {
+        try (InputStream inputStream = file.getContent().getInputStream()) {
+            return FileUtil.loadBytes(inputStream);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static long getChecksum(@NotNull byte[] content) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        return crc32.getValue();
     }
 
     @NotNull
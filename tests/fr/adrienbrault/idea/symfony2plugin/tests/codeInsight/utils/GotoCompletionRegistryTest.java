@@ -0,0 +1,33 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.codeInsight.utils;
+
+import com.intellij.patterns.PlatformPatterns;
+import com.jetbrains.php.lang.PhpLanguage;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.jetbrains.twig.TwigTokenTypes;
+import fr.adrienbrault.idea.symfony2plugin.codeInsight.utils.GotoCompletionRegistry;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ *
+ * @see fr.adrienbrault.idea.symfony2plugin.codeInsight.utils.GotoCompletionRegistry
+ */
+public class GotoCompletionRegistryTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void testLanguageOfPattern() {
+        assertEquals(PhpLanguage.INSTANCE, GotoCompletionRegistry.getLanguage(
+            PlatformPatterns.psiElement().withParent(StringLiteralExpression.class).withLanguage(PhpLanguage.INSTANCE)
+        ));
+
+        assertNull(GotoCompletionRegistry.getLanguage(PlatformPatterns.psiElement().withParent(StringLiteralExpression.class)));
+    }
+
+    public void testElementTypesOfPattern() {
+        assertContainsElements(
+            GotoCompletionRegistry.getElementTypes(PlatformPatterns.psiElement(TwigTokenTypes.IDENTIFIER)),
+            TwigTokenTypes.IDENTIFIER
+        );
+
+        assertNull(GotoCompletionRegistry.getElementTypes(PlatformPatterns.psiElement().withLanguage(PhpLanguage.INSTANCE)));
+    }
+}
@@ -0,0 +1,72 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.dic;
+
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.codeInsight.lookup.LookupElementPresentation;
+import fr.adrienbrault.idea.symfony2plugin.dic.ContainerService;
+import fr.adrienbrault.idea.symfony2plugin.dic.ServiceLookupElementIndex;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.dic.ServiceLookupElementIndex
+ */
+public class ServiceLookupElementIndexTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void testPrefixMatchesWordStartsInRankOrder() {
+        Map<String, Integer> usages = new HashMap<>();
+        usages.put("foo.mailer", 1);
+        usages.put("swiftmailer.mailer", 5);
+
+        ServiceLookupElementIndex index = createIndex(usages, "foo.mailer", "swiftmailer.mailer", "swiftmailer.transport", "foo_bar");
+
+        assertEquals(Arrays.asList("swiftmailer.mailer", "foo.mailer"), getLookupStrings(index.getLookupElements("mai", Collections.emptyList())));
+        assertEquals(Arrays.asList("swiftmailer.mailer", "swiftmailer.transport"), getLookupStrings(index.getLookupElements("SWIFT", Collections.emptyList())));
+        assertEquals(Collections.singletonList("foo_bar"), getLookupStrings(index.getLookupElements("bar", Collections.emptyList())));
+        assertEquals(Arrays.asList("swiftmailer.mailer", "swiftmailer.transport"), getLookupStrings(index.getLookupElements("swiftmailer.", Collections.emptyList())));
+    }
+
+    public void testCamelHumpsAreWordStarts() {
+        ServiceLookupElementIndex index = createIndex(Collections.emptyMap(), "App\\Service\\UserMailer", "mailer.default", "user_mailer");
+
+        assertEquals(Arrays.asList("App\\Service\\UserMailer", "user_mailer", "mailer.default"), getLookupStrings(index.getLookupElements("Mailer", Collections.emptyList())));
+        assertEquals(Arrays.asList("App\\Service\\UserMailer", "user_mailer"), getLookupStrings(index.getLookupElements("umai", Collections.emptyList())));
+    }
+
+    public void testEmptyOrUnknownPrefixProvidesAllElements() {
+        ServiceLookupElementIndex index = createIndex(Collections.emptyMap(), "foo", "bar", "foo");
+
+        assertEquals(2, index.size());
+        assertEquals(Arrays.asList("bar", "foo"), getLookupStrings(index.getLookupElements("", Collections.emptyList())));
+        assertEquals(Arrays.asList("bar", "foo"), getLookupStrings(index.getLookupElements("xyz", Collections.emptyList())));
+    }
+
+    public void testElementsAreSharedAndTopServicesHighlighted() {
+        ServiceLookupElementIndex index = createIndex(Collections.emptyMap(), "foo", "foo_bar");
+
+        List<LookupElement> elements = index.getLookupElements("foo", Collections.singletonList("foo_bar"));
+        assertSame(elements.get(0), index.getLookupElements("f", Collections.emptyList()).get(0));
+
+        LookupElementPresentation presentation = new LookupElementPresentation();
+        elements.get(1).renderElement(presentation);
+        assertTrue(presentation.isItemTextBold());
+
+        presentation = new LookupElementPresentation();
+        elements.get(0).renderElement(presentation);
+        assertFalse(presentation.isItemTextBold());
+    }
+
+    private static ServiceLookupElementIndex createIndex(Map<String, Integer> usages, String... ids) {
+        List<ContainerService> services = Arrays.stream(ids)
+            .map(id -> new ContainerService(id, "DateTime"))
+            .collect(Collectors.toList());
+
+        return new ServiceLookupElementIndex(services, id -> usages.getOrDefault(id, 0));
+    }
+
+    private static List<String> getLookupStrings(Collection<LookupElement> elements) {
+        return elements.stream().map(LookupElement::getLookupString).collect(Collectors.toList());
+    }
+}
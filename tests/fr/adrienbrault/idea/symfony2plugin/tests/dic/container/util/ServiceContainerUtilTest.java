@@ -7,6 +7,7 @@ import com.intellij.util.containers.ContainerUtil;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.ServiceInterface;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.util.ServiceContainerUtil;
 import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import gnu.trove.TObjectIntHashMap;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
@@ -142,6 +143,15 @@ public class ServiceContainerUtilTest extends SymfonyLightCodeInsightFixtureTest
         assertEquals(1, ServiceContainerUtil.getServiceUsage(getProject(), "usage_xml_foobar3"));
     }
 
+    public void testGetServiceUsagesIsAggregatedForAllIds() {
+        TObjectIntHashMap<String> usages = ServiceContainerUtil.getServiceUsages(getProject());
+
+        assertEquals(3, usages.get("usage_xml_foobar"));
+        assertEquals(1, usages.get("usage_xml_foobar3"));
+        assertEquals(0, usages.get("unknown_service_id"));
+        assertSame(usages, ServiceContainerUtil.getServiceUsages(getProject()));
+    }
+
     public void testGetSortedServiceId() {
         List<String> sortedServiceId = ServiceContainerUtil.getSortedServiceId(getProject(), Arrays.asList("foobar.default", "foobar", "usage_xml_foobar"));
 
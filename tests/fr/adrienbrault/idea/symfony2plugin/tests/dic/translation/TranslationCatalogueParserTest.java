@@ -0,0 +1,57 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.dic.translation;
+
+import fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationCatalogueParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationCatalogueParser
+ */
+public class TranslationCatalogueParserTest extends Assert {
+
+    @Test
+    public void testParse() throws IOException {
+        File testFile = new File(this.getClass().getResource("translations/catalogue.de.php").getFile());
+        Map<String, Set<String>> domains = TranslationCatalogueParser.parse(new String(Files.readAllBytes(testFile.toPath()), StandardCharsets.UTF_8));
+        assertNotNull(domains);
+
+        assertTrue(domains.get("FOSUserBundle").contains("registration.email.message"));
+        assertTrue(domains.get("validators").contains("foo.escape"));
+        assertTrue(domains.get("welcome_login").contains("login.headline"));
+
+        // fallback catalogue
+        assertTrue(domains.get("CraueFormFlowBundle").contains("button.finish"));
+
+        assertFalse(domains.containsKey("NotInList"));
+    }
+
+    @Test
+    public void testParseShortArraySyntaxAndFqn() {
+        Map<String, Set<String>> domains = TranslationCatalogueParser.parse("<?php\n" +
+            "$catalogue = new \\Symfony\\Component\\Translation\\MessageCatalogue('de', [\n" +
+            "  'messages' => ['foo' => 'bar', 'foo\\'s' => 'bar'],\n" +
+            "  'empty' => [],\n" +
+            "]);\n"
+        );
+
+        assertNotNull(domains);
+        assertTrue(domains.get("messages").contains("foo"));
+        assertTrue(domains.get("messages").contains("foo\\'s"));
+        assertTrue(domains.get("empty").isEmpty());
+    }
+
+    @Test
+    public void testUnknownFormatIsNull() {
+        assertNull(TranslationCatalogueParser.parse("<?php\n$foo = array();"));
+        assertNull(TranslationCatalogueParser.parse("<?php\n$catalogue = new MessageCatalogue('de', $messages);"));
+        assertNull(TranslationCatalogueParser.parse("<?php\n$catalogue = new MessageCatalogue('de', array('foo' => array("));
+    }
+}
@@ -6,6 +6,7 @@ import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.xml.XmlFile;
 import com.intellij.util.containers.ContainerUtil;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.dict.DoctrineManagerEnum;
@@ -142,6 +143,21 @@ public class DoctrineMetadataUtilTest extends SymfonyLightCodeInsightFixtureTest
         assertNotNull(items.get("foo_table"));
     }
 
+    /**
+     * @see fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.util.DoctrineMetadataUtil#getTableTargets
+     */
+    public void testGetTableTargets() {
+        PsiElement target = ContainerUtil.getFirstItem(DoctrineMetadataUtil.getTableTargets(getProject(), "foo_table"));
+        assertTrue(target instanceof PhpClass);
+        assertEquals("Doctrine\\Tests\\ORM\\Mapping\\YamlUser", ((PhpClass) target).getPresentableFQN());
+
+        // no class; fallback to metadata file
+        target = ContainerUtil.getFirstItem(DoctrineMetadataUtil.getTableTargets(getProject(), "cms_users"));
+        assertTrue(target instanceof XmlFile);
+
+        assertSize(0, DoctrineMetadataUtil.getTableTargets(getProject(), "unknown_table"));
+    }
+
     /**
      * @see fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.util.DoctrineMetadataUtil#getMetadataByTable
      */
@@ -9,8 +9,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.util.Collection;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -119,4 +120,45 @@ public class ProfilerUtilTest extends SymfonyLightCodeInsightFixtureTestCase {
             ProfilerUtil.formatProfilerRow(new LocalProfilerRequest("18e6b8,127.0.0.1,GET,asdss127.0.0.1:8000/app_test.php/foobar/foobar/,1474185112,76c8ab,404".split(",")))
         );
     }
+
+    /**
+     * @see ProfilerUtil#getProfilerRequestCollectorDecorated
+     */
+    public void testGetProfilerRequestCollectorDecoratedSkipsFailedRequests() {
+        Collection<Callable<ProfilerRequestInterface>> callable = new ArrayList<>();
+        callable.add(() -> new LocalProfilerRequest("foo,127.0.0.1,GET,http://127.0.0.1:8000/foo".split(",")));
+        callable.add(() -> {
+            throw new Exception();
+        });
+        callable.add(() -> new LocalProfilerRequest("bar,127.0.0.1,GET,http://127.0.0.1:8000/bar".split(",")));
+
+        Set<String> hashes = ProfilerUtil.getProfilerRequestCollectorDecorated(callable).stream()
+            .map(ProfilerRequestInterface::getHash)
+            .collect(Collectors.toSet());
+
+        assertEquals(new HashSet<>(Arrays.asList("foo", "bar")), hashes);
+    }
+
+    /**
+     * @see ProfilerUtil#getProfilerRequestCollectorDecorated
+     */
+    public void testGetProfilerRequestCollectorDecoratedPublishesEveryLoadedRequest() {
+        Collection<Callable<ProfilerRequestInterface>> callable = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String hash = "hash" + i;
+            callable.add(() -> new LocalProfilerRequest((hash + ",127.0.0.1,GET,http://127.0.0.1:8000/" + hash).split(",")));
+        }
+
+        callable.add(() -> null);
+
+        List<String> published = new ArrayList<>();
+        List<String> hashes = ProfilerUtil.getProfilerRequestCollectorDecorated(callable, request -> published.add(request.getHash())).stream()
+            .map(ProfilerRequestInterface::getHash)
+            .collect(Collectors.toList());
+
+        assertEquals(20, hashes.size());
+        assertEquals("hash0", hashes.get(0));
+        assertEquals("hash19", hashes.get(19));
+        assertEquals(new HashSet<>(hashes), new HashSet<>(published));
+    }
 }
@@ -0,0 +1,80 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.profiler.reader;
+
+import fr.adrienbrault.idea.symfony2plugin.profiler.reader.TailFileLineReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see TailFileLineReader
+ */
+public class TailFileLineReaderTest extends Assert {
+
+    @Test
+    public void testThatLastLinesAreReadNewestFirst() throws IOException {
+        File file = createFile("a\nb\n\nc\nd\n");
+
+        assertEquals(Arrays.asList("d", "c", "b"), new TailFileLineReader(file, 3).readLines());
+    }
+
+    @Test
+    public void testThatAppendedLinesAreAddedAndIncompleteLineIsDeferred() throws IOException {
+        File file = createFile("a\nb\n");
+        TailFileLineReader reader = new TailFileLineReader(file, 3);
+
+        assertEquals(Arrays.asList("b", "a"), reader.readLines());
+
+        append(file, "c\nd");
+        assertEquals(Arrays.asList("c", "b", "a"), reader.readLines());
+
+        append(file, "\r\n");
+        assertEquals(Arrays.asList("d", "c", "b"), reader.readLines());
+    }
+
+    @Test
+    public void testThatTruncatedFileIsReadAgain() throws IOException {
+        File file = createFile("a\nb\nc\n");
+        TailFileLineReader reader = new TailFileLineReader(file, 3);
+        reader.readLines();
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("d\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(Collections.singletonList("d"), reader.readLines());
+    }
+
+    @Test
+    public void testThatMissingFileHasNoLines() throws IOException {
+        File file = createFile("a\n");
+        TailFileLineReader reader = new TailFileLineReader(file, 3);
+        reader.readLines();
+
+        assertTrue(file.delete());
+        assertTrue(reader.readLines().isEmpty());
+    }
+
+    private static File createFile(String content) throws IOException {
+        File file = File.createTempFile("index", ".csv");
+        file.deleteOnExit();
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return file;
+    }
+
+    private static void append(File file, String content) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.routing;
+
+import fr.adrienbrault.idea.symfony2plugin.routing.Route;
+import fr.adrienbrault.idea.symfony2plugin.routing.UrlGeneratorRouteParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.routing.UrlGeneratorRouteParser
+ */
+public class UrlGeneratorRouteParserTest extends Assert {
+
+    @Test
+    public void testParseStaticField() throws IOException {
+        Map<String, Route> routes = UrlGeneratorRouteParser.parse(getFixture("appTestUrlGenerator.php"));
+        assertNotNull(routes);
+
+        assertEquals("Lol\\CoreBundle\\Controller\\FeedbackController::feedbackAction", routes.get("feedback").getController());
+        assertEquals("Lol\\ApiBundle\\Controller\\UsersController::getInfoAction", routes.get("api_users_getInfo").getController());
+        assertNull(routes.get("ru__RG__page"));
+        assertNull(routes.get("_assetic_91dd2a8"));
+
+        Route page = routes.get("page");
+        assertTrue(page.getVariables().contains("alias"));
+        assertEquals(".[a-zA-Z0-9\\\\-]+", page.getRequirements().get("alias"));
+    }
+
+    @Test
+    public void testParseConstructorAssignment() throws IOException {
+        Map<String, Route> routes = UrlGeneratorRouteParser.parse(getFixture("appDevUrlGenerator-28.php"));
+        assertNotNull(routes);
+
+        Route wdt = routes.get("_wdt");
+        assertEquals("web_profiler.controller.profiler:toolbarAction", wdt.getController());
+        assertEquals(1, wdt.getVariables().size());
+        assertEquals(1, wdt.getDefaults().size());
+        assertEquals(2, wdt.getTokens().size());
+    }
+
+    @Test
+    public void testParseShortArraySyntaxWithoutKeys() {
+        Map<String, Route> routes = UrlGeneratorRouteParser.parse("<?php\n" +
+            "class Foo {\n" +
+            "  public function __construct() {\n" +
+            "    self::$declaredRoutes = [\n" +
+            "      '_wdt' => [['token'], ['_controller' => 'web_profiler.controller.profiler::toolbarAction', 'foo' => null], [], [['variable', '/', '[^/]++', 'token'], ['text', '/_wdt']], [], []],\n" +
+            "    ];\n" +
+            "  }\n" +
+            "}\n"
+        );
+
+        assertNotNull(routes);
+
+        Route wdt = routes.get("_wdt");
+        assertEquals("web_profiler.controller.profiler::toolbarAction", wdt.getController());
+        assertTrue(wdt.getVariables().contains("token"));
+        assertEquals(1, wdt.getDefaults().size());
+        assertEquals(2, wdt.getTokens().size());
+    }
+
+    @Test
+    public void testUnknownFormatIsNull() {
+        assertNull(UrlGeneratorRouteParser.parse("<?php\nclass Foo { private static $foo = array(); }"));
+        assertNull(UrlGeneratorRouteParser.parse("<?php\nself::$declaredRoutes = array('foo' => array(FOO::BAR));"));
+        assertNull(UrlGeneratorRouteParser.parse("<?php\nself::$declaredRoutes = array('foo' => array("));
+    }
+
+    private String getFixture(String file) throws IOException {
+        File testFile = new File(this.getClass().getResource("fixtures/" + file).getFile());
+        return new String(Files.readAllBytes(testFile.toPath()), StandardCharsets.UTF_8);
+    }
+}
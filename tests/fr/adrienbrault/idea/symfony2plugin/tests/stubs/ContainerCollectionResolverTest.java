@@ -1,12 +1,23 @@
 package fr.adrienbrault.idea.symfony2plugin.tests.stubs;
 
+import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.testFramework.PlatformTestUtil;
 import fr.adrienbrault.idea.symfony2plugin.dic.ContainerParameter;
 import fr.adrienbrault.idea.symfony2plugin.dic.ContainerService;
+import fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector;
+import fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollectorParameter;
 import fr.adrienbrault.idea.symfony2plugin.stubs.ContainerCollectionResolver;
 import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.yaml.YAMLFileType;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -88,6 +99,19 @@ public class ContainerCollectionResolverTest extends SymfonyLightCodeInsightFixt
         assertTrue(classNames.contains("foo"));
     }
 
+    public void testThatServiceClassNamesAreResolvedAsFqnAndCached() {
+        Collection<String> classNames = ContainerCollectionResolver.getServiceClassNames(getProject(), "Foo_Datetime");
+        assertNotNull(classNames);
+        assertSize(3, classNames);
+
+        assertTrue(classNames.contains("\\DateTime"));
+        assertTrue(classNames.contains("\\DateTimeInterface"));
+        assertTrue(classNames.contains("\\foo"));
+
+        assertSame(classNames, ContainerCollectionResolver.getServiceClassNames(getProject(), "foo_datetime"));
+        assertNull(ContainerCollectionResolver.getServiceClassNames(getProject(), "unknown_service"));
+    }
+
     public void testThatAliasedServiceIsEqualWithMainService() {
 
         myFixture.configureByText(YAMLFileType.YML, "" +
@@ -127,4 +151,141 @@ public class ContainerCollectionResolverTest extends SymfonyLightCodeInsightFixt
         assertEquals(true, service.isPrivate());
         assertEquals(true, service.isWeak());
     }
+
+    public void testConvertClassNameToServicesIsCaseInsensitiveAndResolvesParameter() {
+        Set<String> services = ContainerCollectionResolver.ServiceCollector.create(getProject()).convertClassNameToServices("\\datetime");
+        assertContainsElements(services, "foo", "foo_slash", "foo_upper", "foo_datetime");
+
+        assertContainsElements(
+            ContainerCollectionResolver.ServiceCollector.create(getProject()).convertClassNameToServices("foo"),
+            "foo_datetime"
+        );
+
+        assertSize(0, ContainerCollectionResolver.ServiceCollector.create(getProject()).convertClassNameToServices("Unknown\\Foo"));
+    }
+
+    public void testThatServiceSnapshotIsSharedAndRebuildOnChange() {
+        Map<String, ContainerService> services = ContainerCollectionResolver.getServices(getProject());
+        assertSame(services, ContainerCollectionResolver.getServices(getProject()));
+
+        myFixture.configureByText(YAMLFileType.YML, "" +
+            "services:\n" +
+            "    foo_snapshot:\n" +
+            "        class: DateTime\n"
+        );
+
+        assertNotSame(services, ContainerCollectionResolver.getServices(getProject()));
+        assertTrue(ContainerCollectionResolver.hasServiceNames(getProject(), "foo_snapshot"));
+    }
+
+    public void testThatNestedParameterAreResolvedAndCyclesAreDetected() {
+        myFixture.configureByText("foo5.yml", "" +
+            "parameters:\n" +
+            "    nested_root: /var\n" +
+            "    nested_path: '%nested_root%/app%%'\n" +
+            "    nested_alias: '%nested_path%'\n" +
+            "    cycle_a: '%cycle_b%'\n" +
+            "    cycle_b: '%cycle_a%'\n" +
+            "    env(nested_env): env_default\n"
+        );
+
+        assertEquals("/var/app%", ContainerCollectionResolver.resolveParameter(getProject(), "%nested_alias%"));
+        assertEquals("/var/app%/foo", ContainerCollectionResolver.resolveParameter(getProject(), "%nested_path%/foo"));
+        assertEquals("env_default", ContainerCollectionResolver.resolveParameter(getProject(), "%env(string:nested_env)%"));
+
+        assertNull(ContainerCollectionResolver.resolveParameter(getProject(), "%cycle_a%"));
+        assertNull(ContainerCollectionResolver.resolveParameter(getProject(), "%unknown_parameter%"));
+        assertEquals("DateTime", ContainerCollectionResolver.resolveParameter(getProject(), "DateTime"));
+    }
+
+    public void testThatExtensionServicesAreNotCached() {
+        MyServiceCollector collector = new MyServiceCollector();
+        PlatformTestUtil.registerExtension(
+            ExtensionPointName.create("fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector"),
+            collector,
+            getTestRootDisposable()
+        );
+
+        assertFalse(ContainerCollectionResolver.hasServiceNames(getProject(), "foo_extension"));
+
+        collector.setId("foo_extension");
+
+        assertTrue(ContainerCollectionResolver.hasServiceNames(getProject(), "foo_extension"));
+        assertEquals("DateTime", ContainerCollectionResolver.getServices(getProject()).get("foo_extension").getClassName());
+    }
+
+    public void testThatServiceModelIsKeptWhileExtensionTrackerIsUnchanged() {
+        MyServiceCollector collector = new MyServiceCollector();
+        PlatformTestUtil.registerExtension(
+            ExtensionPointName.create("fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector"),
+            collector,
+            getTestRootDisposable()
+        );
+
+        collector.setId("foo_extension");
+        Map<String, ContainerService> services = ContainerCollectionResolver.getServices(getProject());
+        assertSame(services, ContainerCollectionResolver.getServices(getProject()));
+
+        // output change without a tracker change is not seen
+        collector.id = "bar_extension";
+        assertSame(services, ContainerCollectionResolver.getServices(getProject()));
+    }
+
+    public void testThatLonePercentIsKeptOnResolve() {
+        myFixture.configureByText("foo6.yml", "" +
+            "parameters:\n" +
+            "    lone_percent: 'abc%def'\n" +
+            "    lone_root: /var\n"
+        );
+
+        assertEquals("100%", ContainerCollectionResolver.resolveParameter(getProject(), "100%"));
+        assertEquals("abc%def", ContainerCollectionResolver.resolveParameter(getProject(), "abc%def"));
+        assertEquals("abc%def", ContainerCollectionResolver.resolveParameter(getProject(), "%lone_percent%"));
+        assertEquals("/var/50%", ContainerCollectionResolver.resolveParameter(getProject(), "%lone_root%/50%"));
+    }
+
+    public void testThatCycleValuesDontDependOnResolveOrder() {
+        myFixture.configureByText("foo7.yml", "" +
+            "parameters:\n" +
+            "    cycle_c: '%cycle_d%x'\n" +
+            "    cycle_d: '%cycle_c%y'\n"
+        );
+
+        assertEquals("%cycle_c%yx", ContainerCollectionResolver.resolveParameter(getProject(), "%cycle_c%"));
+        assertEquals("%cycle_d%xy", ContainerCollectionResolver.resolveParameter(getProject(), "%cycle_d%"));
+        assertEquals("%cycle_c%yx", ContainerCollectionResolver.resolveParameter(getProject(), "%cycle_c%"));
+    }
+
+    private static class MyServiceCollector implements ServiceCollector {
+        @Nullable
+        private String id;
+
+        @NotNull
+        private final SimpleModificationTracker tracker = new SimpleModificationTracker();
+
+        private void setId(@Nullable String id) {
+            this.id = id;
+            this.tracker.incModificationCount();
+        }
+
+        @Override
+        public void collectServices(@NotNull ServiceCollectorParameter.Service parameter) {
+            if(id != null) {
+                parameter.add(id, "DateTime");
+            }
+        }
+
+        @Override
+        public void collectIds(@NotNull ServiceCollectorParameter.Id parameter) {
+            if(id != null) {
+                parameter.add(id);
+            }
+        }
+
+        @NotNull
+        @Override
+        public ModificationTracker getModificationTracker(@NotNull Project project) {
+            return tracker;
+        }
+    }
 }
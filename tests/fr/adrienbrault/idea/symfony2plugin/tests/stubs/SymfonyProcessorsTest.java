@@ -0,0 +1,76 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.stubs;
+
+import com.intellij.ide.highlighter.XmlFileType;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.psi.PsiDocumentManager;
+import fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesDefinitionStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ *
+ * @see fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors
+ */
+public class SymfonyProcessorsTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void testFilterLiveKeysDropsKeysOfChangedFile() {
+        myFixture.configureByText(XmlFileType.INSTANCE, "" +
+            "<container>\n" +
+            "  <services>\n" +
+            "      <service id=\"foo_live\" class=\"Foo\\Bar\"/>\n" +
+            "      <service id=\"foo_<caret>removed\" class=\"Foo\\Bar\"/>\n" +
+            "  </services>\n" +
+            "</container>"
+        );
+
+        Set<String> keys = SymfonyProcessors.filterLiveKeys(getProject(), ServicesDefinitionStubIndex.KEY, Arrays.asList("foo_live", "foo_removed"));
+        assertContainsElements(keys, "foo_live", "foo_removed");
+
+        // rename the service id, so "foo_removed" is only a stale key now
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> myFixture.type("re"));
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+
+        keys = SymfonyProcessors.filterLiveKeys(getProject(), ServicesDefinitionStubIndex.KEY, Arrays.asList("foo_live", "foo_removed", "foo_reremoved"));
+        assertContainsElements(keys, "foo_live", "foo_reremoved");
+        assertDoesntContain(keys, "foo_removed");
+    }
+
+    public void testFilterLiveKeysIsCachedUntilTrackerChanges() {
+        myFixture.configureByText(XmlFileType.INSTANCE, "" +
+            "<container>\n" +
+            "  <services>\n" +
+            "      <service id=\"foo_live\" class=\"Foo\\Bar\"/>\n" +
+            "      <service id=\"foo_<caret>removed\" class=\"Foo\\Bar\"/>\n" +
+            "  </services>\n" +
+            "</container>"
+        );
+
+        SimpleModificationTracker tracker = new SimpleModificationTracker();
+
+        Set<String> keys = SymfonyProcessors.filterLiveKeys(getProject(), ServicesDefinitionStubIndex.KEY, Arrays.asList("foo_live", "foo_removed", "foo_unknown"), tracker);
+        assertContainsElements(keys, "foo_live", "foo_removed");
+        assertDoesntContain(keys, "foo_unknown");
+
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> myFixture.type("re"));
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+
+        // live keys are shared until the domain changes
+        keys = SymfonyProcessors.filterLiveKeys(getProject(), ServicesDefinitionStubIndex.KEY, Arrays.asList("foo_live", "foo_removed", "foo_reremoved"), tracker);
+        assertContainsElements(keys, "foo_live", "foo_removed");
+
+        tracker.incModificationCount();
+
+        keys = SymfonyProcessors.filterLiveKeys(getProject(), ServicesDefinitionStubIndex.KEY, Arrays.asList("foo_live", "foo_removed", "foo_reremoved"), tracker);
+        assertContainsElements(keys, "foo_live", "foo_reremoved");
+        assertDoesntContain(keys, "foo_removed");
+    }
+
+    public void testFilterLiveKeysOfEmptyKeys() {
+        assertEmpty(SymfonyProcessors.filterLiveKeys(getProject(), ServicesDefinitionStubIndex.KEY, Arrays.asList()));
+    }
+}
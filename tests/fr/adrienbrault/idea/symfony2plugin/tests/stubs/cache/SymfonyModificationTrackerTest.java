@@ -0,0 +1,107 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.stubs.cache;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.PsiDocumentManager;
+import com.jetbrains.php.lang.PhpFileType;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker;
+import fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker.Domain;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ *
+ * @see fr.adrienbrault.idea.symfony2plugin.stubs.cache.SymfonyModificationTracker
+ */
+public class SymfonyModificationTrackerTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void testDomainsOfFiles() {
+        assertEquals(EnumSet.of(Domain.SERVICES, Domain.ROUTES, Domain.TEMPLATES, Domain.DOCTRINE), SymfonyModificationTracker.getDomains("/src/config/services.yml", false, null));
+        assertEmpty(SymfonyModificationTracker.getDomains("/src/translations/messages.de.xlf", false, null));
+        assertEquals(EnumSet.of(Domain.SERVICES), SymfonyModificationTracker.getDomains("/src/.env", false, null));
+        assertEquals(EnumSet.of(Domain.TEMPLATES), SymfonyModificationTracker.getDomains("/src/ide-twig.json", false, null));
+    }
+
+    public void testTwigTemplatesOnlyChangeOnStructure() {
+        assertEmpty(SymfonyModificationTracker.getDomains("/templates/foo.html.twig", false, null));
+        assertEquals(EnumSet.of(Domain.TEMPLATES), SymfonyModificationTracker.getDomains("/templates/foo.html.twig", true, null));
+    }
+
+    public void testPhpMethodBodyOnlyChangesMatchingDomains() {
+        assertEmpty(SymfonyModificationTracker.getDomains("/src/Controller/FooController.php", false, "indexAction"));
+        assertEquals(EnumSet.of(Domain.TWIG_EXTENSIONS), SymfonyModificationTracker.getDomains("/src/Twig/FooExtension.php", false, "getFilters"));
+        assertEquals(EnumSet.of(Domain.SERVICES), SymfonyModificationTracker.getDomains("/src/EventSubscriber/FooSubscriber.php", false, "getSubscribedEvents"));
+        assertEquals(EnumSet.of(Domain.SERVICES), SymfonyModificationTracker.getDomains("/src/DependencyInjection/FooExtension.php", false, "load"));
+    }
+
+    public void testEditInsideMethodBodyKeepsRoutes() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "class FooController\n" +
+            "{\n" +
+            "   public function indexAction()\n" +
+            "   {\n" +
+            "       $foo = <caret>;\n" +
+            "   }\n" +
+            "}\n"
+        );
+
+        ModificationTracker routes = SymfonyModificationTracker.getTracker(getProject(), Domain.ROUTES);
+        long count = routes.getModificationCount();
+
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> myFixture.type("'bar'"));
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+
+        assertEquals(count, routes.getModificationCount());
+    }
+
+    public void testSaveOfEditInsideMethodBodyKeepsAllDomains() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "class FooController\n" +
+            "{\n" +
+            "   public function indexAction()\n" +
+            "   {\n" +
+            "       $foo = <caret>;\n" +
+            "   }\n" +
+            "}\n"
+        );
+
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> myFixture.type("'bar'"));
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+
+        Map<Domain, Long> counts = new EnumMap<>(Domain.class);
+        for (Domain domain : Domain.values()) {
+            counts.put(domain, SymfonyModificationTracker.getTracker(getProject(), domain).getModificationCount());
+        }
+
+        FileDocumentManager.getInstance().saveAllDocuments();
+
+        for (Domain domain : Domain.values()) {
+            assertEquals((long) counts.get(domain), SymfonyModificationTracker.getTracker(getProject(), domain).getModificationCount());
+        }
+    }
+
+    public void testEditOfContainerBuilderCallInsideMethodBodyChangesServices() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "class FooPass\n" +
+            "{\n" +
+            "   public function process($container)\n" +
+            "   {\n" +
+            "       $container->setParameter('foo', <caret>);\n" +
+            "   }\n" +
+            "}\n"
+        );
+
+        ModificationTracker services = SymfonyModificationTracker.getTracker(getProject(), Domain.SERVICES);
+        long count = services.getModificationCount();
+
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> myFixture.type("'bar'"));
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+
+        assertTrue(services.getModificationCount() > count);
+    }
+}
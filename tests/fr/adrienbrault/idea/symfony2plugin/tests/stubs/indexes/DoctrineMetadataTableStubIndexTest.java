@@ -0,0 +1,97 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.stubs.indexes;
+
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModel;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelSerializable;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.dict.DoctrineManagerEnum;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.DoctrineMetadataTableStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ *
+ * @see fr.adrienbrault.idea.symfony2plugin.stubs.indexes.DoctrineMetadataTableStubIndex
+ */
+public class DoctrineMetadataTableStubIndexTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.configureByText("doctrine.orm.xml",
+            "<doctrine-mapping>\n" +
+            "    <entity name=\"Documents\\Xml\\OrmUser\" table=\"cms_users\"/>\n" +
+            "    <entity name=\"Documents\\Xml\\NoTable\"/>\n" +
+            "    <entity name=\"Documents\\Xml\\OrmAdmin\" table=\"cms_users\"/>\n" +
+            "</doctrine-mapping>"
+        );
+
+        myFixture.configureByText("doctrine.orm.yml", "" +
+            "Documents\\Yml\\OrmUser:\n" +
+            "  type: entity\n" +
+            "  table: yml_users\n" +
+            "  repositoryClass: Documents\\Yml\\OrmUserRepository"
+        );
+
+        myFixture.configureByText("config.yml", "" +
+            "foo:\n" +
+            "  table: config_table\n"
+        );
+
+        myFixture.configureByText("doctrine.php", "<?php\n" +
+            "namespace Doctrine\\ORM\\Mapping { class Entity {}; class Table {}; }\n" +
+            "namespace App {\n" +
+            "  use Doctrine\\ORM\\Mapping as ORM;\n" +
+            "  /**\n" +
+            "   * @ORM\\Entity()\n" +
+            "   * @ORM\\Table(name=\"php_users\")\n" +
+            "   */\n" +
+            "  class User {}\n" +
+            "  /**\n" +
+            "   * @ORM\\Entity()\n" +
+            "   * @ORM\\Table(name='php_admins')\n" +
+            "   */\n" +
+            "  class Admin {}\n" +
+            "  /**\n" +
+            "   * @ORM\\Entity()\n" +
+            "   * @ORM\\Table(name=|php_pipes|)\n" +
+            "   */\n" +
+            "  class Pipe {}\n" +
+            "}"
+        );
+    }
+
+    public void testTablesOfMetadataAreIndexed() {
+        assertIndexContains(DoctrineMetadataTableStubIndex.KEY, "cms_users", "yml_users", "php_users", "php_admins");
+        assertIndexNotContains(DoctrineMetadataTableStubIndex.KEY, "config_table", "php_pipes");
+
+        DoctrineModel model = (DoctrineModel) ContainerUtil.getFirstItem(getModels("php_users"));
+
+        assertEquals("App\\User", model.getClassName());
+        assertEquals(DoctrineManagerEnum.ORM, model.getManager());
+    }
+
+    public void testAllModelsOfTableInsideOneFileAreIndexed() {
+        Set<String> classes = getModels("cms_users").stream()
+            .map(DoctrineModelSerializable::getClassName)
+            .collect(Collectors.toSet());
+
+        assertContainsElements(classes, "Documents\\Xml\\OrmUser", "Documents\\Xml\\OrmAdmin");
+    }
+
+    private List<DoctrineModelSerializable> getModels(String table) {
+        List<DoctrineModelSerializable> models = new ArrayList<>();
+
+        for (List<DoctrineModelSerializable> fileModels : FileBasedIndex.getInstance().getValues(DoctrineMetadataTableStubIndex.KEY, table, GlobalSearchScope.allScope(getProject()))) {
+            models.addAll(fileModels);
+        }
+
+        return models;
+    }
+}
@@ -0,0 +1,42 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.stubs.indexes;
+
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesTagNameStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import fr.adrienbrault.idea.symfony2plugin.util.dict.ServiceUtil;
+
+import java.io.File;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ *
+ * @see fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesTagNameStubIndex
+ */
+public class ServicesTagNameStubIndexTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.configureFromExistingVirtualFile(myFixture.copyFileToProject("tagged.services.xml"));
+        myFixture.configureFromExistingVirtualFile(myFixture.copyFileToProject("tagged.services.yml"));
+    }
+
+    public String getTestDataPath() {
+        return new File(this.getClass().getResource("fixtures").getFile()).getAbsolutePath();
+    }
+
+    public void testTagNameInIndex() {
+        assertIndexContains(ServicesTagNameStubIndex.KEY, "xml_type_tag", "yaml_type_tag", "yaml_type_tag2", "yaml_type_tag3");
+    }
+
+    public void testTagNameValueContainsServiceIds() {
+        assertIndexContainsKeyWithValue(ServicesTagNameStubIndex.KEY, "xml_type_tag", value -> value.contains("foo.tagged.xml_type"));
+        assertIndexContainsKeyWithValue(ServicesTagNameStubIndex.KEY, "yaml_type_tag", value -> value.contains("foo.tagged.yaml_type"));
+        assertIndexContainsKeyWithValue(ServicesTagNameStubIndex.KEY, "yaml_type_tag2", value -> value.contains("foo.tagged.yaml_type2"));
+        assertIndexContainsKeyWithValue(ServicesTagNameStubIndex.KEY, "yaml_type_tag3", value -> value.contains("foo.tagged.yaml_type3"));
+    }
+
+    public void testTaggedServicesByTagName() {
+        assertContainsElements(ServiceUtil.getTaggedServices(getProject(), "yaml_type_tag2"), "foo.tagged.yaml_type2");
+        assertEmpty(ServiceUtil.getTaggedServices(getProject(), "unknown_tag"));
+    }
+}
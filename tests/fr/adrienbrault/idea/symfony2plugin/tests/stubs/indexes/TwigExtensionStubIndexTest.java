@@ -0,0 +1,44 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.stubs.indexes;
+
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TwigExtensionDefinitions;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigExtensionStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+
+import java.io.File;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ *
+ * @see fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigExtensionStubIndex
+ */
+public class TwigExtensionStubIndexTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.copyFileToProject("TwigExtensionStubIndex.php");
+    }
+
+    public String getTestDataPath() {
+        return new File(this.getClass().getResource("fixtures").getFile()).getAbsolutePath();
+    }
+
+    public void testThatExtensionElementsAreIndexedByClass() {
+        assertIndexContains(TwigExtensionStubIndex.KEY, "\\Twig\\Extensions");
+        assertIndexNotContains(TwigExtensionStubIndex.KEY, "\\Twig_ExtensionInterface");
+
+        TwigExtensionDefinitions definitions = ContainerUtil.getFirstItem(FileBasedIndex.getInstance().getValues(
+            TwigExtensionStubIndex.KEY,
+            "\\Twig\\Extensions",
+            GlobalSearchScope.allScope(getProject()))
+        );
+
+        assertEquals("#M#C\\Twig\\Extensions.foobar", definitions.getFilters().get("trans").getSignature());
+        assertEquals("#Fmax", definitions.getFunctions().get("max").getSignature());
+        assertEquals("#Ffoo_test", definitions.getTests().get("my_test_2").getSignature());
+        assertEquals("OPERATOR", definitions.getOperators().get("not").getType());
+    }
+}
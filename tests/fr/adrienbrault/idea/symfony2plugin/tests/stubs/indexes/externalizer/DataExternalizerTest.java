@@ -0,0 +1,110 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.SerializableService;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.ServiceSerializable;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.dict.ContainerBuilderCall;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModel;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelSerializable;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.dict.DoctrineManagerEnum;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.DispatcherEvent;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.FileResource;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.StubIndexedRoute;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TemplateUsage;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TwigExtensionDefinitions;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.*;
+import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigExtension;
+import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigExtensionParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class DataExternalizerTest extends Assert {
+
+    @Test
+    public void testServiceSerializableRoundTrip() throws IOException {
+        SerializableService service = new SerializableService("foo")
+            .setClassName("Foo\\Bar")
+            .setAlias("bar")
+            .setDecorates("foo.inner")
+            .setIsPublic(false)
+            .setIsLazy(true)
+            .setIsAutowire(false);
+
+        ServiceSerializable read = roundTrip(ServiceSerializableExternalizer.INSTANCE, service);
+        assertEquals(service, read);
+        assertFalse(read.isPublic());
+        assertTrue(read.isLazy());
+        assertNull(((SerializableService) read).getIsAbstract());
+        assertNull(read.getParent());
+
+        assertEquals(new SerializableService("empty"), roundTrip(ServiceSerializableExternalizer.INSTANCE, new SerializableService("empty")));
+    }
+
+    @Test
+    public void testRouteRoundTrip() throws IOException {
+        StubIndexedRoute route = new StubIndexedRoute("foo_route");
+        route.setPath("/foo/{id}");
+        route.addMethod(new String[] {"GET", "POST"});
+
+        StubIndexedRoute read = roundTrip(StubIndexedRouteExternalizer.INSTANCE, route);
+        assertEquals(route, read);
+        assertNull(read.getController());
+    }
+
+    @Test
+    public void testValueRoundTrips() throws IOException {
+        TemplateUsage templateUsage = new TemplateUsage("foo.html.twig", Arrays.asList("Foo::bar", "Foo::baz"));
+        assertEquals(templateUsage, roundTrip(TemplateUsageExternalizer.INSTANCE, templateUsage));
+
+        DoctrineModel doctrineModel = new DoctrineModel("Foo\\Entity").setRepositoryClass("Foo\\Repository");
+        assertEquals(doctrineModel, roundTrip(DoctrineModelExternalizer.INSTANCE, doctrineModel));
+        assertEquals(new DoctrineModel("Foo\\Entity"), roundTrip(DoctrineModelExternalizer.INSTANCE, new DoctrineModel("Foo\\Entity")));
+
+        DoctrineModel tableModel = new DoctrineModel("Foo\\Entity").setTable("foo_table").setManager(DoctrineManagerEnum.ORM);
+        assertEquals(tableModel, roundTrip(DoctrineModelExternalizer.INSTANCE, tableModel));
+
+        List<DoctrineModelSerializable> tableModels = Arrays.asList(tableModel, new DoctrineModel("Foo\\Admin").setTable("foo_table"));
+        assertEquals(tableModels, roundTrip(DoctrineModelsExternalizer.INSTANCE, tableModels));
+
+        DispatcherEvent dispatcherEvent = new DispatcherEvent("Foo\\Events", null);
+        assertEquals(dispatcherEvent, roundTrip(DispatcherEventExternalizer.INSTANCE, dispatcherEvent));
+
+        ContainerBuilderCall call = new ContainerBuilderCall();
+        call.setName("setParameter");
+        call.addParameter("foo");
+        call.addParameter("bar");
+        assertEquals(call, roundTrip(ContainerBuilderCallExternalizer.INSTANCE, call));
+
+        FileResource fileResource = new FileResource("@FooBundle/Resources/config/routing.yml").setPrefix("/foo");
+        assertEquals(fileResource, roundTrip(FileResourceExternalizer.INSTANCE, fileResource));
+    }
+
+    @Test
+    public void testTwigExtensionDefinitionsRoundTrip() throws IOException {
+        TwigExtensionDefinitions definitions = new TwigExtensionDefinitions();
+        definitions.getFilters().put("trans", new TwigExtension(TwigExtensionParser.TwigExtensionType.FILTER, "#M#C\\Foo.trans").putOption("needs_context", "true"));
+        definitions.getFunctions().put("max", new TwigExtension(TwigExtensionParser.TwigExtensionType.SIMPLE_FUNCTION, "#Fmax"));
+        definitions.getOperators().put("not", new TwigExtension(TwigExtensionParser.TwigExtensionType.OPERATOR));
+
+        TwigExtensionDefinitions read = roundTrip(TwigExtensionDefinitionsExternalizer.INSTANCE, definitions);
+        assertEquals(definitions, read);
+        assertEquals("true", read.getFilters().get("trans").getOption("needs_context"));
+        assertNull(read.getOperators().get("not").getSignature());
+        assertTrue(read.getTests().isEmpty());
+    }
+
+    private static <T> T roundTrip(DataExternalizer<? super T> externalizer, T value) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        externalizer.save(new DataOutputStream(stream), value);
+
+        //noinspection unchecked
+        return (T) externalizer.read(new DataInputStream(new ByteArrayInputStream(stream.toByteArray())));
+    }
+}
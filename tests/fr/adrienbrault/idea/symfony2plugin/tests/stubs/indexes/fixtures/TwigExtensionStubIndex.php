@@ -0,0 +1,47 @@
+<?php
+
+namespace
+{
+    interface Twig_ExtensionInterface
+    {
+        public function getFilters();
+        public function getTests();
+        public function getFunctions();
+        public function getOperators();
+    }
+}
+
+namespace Twig
+{
+    class Extensions implements \Twig_ExtensionInterface
+    {
+        public function getFilters()
+        {
+            return [
+                new \Twig_SimpleFilter('trans', [$this, 'foobar']),
+            ];
+        }
+
+        public function getTests()
+        {
+            return [
+                new \Twig_SimpleTest('my_test_2', 'foo_test'),
+            ];
+        }
+
+        public function getFunctions()
+        {
+            return [
+                new \Twig_SimpleFunction('max', 'max'),
+            ];
+        }
+
+        public function getOperators()
+        {
+            return [
+                ['not' => []],
+                ['or' => []],
+            ];
+        }
+    }
+}
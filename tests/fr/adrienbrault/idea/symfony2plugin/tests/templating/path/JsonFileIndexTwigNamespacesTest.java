@@ -3,6 +3,7 @@ package fr.adrienbrault.idea.symfony2plugin.tests.templating.path;
 import com.intellij.openapi.util.Condition;
 import com.intellij.util.containers.ContainerUtil;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
+import fr.adrienbrault.idea.symfony2plugin.templating.dict.TemplateFileMap;
 import fr.adrienbrault.idea.symfony2plugin.templating.path.TwigPath;
 import fr.adrienbrault.idea.symfony2plugin.templating.path.TwigPathIndex;
 import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
@@ -10,6 +11,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.util.List;
+import java.util.Set;
 
 public class JsonFileIndexTwigNamespacesTest extends SymfonyLightCodeInsightFixtureTestCase {
     @Override
@@ -51,6 +53,29 @@ public class JsonFileIndexTwigNamespacesTest extends SymfonyLightCodeInsightFixt
         assertEquals(TwigPathIndex.NamespaceType.BUNDLE, fooBundle.getNamespaceType());
     }
 
+    /**
+     * @see fr.adrienbrault.idea.symfony2plugin.TwigHelper#getTemplateMap
+     */
+    public void testThatTemplateMapProvidesNamespaceNamesWithoutDepthLimit() {
+        myFixture.copyFileToProject("test.html.twig", "foo/res/a/b/c/d/e/f/deep.html.twig");
+
+        Set<String> templateNames = TwigHelper.getTemplateMap(getProject(), true, false).getTemplateNames().keySet();
+        assertContainsElements(templateNames, "@foo/test.html.twig", "@foo/a/b/c/d/e/f/deep.html.twig", "FooBundle::test.html.twig");
+    }
+
+    /**
+     * @see fr.adrienbrault.idea.symfony2plugin.templating.path.TwigPathFileCache
+     */
+    public void testThatTemplateMapIsUpdatedOnFileStructureChange() {
+        TemplateFileMap templateMap = TwigHelper.getTemplateMap(getProject(), true, false);
+        assertDoesntContain(templateMap.getTemplateNames().keySet(), "@foo/new/new.html.twig");
+        assertSame(templateMap, TwigHelper.getTemplateMap(getProject(), true, false));
+
+        myFixture.copyFileToProject("test.html.twig", "foo/res/new/new.html.twig");
+
+        assertContainsElements(TwigHelper.getTemplateMap(getProject(), true, false).getTemplateNames().keySet(), "@foo/new/new.html.twig", "@foo/test.html.twig");
+    }
+
     private static class MyTwigPathNamespaceCondition implements Condition<TwigPath> {
 
         @NotNull
@@ -0,0 +1,98 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.translation.parser;
+
+import fr.adrienbrault.idea.symfony2plugin.translation.parser.XliffTranslationParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.translation.parser.XliffTranslationParser
+ */
+public class XliffTranslationParserTest extends Assert {
+
+    @Test
+    public void testVersion12() {
+        List<XliffTranslationParser.TranslationUnit> units = parse("" +
+            "<?xml version=\"1.0\"?>\n" +
+            "<xliff version=\"1.2\" xmlns=\"urn:oasis:names:tc:xliff:document:1.2\">\n" +
+            "    <file source-language=\"en\" datatype=\"plaintext\" original=\"file.ext\">\n" +
+            "        <body>\n" +
+            "            <trans-unit id=\"1\" resname=\"index.hello_world\">\n" +
+            "                <source>foo</source>\n" +
+            "                <target>J'aime <g id=\"1\">%foo%</g></target>\n" +
+            "            </trans-unit>\n" +
+            "            <trans-unit id=\"2\">\n" +
+            "                <source><![CDATA[bar]]></source>\n" +
+            "            </trans-unit>\n" +
+            "            <trans-unit id=\"3\">\n" +
+            "                <target>no source</target>\n" +
+            "            </trans-unit>\n" +
+            "        </body>\n" +
+            "    </file>\n" +
+            "</xliff>\n"
+        );
+
+        assertEquals(2, units.size());
+
+        assertEquals("1", units.get(0).getId());
+        assertEquals("index.hello_world", units.get(0).getResname());
+        assertEquals("foo", units.get(0).getSource());
+        assertEquals("J'aime %foo%", units.get(0).getTarget());
+
+        assertEquals("bar", units.get(1).getSource());
+        assertNull(units.get(1).getResname());
+        assertNull(units.get(1).getTarget());
+    }
+
+    @Test
+    public void testVersion20() {
+        List<XliffTranslationParser.TranslationUnit> units = parse("" +
+            "<?xml version=\"1.0\"?>\n" +
+            "<xliff xmlns=\"urn:oasis:names:tc:xliff:document:2.0\" version=\"2.0\" srcLang=\"en-US\" trgLang=\"ja-JP\">\n" +
+            "    <file id=\"f1\">\n" +
+            "        <unit id=\"1\">\n" +
+            "            <segment>\n" +
+            "                <source>foo</source>\n" +
+            "                <target>foo_target</target>\n" +
+            "            </segment>\n" +
+            "        </unit>\n" +
+            "        <group id=\"g1\">\n" +
+            "            <unit id=\"2\">\n" +
+            "                <segment>\n" +
+            "                    <source>bar</source>\n" +
+            "                </segment>\n" +
+            "            </unit>\n" +
+            "        </group>\n" +
+            "    </file>\n" +
+            "</xliff>\n"
+        );
+
+        assertEquals(2, units.size());
+        assertEquals("foo", units.get(0).getSource());
+        assertEquals("foo_target", units.get(0).getTarget());
+        assertEquals("bar", units.get(1).getSource());
+    }
+
+    @Test
+    public void testInvalidXmlProvidesUnitsUntilError() {
+        List<XliffTranslationParser.TranslationUnit> units = parse("" +
+            "<xliff><file><body>\n" +
+            "  <trans-unit id=\"1\"><source>foo</source></trans-unit>\n" +
+            "  <trans-unit id=\"2\"><source>bar</foo>\n"
+        );
+
+        assertEquals(1, units.size());
+        assertEquals("foo", units.get(0).getSource());
+    }
+
+    private static List<XliffTranslationParser.TranslationUnit> parse(String content) {
+        List<XliffTranslationParser.TranslationUnit> units = new ArrayList<>();
+        XliffTranslationParser.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), units::add);
+        return units;
+    }
+}
@@ -0,0 +1,241 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.util.service;
+
+import fr.adrienbrault.idea.symfony2plugin.config.component.parser.ParameterServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.dic.XmlServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerDefinition;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerElement;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerSnapshot;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceParserInterface;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerSnapshot
+ */
+public class ServiceContainerSnapshotTest extends Assert {
+
+    private static final String CONTAINER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+        "<container xmlns=\"http://symfony.com/schema/dic/services\">" +
+            "<parameters>" +
+                "<parameter key=\"foo.class\">Foo\\Bar</parameter>" +
+            "</parameters>" +
+            "<services>" +
+                "<service id=\"foo\" class=\"Foo\\Bar\"/>" +
+            "</services>" +
+        "</container>";
+
+    @Test
+    public void testSnapshotIsReplayedWithSameResult() throws IOException {
+        File source = createContainerFile(CONTAINER);
+        File snapshot = new File(source.getPath() + ".snapshot");
+        snapshot.deleteOnExit();
+
+        assertParsedContainer(source, snapshot);
+        assertTrue(snapshot.exists());
+
+        // replay
+        assertParsedContainer(source, snapshot);
+    }
+
+    @Test
+    public void testTruncatedSnapshotFallsBackToXml() throws IOException {
+        File source = createContainerFile(CONTAINER);
+        File snapshot = new File(source.getPath() + ".snapshot");
+        snapshot.deleteOnExit();
+
+        ServiceContainerSnapshot.parse(source, snapshot, Arrays.asList(new XmlServiceParser()));
+
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        assertParsedContainer(source, snapshot);
+    }
+
+    @Test
+    public void testCorruptedSnapshotNeverFeedsPartialEvents() throws IOException {
+        File source = createContainerFile(CONTAINER);
+        File snapshot = new File(source.getPath() + ".snapshot");
+        snapshot.deleteOnExit();
+
+        ServiceContainerSnapshot.parse(source, snapshot, Arrays.asList(new XmlServiceParser()));
+
+        // end event of "container" before the eof marker becomes an unknown event; footer is still valid
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+            file.seek(file.length() - 8);
+            int stringTable = file.readInt();
+
+            file.seek(stringTable - 6);
+            file.write(0x7F);
+        }
+
+        List<String> ends = new ArrayList<>();
+        ServiceParserInterface parser = new ServiceParserInterface() {
+            @Override
+            public void startElement(@NotNull ServiceContainerElement element) {
+            }
+
+            @Override
+            public void endElement(@NotNull ServiceContainerElement element) {
+                ends.add(element.getName());
+            }
+
+            @Override
+            public void parser(@NotNull InputStream file) {
+            }
+        };
+
+        assertTrue(ServiceContainerSnapshot.parse(source, snapshot, Collections.singletonList(parser)));
+        assertEquals(Arrays.asList("parameter", "parameters", "service", "services", "container"), ends);
+    }
+
+    @Test
+    public void testChangedSourceIsParsedAgain() throws IOException {
+        File source = createContainerFile(CONTAINER);
+        File snapshot = new File(source.getPath() + ".snapshot");
+        snapshot.deleteOnExit();
+
+        ServiceContainerSnapshot.parse(source, snapshot, Arrays.asList(new XmlServiceParser()));
+
+        long lastModified = source.lastModified();
+        Files.write(source.toPath(), CONTAINER.replace("id=\"foo\"", "id=\"car\"").getBytes(StandardCharsets.UTF_8));
+        assertTrue(source.setLastModified(lastModified + 2000));
+
+        XmlServiceParser serviceParser = new XmlServiceParser();
+        ServiceContainerSnapshot.parse(source, snapshot, Arrays.asList(serviceParser));
+
+        assertEquals("Foo\\Bar", serviceParser.getServiceMap().getMap().get("car"));
+        assertNull(serviceParser.getServiceMap().getMap().get("foo"));
+    }
+
+    @Test
+    public void testSnapshotOfSameStampIsUsedWithoutReadingSource() throws IOException {
+        File source = createContainerFile(CONTAINER);
+        File snapshot = new File(source.getPath() + ".snapshot");
+        snapshot.deleteOnExit();
+
+        ServiceContainerSnapshot.parse(source, snapshot, Arrays.asList(new XmlServiceParser()));
+
+        // same size and mtime; content is not hashed again
+        long lastModified = source.lastModified();
+        Files.write(source.toPath(), CONTAINER.replace("id=\"foo\"", "id=\"car\"").getBytes(StandardCharsets.UTF_8));
+        assertTrue(source.setLastModified(lastModified));
+
+        assertParsedContainer(source, snapshot);
+    }
+
+    @Test
+    public void testInvalidXmlIsNotStoredButParsed() throws IOException {
+        File source = createContainerFile(CONTAINER.replace("</container>", "<services>"));
+        File snapshot = new File(source.getPath() + ".snapshot");
+        snapshot.deleteOnExit();
+
+        XmlServiceParser serviceParser = new XmlServiceParser();
+        assertTrue(ServiceContainerSnapshot.parse(source, snapshot, Arrays.asList(serviceParser)));
+
+        assertEquals("Foo\\Bar", serviceParser.getServiceMap().getMap().get("foo"));
+        assertFalse(snapshot.exists());
+    }
+
+    @Test
+    public void testServiceDetailsAreDecodedOnRequest() {
+        ServiceContainerSnapshot snapshot = ServiceContainerSnapshot.create(new ByteArrayInputStream((
+            "<container>" +
+                "<services>" +
+                    "<service id=\"foo\" class=\"\\Foo\\Bar\" decorates=\"bar\">" +
+                        "<tag name=\"kernel.event_listener\" event=\"kernel.request\"/>" +
+                        "<tag name=\"kernel.event_listener\" event=\"kernel.response\"/>" +
+                        "<argument type=\"service\" id=\"car\"/>" +
+                        "<argument>foobar</argument>" +
+                        "<call method=\"setFoo\">" +
+                            "<argument type=\"service\" id=\"apple\"/>" +
+                        "</call>" +
+                    "</service>" +
+                    "<service id=\"car\" class=\"Car\"/>" +
+                "</services>" +
+            "</container>"
+        ).getBytes(StandardCharsets.UTF_8)));
+
+        ServiceContainerDefinition definition = snapshot.getService("foo");
+        assertNotNull(definition);
+
+        assertEquals("Foo\\Bar", definition.getClassName());
+        assertEquals("bar", definition.getDecorates());
+        assertEquals(Collections.singleton("kernel.event_listener"), definition.getTagNames());
+        assertEquals("kernel.response", definition.getTags("kernel.event_listener").get(1).get("event"));
+        assertEquals(Arrays.asList("@car", "foobar"), definition.getArguments());
+        assertEquals(Collections.singletonList("setFoo"), definition.getCalls());
+
+        assertEquals("Car", snapshot.getService("car").getClassName());
+        assertNull(snapshot.getService("apple"));
+    }
+
+    @Test
+    public void testTaggedServicesAreFoundByTagName() throws IOException {
+        File source = createContainerFile("<container>" +
+            "<services>" +
+                "<service id=\"foo\" class=\"Foo\">" +
+                    "<tag name=\"twig.extension\"/>" +
+                    "<tag name=\"twig.extension\"/>" +
+                    "<tag name=\"kernel.event_listener\"/>" +
+                "</service>" +
+                "<service id=\"bar\" class=\"Bar\">" +
+                    "<tag name=\"twig.extension\"/>" +
+                "</service>" +
+                "<service class=\"NoId\">" +
+                    "<tag name=\"no_id\"/>" +
+                "</service>" +
+            "</services>" +
+        "</container>");
+
+        XmlServiceParser serviceParser = new XmlServiceParser();
+
+        ServiceContainerSnapshot snapshot = ServiceContainerSnapshot.load(source, Collections.singletonList(serviceParser));
+        assertNotNull(snapshot);
+        assertEquals("Foo", serviceParser.getServiceMap().getMap().get("foo"));
+
+        assertEquals(new HashSet<>(Arrays.asList("twig.extension", "kernel.event_listener")), snapshot.getTagNames());
+
+        List<String> classes = new ArrayList<>();
+        for (ServiceContainerDefinition service : snapshot.getTaggedServices("twig.extension")) {
+            classes.add(service.getClassName());
+        }
+
+        assertEquals(Arrays.asList("Foo", "Bar"), classes);
+        assertEquals(0, snapshot.getTaggedServices("no_id").size());
+    }
+
+    private static void assertParsedContainer(File source, File snapshot) {
+        XmlServiceParser serviceParser = new XmlServiceParser();
+        ParameterServiceParser parameterParser = new ParameterServiceParser();
+
+        assertTrue(ServiceContainerSnapshot.parse(source, snapshot, Arrays.asList(serviceParser, parameterParser)));
+
+        assertEquals("Foo\\Bar", serviceParser.getServiceMap().getMap().get("foo"));
+        assertEquals("Foo\\Bar", parameterParser.getParameterMap().get("foo.class"));
+    }
+
+    private static File createContainerFile(String content) throws IOException {
+        File file = File.createTempFile("container", ".xml");
+        file.deleteOnExit();
+
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        return file;
+    }
+}
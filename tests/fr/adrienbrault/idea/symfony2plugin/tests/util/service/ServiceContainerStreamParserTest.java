@@ -0,0 +1,90 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.util.service;
+
+import fr.adrienbrault.idea.symfony2plugin.config.component.parser.ParameterServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.dic.XmlServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.dic.XmlTagParser;
+import fr.adrienbrault.idea.symfony2plugin.translation.dict.DomainFileMap;
+import fr.adrienbrault.idea.symfony2plugin.translation.parser.DomainMappings;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerStreamParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.util.service.ServiceContainerStreamParser
+ */
+public class ServiceContainerStreamParserTest extends Assert {
+
+    @Test
+    public void testSinglePassIsDispatchedToAllParsers() {
+        String xmlString = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<container xmlns=\"http://symfony.com/schema/dic/services\">" +
+                "<parameters>" +
+                    "<parameter key=\"foo.class\">Foo\\Bar</parameter>" +
+                    "<parameter key=\"bundles\" type=\"collection\">" +
+                        "<parameter key=\"FrameworkBundle\">Framework</parameter>" +
+                    "</parameter>" +
+                "</parameters>" +
+                "<services>" +
+                    "<service id=\"foo\" class=\"\\Foo\\Bar\">" +
+                        "<tag name=\"foo.tag\"/>" +
+                    "</service>" +
+                    "<service id=\"private\" class=\"Foo\\Private\" public=\"false\"/>" +
+                "</services>" +
+            "</container>";
+
+        XmlServiceParser serviceParser = new XmlServiceParser();
+        ParameterServiceParser parameterParser = new ParameterServiceParser();
+        XmlTagParser tagParser = new XmlTagParser();
+
+        ServiceContainerStreamParser.parse(
+            new ByteArrayInputStream(xmlString.getBytes()),
+            Arrays.asList(serviceParser, parameterParser, tagParser)
+        );
+
+        assertEquals("Foo\\Bar", serviceParser.getServiceMap().getMap().get("foo"));
+        assertEquals("Foo\\Private", serviceParser.getServiceMap().getMap().get("private"));
+        assertNull(serviceParser.getServiceMap().getPublicMap().get("private"));
+
+        assertEquals("Foo\\Bar", parameterParser.getParameterMap().get("foo.class"));
+        assertEquals("collection", parameterParser.getParameterMap().get("bundles"));
+        assertNull(parameterParser.getParameterMap().get("FrameworkBundle"));
+
+        assertTrue(tagParser.get().contains("foo.tag"));
+        assertTrue(tagParser.getTaggedClass("foo.tag").contains("\\Foo\\Bar"));
+    }
+
+    @Test
+    public void testInvalidXmlKeepsPartialResult() {
+        String xmlString = "<container><services><service id=\"foo\" class=\"Foo\"/><service";
+
+        XmlServiceParser serviceParser = new XmlServiceParser();
+        serviceParser.parser(new ByteArrayInputStream(xmlString.getBytes()));
+
+        assertEquals("Foo", serviceParser.getServiceMap().getMap().get("foo"));
+    }
+
+    @Test
+    public void testNestedArgumentsAreInDocumentOrder() {
+        String xmlString = "<container><services>" +
+            "<service id=\"translator.default\" class=\"Symfony\\Bundle\\FrameworkBundle\\Translation\\Translator\">" +
+                "<call method=\"addResource\">" +
+                    "<argument>xlf</argument>" +
+                    "<argument type=\"collection\"><argument>nested</argument></argument>" +
+                    "<argument>messages</argument>" +
+                "</call>" +
+            "</service>" +
+        "</services></container>";
+
+        DomainMappings domainMappings = new DomainMappings();
+        domainMappings.parser(new ByteArrayInputStream(xmlString.getBytes()));
+
+        DomainFileMap domainFileMap = domainMappings.getDomainFileMaps().get(0);
+        assertEquals("xlf", domainFileMap.getLoader());
+        assertEquals("nested", domainFileMap.getLanguageKey());
+        assertEquals("messages", domainFileMap.getDomain());
+    }
+}
@@ -0,0 +1,52 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.webDeployment.utils;
+
+import fr.adrienbrault.idea.symfony2plugin.routing.webDeployment.RoutingRemoteFileStorage;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import fr.adrienbrault.idea.symfony2plugin.webDeployment.utils.RemoteWebServerUtil;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Local files are the stand-in for the sftp / ftp server; both are commons vfs file objects
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ *
+ * @see fr.adrienbrault.idea.symfony2plugin.webDeployment.utils.RemoteWebServerUtil
+ */
+public class RemoteWebServerUtilTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    private static final String URL_GENERATOR = "<?php\n" +
+        "class appDevUrlGenerator\n" +
+        "{\n" +
+        "    private static $declaredRoutes = array(\n" +
+        "        '%s' => array (  0 =>   array (  ),  1 =>   array (    '_controller' => 'Foo::barAction',  ),  2 =>   array (  ),  3 =>   array (    0 =>     array (      0 => 'text',      1 => '/foo',    ),  ),  4 =>   array (  ),  5 =>   array (  ),),\n" +
+        "    );\n" +
+        "}\n";
+
+    public void testUnchangedRemoteFileIsNotFetchedAgain() throws Exception {
+        File file = File.createTempFile("appDevUrlGenerator", ".php");
+        file.deleteOnExit();
+        Files.write(file.toPath(), String.format(URL_GENERATOR, "foo_route").getBytes(StandardCharsets.UTF_8));
+
+        FileObject fileObject = VFS.getManager().resolveFile(file.toURI().toString());
+        RoutingRemoteFileStorage storage = new RoutingRemoteFileStorage();
+
+        assertTrue(RemoteWebServerUtil.updateStorage(getProject(), storage, Collections.singletonList(fileObject)));
+        assertTrue(storage.getState().containsKey("foo_route"));
+
+        fileObject.refresh();
+        assertFalse(RemoteWebServerUtil.updateStorage(getProject(), storage, Collections.singletonList(fileObject)));
+
+        Files.write(file.toPath(), String.format(URL_GENERATOR, "foo_route_changed").getBytes(StandardCharsets.UTF_8));
+        fileObject.refresh();
+
+        assertTrue(RemoteWebServerUtil.updateStorage(getProject(), storage, Collections.singletonList(fileObject)));
+        assertTrue(storage.getState().containsKey("foo_route_changed"));
+        assertFalse(storage.getState().containsKey("foo_route"));
+    }
+}